@@ -0,0 +1,28 @@
+package com.bank.admission;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a mutating handler method for admission control: {@link AdmissionInterceptor} takes a
+ * token from the principal's bucket for the endpoint, and from the account's bucket if the
+ * account id is a path variable or request parameter and the principal owns the account,
+ * before the method runs.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Admission {
+
+    /** The endpoint name its limits are configured under, see {@link AdmissionControl}. */
+    String value();
+
+    /**
+     * The path variable or request parameter holding the account id; empty when there is
+     * none, or when the handler takes it from the body and calls {@link AdmissionControl} itself.
+     */
+    String account() default "";
+}
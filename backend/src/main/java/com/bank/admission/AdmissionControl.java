@@ -0,0 +1,147 @@
+package com.bank.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for mutating endpoints, checked before a request reaches the database.
+ *
+ * <p>Each endpoint has token buckets per principal and per account, with limits
+ * {@code bank.admission.limits.<endpoint>.per-user.rate} (tokens per second) and
+ * {@code .burst} (defaulting to the rate), and the same under {@code per-account}, falling
+ * back to {@code bank.admission.default.*}. No rate, or a rate of 0, means no limit.
+ * Buckets that have refilled are dropped every {@code bank.admission.sweep-interval}.
+ * Rejections are counted in {@code bank.admission.rejected} by endpoint and key.
+ */
+@Component
+public class AdmissionControl {
+
+    private final MeterRegistry registry;
+    private final Environment environment;
+    private final boolean enabled;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+
+    private final class Endpoint {
+        final KeyedRateLimiter perUser;
+        final KeyedRateLimiter perAccount;
+        final Counter userRejections;
+        final Counter accountRejections;
+
+        Endpoint(String name) {
+            perUser = limiter(name, "per-user");
+            perAccount = limiter(name, "per-account");
+            userRejections = rejections(name, "user");
+            accountRejections = rejections(name, "account");
+        }
+
+        /** Reads rate and burst from the endpoint's own limits if it has a rate there, else from the default. */
+        private KeyedRateLimiter limiter(String name, String key) {
+            String prefix = "bank.admission.limits." + name + "." + key;
+            if (!environment.containsProperty(prefix + ".rate")) {
+                prefix = "bank.admission.default." + key;
+            }
+            double rate = environment.getProperty(prefix + ".rate", Double.class, 0.0);
+            if (rate <= 0) {
+                return null;
+            }
+            int burst = environment.getProperty(prefix + ".burst", Integer.class, (int) Math.max(1, Math.ceil(rate)));
+            return new KeyedRateLimiter(rate, burst);
+        }
+
+        private Counter rejections(String name, String key) {
+            return Counter.builder("bank.admission.rejected")
+                .tag("endpoint", name)
+                .tag("key", key)
+                .register(registry);
+        }
+    }
+
+    public AdmissionControl(MeterRegistry registry, Environment environment) {
+        this.registry = registry;
+        this.environment = environment;
+        this.enabled = environment.getProperty("bank.admission.enabled", Boolean.class, true);
+        Gauge.builder("bank.admission.keys", this, AdmissionControl::size).register(registry);
+        FunctionCounter.builder("bank.admission.evictions", evictions, LongAdder::sum).register(registry);
+    }
+
+    /**
+     * Takes a token from the principal's bucket for the endpoint.
+     * @throws AdmissionRejectedException if the principal is over the limit.
+     */
+    public void admitUser(String endpoint, String principal) {
+        if (!enabled || principal == null) {
+            return;
+        }
+        Endpoint limits = endpoint(endpoint);
+        if (limits.perUser == null) {
+            return;
+        }
+        long wait = limits.perUser.acquire(principal, System.nanoTime());
+        if (wait > 0) {
+            limits.userRejections.increment();
+            throw new AdmissionRejectedException("Too many requests; try again shortly.", wait);
+        }
+    }
+
+    /**
+     * Takes a token from the account's bucket for the endpoint. Call it only once the
+     * principal is known to own the account, so that nobody can spend another customer's
+     * tokens, and after {@link #admitUser}: a rejection gives the principal's token back.
+     * @throws AdmissionRejectedException if the account is over the limit.
+     */
+    public void admitAccount(String endpoint, String principal, Long accountId) {
+        if (!enabled || accountId == null) {
+            return;
+        }
+        Endpoint limits = endpoint(endpoint);
+        if (limits.perAccount == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long wait = limits.perAccount.acquire(accountId, now);
+        if (wait > 0) {
+            if (limits.perUser != null && principal != null) {
+                limits.perUser.release(principal, now);
+            }
+            limits.accountRejections.increment();
+            throw new AdmissionRejectedException("Too many requests for this account; try again shortly.", wait);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.admission.sweep-interval:PT1M}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (Endpoint limits : endpoints.values()) {
+            if (limits.perUser != null) {
+                evictions.add(limits.perUser.sweep(now));
+            }
+            if (limits.perAccount != null) {
+                evictions.add(limits.perAccount.sweep(now));
+            }
+        }
+    }
+
+    private Endpoint endpoint(String name) {
+        Endpoint limits = endpoints.get(name);
+        return limits != null ? limits : endpoints.computeIfAbsent(name, Endpoint::new);
+    }
+
+    private int size() {
+        int size = 0;
+        for (Endpoint limits : endpoints.values()) {
+            size += limits.perUser != null ? limits.perUser.size() : 0;
+            size += limits.perAccount != null ? limits.perAccount.size() : 0;
+        }
+        return size;
+    }
+}
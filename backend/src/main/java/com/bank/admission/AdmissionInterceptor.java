@@ -0,0 +1,80 @@
+package com.bank.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import com.bank.service.AccountOwnershipService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.security.Principal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies {@link AdmissionControl} to handler methods marked {@link Admission}. Runs after
+ * the security filter chain, so the principal is known, and before the handler, so a
+ * rejected request never reaches the database. The account's bucket is only charged when
+ * the principal owns the account; any other request is refused by the handler anyway.
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private final AdmissionControl admissionControl;
+    private final AccountOwnershipService ownershipService;
+    // Annotation lookups are not free; a handler method's answer never changes.
+    private final Map<Method, Optional<Admission>> admissions = new ConcurrentHashMap<>();
+
+    public AdmissionInterceptor(AdmissionControl admissionControl, AccountOwnershipService ownershipService) {
+        this.admissionControl = admissionControl;
+        this.ownershipService = ownershipService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        Optional<Admission> found = admissions.get(method.getMethod());
+        if (found == null) {
+            found = Optional.ofNullable(method.getMethodAnnotation(Admission.class));
+            admissions.put(method.getMethod(), found);
+        }
+        Admission admission = found.orElse(null);
+        if (admission == null) {
+            return true;
+        }
+        Principal principal = request.getUserPrincipal();
+        String name = principal != null ? principal.getName() : null;
+        admissionControl.admitUser(admission.value(), name);
+        if (!admission.account().isEmpty() && name != null) {
+            Long accountId = accountId(request, admission.account());
+            if (accountId != null && ownershipService.isOwner(name, accountId)) {
+                admissionControl.admitAccount(admission.value(), name, accountId);
+            }
+        }
+        return true;
+    }
+
+    /** @return the account id, or null if it is missing or malformed, which the handler rejects. */
+    private static Long accountId(HttpServletRequest request, String name) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(
+            HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String value = variables != null ? variables.get(name) : null;
+        if (value == null) {
+            value = request.getParameter(name);
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
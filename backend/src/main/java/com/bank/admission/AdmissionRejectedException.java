@@ -0,0 +1,20 @@
+package com.bank.admission;
+
+/**
+ * Thrown when a request is over its endpoint's limit for the principal or the account.
+ * Answered with 429 and a Retry-After of the time until a token is available.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterNanos;
+
+    public AdmissionRejectedException(String message, long retryAfterNanos) {
+        super(message, null, false, false);
+        this.retryAfterNanos = retryAfterNanos;
+    }
+
+    /** @return the Retry-After value, in whole seconds and at least 1. */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterNanos + 999_999_999) / 1_000_000_000);
+    }
+}
@@ -0,0 +1,101 @@
+package com.bank.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per key, each a single {@link AtomicLong} updated by compare-and-set.
+ *
+ * <p>A bucket is stored as the time at which it will be full again (the generic cell rate
+ * algorithm): taking a token moves that time one interval later, and is refused when it
+ * would move more than {@code burst} intervals past now. A bucket whose time has passed is
+ * full, which is the same as having no bucket, so {@link #sweep} can drop it. The map is
+ * a {@link ConcurrentHashMap}, so different keys rarely contend.
+ */
+final class KeyedRateLimiter {
+
+    // Marks a bucket the sweep is removing; an acquirer that meets it starts a fresh one.
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final ConcurrentHashMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    KeyedRateLimiter(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1.");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000 / ratePerSecond));
+        this.capacityNanos = intervalNanos * burst;
+    }
+
+    /**
+     * Takes one token from the key's bucket.
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available.
+     */
+    long acquire(Object key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        while (true) {
+            if (bucket == null) {
+                bucket = buckets.putIfAbsent(key, new AtomicLong(nowNanos + intervalNanos));
+                if (bucket == null) {
+                    return 0;
+                }
+            }
+            long full = bucket.get();
+            if (full == EVICTED) {
+                buckets.remove(key, bucket);
+                bucket = buckets.get(key);
+                continue;
+            }
+            long next = (full - nowNanos > 0 ? full : nowNanos) + intervalNanos;
+            long wait = next - nowNanos - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /** Gives back a token taken by {@link #acquire}, e.g. when a later check refused the request. */
+    void release(Object key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        while (true) {
+            long full = bucket.get();
+            if (full == EVICTED || full - nowNanos <= 0) {
+                return;
+            }
+            if (bucket.compareAndSet(full, full - intervalNanos)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops the buckets that are full again.
+     * @return how many were dropped.
+     */
+    int sweep(long nowNanos) {
+        int evicted = 0;
+        for (Map.Entry<Object, AtomicLong> entry : buckets.entrySet()) {
+            AtomicLong bucket = entry.getValue();
+            long full = bucket.get();
+            // Claiming the bucket first means a token taken meanwhile is never lost with it.
+            if (full != EVICTED && full - nowNanos <= 0 && bucket.compareAndSet(full, EVICTED)) {
+                buckets.remove(entry.getKey(), bucket);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
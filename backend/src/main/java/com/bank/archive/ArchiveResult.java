@@ -0,0 +1,15 @@
+package com.bank.archive;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of an archival run: the segments written, the ledger rows they took out of the
+ * transactions table and their size on disk. {@code archivableBefore} is the first day of
+ * the oldest month that was still too recent to archive.
+ */
+public record ArchiveResult(LocalDate archivableBefore,
+                            int segments,
+                            long rows,
+                            long bytes,
+                            long millis) {
+}
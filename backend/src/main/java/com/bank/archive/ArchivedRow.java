@@ -0,0 +1,76 @@
+package com.bank.archive;
+
+import com.bank.dto.TransactionView;
+import com.bank.model.Money;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * One ledger row as stored in a segment. Dates are kept as microseconds of the wall-clock
+ * date-time counted as if it were UTC, which is only an encoding: no time zone is applied.
+ */
+final class ArchivedRow {
+
+    static final String[] TYPES = { "DEPOSIT", "WITHDRAW", "TRANSFER_IN", "TRANSFER_OUT" };
+
+    final long accountId;
+    final long id;
+    final long epochMicros;
+    final byte type;
+    final long amount;
+    final boolean hasBalanceAfter;
+    final long balanceAfter;
+
+    ArchivedRow(long accountId, long id, long epochMicros, byte type, long amount,
+                boolean hasBalanceAfter, long balanceAfter) {
+        this.accountId = accountId;
+        this.id = id;
+        this.epochMicros = epochMicros;
+        this.type = type;
+        this.amount = amount;
+        this.hasBalanceAfter = hasBalanceAfter;
+        this.balanceAfter = balanceAfter;
+    }
+
+    boolean isCredit() {
+        return type == 0 || type == 2;
+    }
+
+    String typeName() {
+        return TYPES[type];
+    }
+
+    TransactionView toView() {
+        return new TransactionView(id, typeName(), Money.ofMinor(amount), toDate(epochMicros),
+            hasBalanceAfter ? Money.ofMinor(balanceAfter) : null);
+    }
+
+    /** Orders by (accountId, date, id), the order of rows in a segment. */
+    int compareTo(long accountId, long epochMicros, long id) {
+        int c = Long.compare(this.accountId, accountId);
+        if (c == 0) {
+            c = Long.compare(this.epochMicros, epochMicros);
+        }
+        return c != 0 ? c : Long.compare(this.id, id);
+    }
+
+    static byte typeCode(String type) {
+        for (byte i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Cannot archive a ledger row of type " + type);
+    }
+
+    /** Truncates to the microsecond, the precision of the database's timestamps. */
+    static long toMicros(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + date.getNano() / 1000;
+    }
+
+    static LocalDateTime toDate(long epochMicros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000),
+            (int) Math.floorMod(epochMicros, 1_000_000) * 1000, ZoneOffset.UTC);
+    }
+}
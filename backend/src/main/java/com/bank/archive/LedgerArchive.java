@@ -0,0 +1,470 @@
+package com.bank.archive;
+
+import com.bank.dto.TransactionView;
+import com.bank.model.LedgerSegment;
+import com.bank.model.Money;
+import com.bank.repository.LedgerSegmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Read side of the ledger archive: ledger rows that {@link LedgerArchiver} moved out of the
+ * transactions table into segment files under {@code bank.archive.dir}, listed in the
+ * ledger_segments catalog.
+ *
+ * <p>Code that combines table rows with archived ones runs inside {@link #read}, which lists
+ * the segments, runs the work against the table and those segments, and lists them again.
+ * The archiver deletes a segment's rows in the transaction that adds it to the catalog, so
+ * when the listing did not change every row was seen exactly once; otherwise the work is
+ * run again. Call it inside a transaction, so that every statement uses one connection.
+ *
+ * <p>Until anything is archived the catalog is known to be empty and {@link #read} skips
+ * both listings. The archiver clears that flag before its first delete, and a read that
+ * finds it cleared once its work is done runs again the normal way. Another instance's
+ * first segment is noticed when the flag is checked against the catalog again, at most
+ * {@code bank.archive.empty-recheck} later.
+ *
+ * <p>Segment files are never changed or deleted, and every instance must see the same
+ * directory: with more than one instance it has to be shared storage.
+ */
+@Service
+public class LedgerArchive {
+
+    /** Ledger rows oldest first, the order of the export. */
+    public static final Comparator<TransactionView> OLDEST_FIRST =
+        Comparator.comparing(TransactionView::getTransactionDate).thenComparing(TransactionView::getId);
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final LedgerSegmentRepository segmentRepo;
+    private final Path dir;
+    private final Map<Long, SegmentReader> readers;
+    private final long emptyRecheckNanos;
+    // Set for good once a segment exists; until then the catalog is known empty until emptyUntil.
+    private volatile boolean archived;
+    private volatile long emptyUntil = System.nanoTime();
+
+    public LedgerArchive(LedgerSegmentRepository segmentRepo,
+                         @Value("${bank.archive.dir:./ledger-archive}") Path dir,
+                         @Value("${bank.archive.open-segments:256}") int openSegments,
+                         @Value("${bank.archive.empty-recheck:1m}") Duration emptyRecheck) {
+        this.segmentRepo = segmentRepo;
+        this.dir = dir;
+        this.emptyRecheckNanos = emptyRecheck.toNanos();
+        this.readers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SegmentReader> eldest) {
+                return size() > openSegments;
+            }
+        };
+    }
+
+    /** Runs {@code work} over the account's whole history; see {@link #read(Long, Long, LocalDateTime, LocalDateTime, Function)}. */
+    public <T> T read(Long accountId, Function<Snapshot, T> work) {
+        return read(accountId, accountId, EARLIEST, LATEST, work);
+    }
+
+    /** Runs {@code work} over every account's rows dated at or after {@code from}. */
+    public <T> T read(LocalDateTime from, Function<Snapshot, T> work) {
+        return read(Long.MIN_VALUE, Long.MAX_VALUE, from, LATEST, work);
+    }
+
+    /**
+     * Runs {@code work} with the segments holding rows of the accounts in the id range dated
+     * in [from, to). The work should query the transactions table after it starts; it may
+     * run more than once, and a result it returns that is {@link AutoCloseable} is closed
+     * when it is discarded.
+     */
+    public <T> T read(Long firstAccountId, Long lastAccountId, LocalDateTime from, LocalDateTime to,
+                      Function<Snapshot, T> work) {
+        if (knownEmpty()) {
+            T result = work.apply(new Snapshot(List.of()));
+            if (!archived) {
+                return result;
+            }
+            discard(result);
+        }
+        for (int attempt = 1; ; attempt++) {
+            List<LedgerSegment> listed = segmentRepo.findOverlapping(firstAccountId, lastAccountId, from, to);
+            T result = work.apply(new Snapshot(listed));
+            List<LedgerSegment> relisted = segmentRepo.findOverlapping(firstAccountId, lastAccountId, from, to);
+            if (ids(relisted).equals(ids(listed))) {
+                return result;
+            }
+            discard(result);
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IllegalStateException("The ledger archive kept changing during a read.");
+            }
+        }
+    }
+
+    /** Called by the archiver before it deletes the rows of its first segment. */
+    void segmentAdding() {
+        archived = true;
+    }
+
+    private boolean knownEmpty() {
+        if (archived) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - emptyUntil < 0) {
+            return true;
+        }
+        if (segmentRepo.count() > 0) {
+            archived = true;
+            return false;
+        }
+        emptyUntil = now + emptyRecheckNanos;
+        return true;
+    }
+
+    private static void discard(Object result) {
+        if (result instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                // Discarded anyway.
+            }
+        }
+    }
+
+    /** Merges iterators that are each sorted by {@code order} into one sorted iterator. */
+    public static <T> Iterator<T> merge(List<Iterator<T>> sorted, Comparator<? super T> order) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.value, b.value));
+        for (Iterator<T> iterator : sorted) {
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.rest.hasNext()) {
+                    heads.add(new Head<>(head.rest.next(), head.rest));
+                }
+                return head.value;
+            }
+        };
+    }
+
+    private record Head<T>(T value, Iterator<T> rest) {
+    }
+
+    Path resolve(String fileName) {
+        return dir.resolve(fileName);
+    }
+
+    private SegmentReader reader(LedgerSegment segment) {
+        synchronized (readers) {
+            SegmentReader reader = readers.get(segment.getId());
+            if (reader == null) {
+                try {
+                    reader = new SegmentReader(resolve(segment.getFileName()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open archive segment " + segment.getFileName(), e);
+                }
+                readers.put(segment.getId(), reader);
+            }
+            return reader;
+        }
+    }
+
+    private static List<Long> ids(List<LedgerSegment> segments) {
+        return segments.stream().map(LedgerSegment::getId).toList();
+    }
+
+    /** The segments listed for one {@link #read}, and the queries over them. */
+    public final class Snapshot {
+
+        private final List<LedgerSegment> segments;
+
+        private Snapshot(List<LedgerSegment> segments) {
+            this.segments = segments;
+        }
+
+        public boolean isEmpty() {
+            return segments.isEmpty();
+        }
+
+        /**
+         * The account's archived rows dated in [from, to) of the type (null for any) and
+         * strictly older than the (cursorDate, cursorId) position, newest first.
+         */
+        public List<TransactionView> findOlderThan(Long accountId, LocalDateTime from, LocalDateTime to, String type,
+                                                   LocalDateTime cursorDate, Long cursorId, int limit) {
+            long fromMicros = ArchivedRow.toMicros(from);
+            long toMicros = ArchivedRow.toMicros(to);
+            long cursorMicros = ArchivedRow.toMicros(cursorDate);
+            // Rows before whichever bound comes first.
+            long boundMicros = toMicros <= cursorMicros ? toMicros : cursorMicros;
+            long boundId = toMicros <= cursorMicros ? Long.MIN_VALUE : cursorId;
+            List<TransactionView> rows = new ArrayList<>();
+            List<LedgerSegment> newestFirst = new ArrayList<>(segments);
+            Collections.reverse(newestFirst);
+            for (LedgerSegment segment : newestFirst) {
+                if (!covers(segment, accountId)) {
+                    continue;
+                }
+                // Segments are visited by month; once the page is full, an older one cannot contribute.
+                if (rows.size() >= limit && segment.getLastTransactionDate().isBefore(rows.get(limit - 1).getTransactionDate())) {
+                    break;
+                }
+                Iterator<ArchivedRow> it = reader(segment).before(accountId, boundMicros, boundId);
+                int taken = 0;
+                while (taken < limit && it.hasNext()) {
+                    ArchivedRow row = it.next();
+                    if (row.accountId != accountId || row.epochMicros < fromMicros) {
+                        break;
+                    }
+                    if (type == null || type.equals(row.typeName())) {
+                        rows.add(row.toView());
+                        taken++;
+                    }
+                }
+                rows.sort(OLDEST_FIRST.reversed());
+                if (rows.size() > limit) {
+                    rows.subList(limit, rows.size()).clear();
+                }
+            }
+            return rows;
+        }
+
+        /** As {@link #findOlderThan}, for rows strictly newer than the position, oldest first. */
+        public List<TransactionView> findNewerThan(Long accountId, LocalDateTime from, LocalDateTime to, String type,
+                                                   LocalDateTime cursorDate, Long cursorId, int limit) {
+            long fromMicros = ArchivedRow.toMicros(from);
+            long toMicros = ArchivedRow.toMicros(to);
+            long cursorMicros = ArchivedRow.toMicros(cursorDate);
+            // Rows after whichever bound comes last.
+            long boundMicros = fromMicros > cursorMicros ? fromMicros : cursorMicros;
+            long boundId = fromMicros > cursorMicros ? Long.MIN_VALUE : cursorId;
+            List<TransactionView> rows = new ArrayList<>();
+            for (LedgerSegment segment : segments) {
+                if (!covers(segment, accountId)) {
+                    continue;
+                }
+                if (rows.size() >= limit && segment.getFirstTransactionDate().isAfter(rows.get(limit - 1).getTransactionDate())) {
+                    break;
+                }
+                Iterator<ArchivedRow> it = reader(segment).after(accountId, boundMicros, boundId);
+                int taken = 0;
+                while (taken < limit && it.hasNext()) {
+                    ArchivedRow row = it.next();
+                    if (row.accountId != accountId || row.epochMicros >= toMicros) {
+                        break;
+                    }
+                    if (type == null || type.equals(row.typeName())) {
+                        rows.add(row.toView());
+                        taken++;
+                    }
+                }
+                rows.sort(OLDEST_FIRST);
+                if (rows.size() > limit) {
+                    rows.subList(limit, rows.size()).clear();
+                }
+            }
+            return rows;
+        }
+
+        /** Every archived row of the account, oldest first, read a block at a time. */
+        public Iterator<TransactionView> iterate(Long accountId) {
+            List<Iterator<TransactionView>> perSegment = new ArrayList<>();
+            for (LedgerSegment segment : segments) {
+                if (covers(segment, accountId)) {
+                    Iterator<ArchivedRow> rows = reader(segment).after(accountId, Long.MIN_VALUE, Long.MIN_VALUE);
+                    perSegment.add(new Iterator<>() {
+                        private ArchivedRow next = advance();
+
+                        private ArchivedRow advance() {
+                            ArchivedRow row = rows.hasNext() ? rows.next() : null;
+                            return row != null && row.accountId == accountId ? row : null;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null;
+                        }
+
+                        @Override
+                        public TransactionView next() {
+                            if (next == null) {
+                                throw new NoSuchElementException();
+                            }
+                            TransactionView view = next.toView();
+                            next = advance();
+                            return view;
+                        }
+                    });
+                }
+            }
+            return merge(perSegment, OLDEST_FIRST);
+        }
+
+        /**
+         * Adds the archived rows dated in [from, to) of the accounts in the id range to
+         * {@code sums}, rows of {accountId, credits, debits, count} as returned by
+         * {@link com.bank.repository.TransactionRepository#sumByAccount}. Whole segments
+         * are read from their account directory; others are scanned.
+         */
+        public List<Object[]> addSumsByAccount(List<Object[]> sums, LocalDateTime from, LocalDateTime to,
+                                               Long firstAccountId, Long lastAccountId) {
+            if (segments.isEmpty()) {
+                return sums;
+            }
+            Map<Long, long[]> totals = new TreeMap<>();
+            for (Object[] sum : sums) {
+                long[] total = totals.computeIfAbsent((Long) sum[0], id -> new long[3]);
+                total[0] += Money.of((BigDecimal) sum[1]).getMinorUnits();
+                total[1] += Money.of((BigDecimal) sum[2]).getMinorUnits();
+                total[2] += (Long) sum[3];
+            }
+            long fromMicros = ArchivedRow.toMicros(from);
+            long toMicros = ArchivedRow.toMicros(to);
+            for (LedgerSegment segment : segments) {
+                SegmentReader reader = reader(segment);
+                boolean whole = !segment.getFirstTransactionDate().isBefore(from) && segment.getLastTransactionDate().isBefore(to);
+                for (SegmentReader.AccountEntry account : reader.accounts(firstAccountId, lastAccountId)) {
+                    if (account.lastMicros() < fromMicros || account.firstMicros() >= toMicros) {
+                        continue;
+                    }
+                    long[] total = totals.computeIfAbsent(account.accountId(), id -> new long[3]);
+                    if (whole) {
+                        total[0] += account.credits();
+                        total[1] += account.debits();
+                        total[2] += account.rows();
+                        continue;
+                    }
+                    Iterator<ArchivedRow> rows = reader.after(account.accountId(), fromMicros, Long.MIN_VALUE);
+                    while (rows.hasNext()) {
+                        ArchivedRow row = rows.next();
+                        if (row.accountId != account.accountId() || row.epochMicros >= toMicros) {
+                            break;
+                        }
+                        total[row.isCredit() ? 0 : 1] += row.amount;
+                        total[2]++;
+                    }
+                }
+            }
+            List<Object[]> combined = new ArrayList<>(totals.size());
+            for (Map.Entry<Long, long[]> e : totals.entrySet()) {
+                long[] total = e.getValue();
+                if (total[2] > 0) {
+                    combined.add(new Object[] { e.getKey(), Money.ofMinor(total[0]).toBigDecimal(),
+                        Money.ofMinor(total[1]).toBigDecimal(), total[2] });
+                }
+            }
+            return combined;
+        }
+
+        /**
+         * Amount in minor units and row count of the archived rows dated in [from, to) per
+         * account in the id range and per type, accounts ascending.
+         */
+        public NavigableMap<Long, Map<String, long[]>> sumByAccountAndType(LocalDateTime from, LocalDateTime to,
+                                                                            Long firstAccountId, Long lastAccountId) {
+            NavigableMap<Long, Map<String, long[]>> totals = new TreeMap<>();
+            long fromMicros = ArchivedRow.toMicros(from);
+            long toMicros = ArchivedRow.toMicros(to);
+            for (LedgerSegment segment : segments) {
+                SegmentReader reader = reader(segment);
+                for (SegmentReader.AccountEntry account : reader.accounts(firstAccountId, lastAccountId)) {
+                    if (account.lastMicros() < fromMicros || account.firstMicros() >= toMicros) {
+                        continue;
+                    }
+                    Iterator<ArchivedRow> rows = reader.after(account.accountId(), fromMicros, Long.MIN_VALUE);
+                    while (rows.hasNext()) {
+                        ArchivedRow row = rows.next();
+                        if (row.accountId != account.accountId() || row.epochMicros >= toMicros) {
+                            break;
+                        }
+                        long[] total = totals.computeIfAbsent(row.accountId, id -> new TreeMap<>())
+                            .computeIfAbsent(row.typeName(), t -> new long[2]);
+                        total[0] += row.amount;
+                        total[1]++;
+                    }
+                }
+            }
+            return totals;
+        }
+
+        /** Date of the oldest archived row dated at or after {@code from}, or null. */
+        public LocalDateTime findFirstTransactionDateFrom(LocalDateTime from) {
+            long fromMicros = ArchivedRow.toMicros(from);
+            LocalDateTime first = null;
+            for (LedgerSegment segment : segments) {
+                if (segment.getLastTransactionDate().isBefore(from)
+                        || (first != null && !segment.getFirstTransactionDate().isBefore(first))) {
+                    continue;
+                }
+                if (!segment.getFirstTransactionDate().isBefore(from)) {
+                    first = segment.getFirstTransactionDate();
+                    continue;
+                }
+                SegmentReader reader = reader(segment);
+                for (SegmentReader.AccountEntry account : reader.accounts(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                    if (account.lastMicros() < fromMicros) {
+                        continue;
+                    }
+                    Iterator<ArchivedRow> rows = reader.after(account.accountId(), fromMicros, Long.MIN_VALUE);
+                    LocalDateTime date = ArchivedRow.toDate(rows.next().epochMicros);
+                    if (first == null || date.isBefore(first)) {
+                        first = date;
+                    }
+                }
+            }
+            return first;
+        }
+
+        /** Date of the account's newest archived row, or null. */
+        public LocalDateTime findLastTransactionDate(Long accountId) {
+            LocalDateTime last = null;
+            for (LedgerSegment segment : segments) {
+                if (covers(segment, accountId)) {
+                    SegmentReader.AccountEntry account = reader(segment).account(accountId);
+                    if (account != null) {
+                        LocalDateTime date = ArchivedRow.toDate(account.lastMicros());
+                        if (last == null || date.isAfter(last)) {
+                            last = date;
+                        }
+                    }
+                }
+            }
+            return last;
+        }
+
+        private boolean covers(LedgerSegment segment, Long accountId) {
+            return segment.getFirstAccountId() <= accountId && accountId <= segment.getLastAccountId();
+        }
+    }
+}
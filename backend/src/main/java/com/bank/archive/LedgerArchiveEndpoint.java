@@ -0,0 +1,47 @@
+package com.bank.archive;
+
+import com.bank.repository.LedgerSegmentRepository;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operator view of the ledger archive: its segments and the month archival has reached, and
+ * a write operation that runs the archiver now. Not exposed over HTTP by default, like the
+ * other operator endpoints.
+ */
+@Component
+@Endpoint(id = "ledgerarchive")
+public class LedgerArchiveEndpoint {
+
+    private final LedgerArchiver archiver;
+    private final LedgerSegmentRepository segmentRepo;
+
+    public LedgerArchiveEndpoint(LedgerArchiver archiver, LedgerSegmentRepository segmentRepo) {
+        this.archiver = archiver;
+        this.segmentRepo = segmentRepo;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Object[] summary = segmentRepo.summarize().get(0);
+        LocalDate latestMonth = segmentRepo.findLatestMonth();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("segments", summary[0]);
+        status.put("rows", summary[1]);
+        status.put("bytes", summary[2]);
+        status.put("latestMonth", latestMonth != null ? latestMonth.toString() : null);
+        status.put("archivableBefore", archiver.archivableBefore().toString());
+        return status;
+    }
+
+    @WriteOperation
+    public ArchiveResult run() {
+        return archiver.run();
+    }
+}
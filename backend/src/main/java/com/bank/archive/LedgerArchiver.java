@@ -0,0 +1,240 @@
+package com.bank.archive;
+
+import com.bank.checkpoint.BalanceCheckpointService;
+import com.bank.model.LedgerSegment;
+import com.bank.model.Money;
+import com.bank.repository.LedgerSegmentRepository;
+import com.bank.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves old ledger rows out of the transactions table into compressed segment files (see
+ * {@link SegmentWriter}), a calendar month at a time. A month is archived once it ended at
+ * least {@code bank.archive.after} ago and its days are covered by balance checkpoints, so
+ * period summaries and point-in-time balances over it still come from the checkpoints.
+ *
+ * <p>Every range of {@code bank.archive.accounts-per-segment} account ids gets one segment
+ * per month. Each segment is one database transaction: its rows are read in segment order,
+ * written to a temporary file that is forced to disk and renamed into place, then deleted
+ * from the table, and the segment is added to the catalog. If the delete does not remove
+ * exactly the rows that were written (a row arrived meanwhile, or another instance archived
+ * the range first), the transaction rolls back, the file is deleted and the next run tries
+ * again. A crash between the rename and the commit can leave a file that is not in the
+ * catalog; it is never read.
+ */
+@Service
+public class LedgerArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerArchiver.class);
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+    private static final String RANGES_SQL =
+        "SELECT DISTINCT FLOOR(account_id / ?) FROM transactions WHERE transaction_date >= ? AND transaction_date < ?";
+    private static final String ROWS_SQL =
+        "SELECT account_id, id, transaction_date, type, amount, balance_after_transaction FROM transactions " +
+        "WHERE account_id BETWEEN ? AND ? AND transaction_date >= ? AND transaction_date < ? " +
+        "ORDER BY account_id, transaction_date, id";
+    private static final String DELETE_SQL =
+        "DELETE FROM transactions WHERE account_id BETWEEN ? AND ? AND transaction_date >= ? AND transaction_date < ?";
+
+    private final LedgerArchive archive;
+    private final LedgerSegmentRepository segmentRepo;
+    private final TransactionRepository txRepo;
+    private final BalanceCheckpointService checkpoints;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration after;
+    private final long accountsPerSegment;
+    private final int blockRows;
+    private final int fetchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public LedgerArchiver(LedgerArchive archive,
+                          LedgerSegmentRepository segmentRepo,
+                          TransactionRepository txRepo,
+                          BalanceCheckpointService checkpoints,
+                          JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${bank.archive.after:90d}") Duration after,
+                          @Value("${bank.archive.accounts-per-segment:1000}") long accountsPerSegment,
+                          @Value("${bank.archive.block-rows:256}") int blockRows,
+                          @Value("${bank.archive.fetch-size:1000}") int fetchSize) {
+        this.archive = archive;
+        this.segmentRepo = segmentRepo;
+        this.txRepo = txRepo;
+        this.checkpoints = checkpoints;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.after = after;
+        this.accountsPerSegment = Math.max(1, accountsPerSegment);
+        this.blockRows = Math.max(1, blockRows);
+        this.fetchSize = fetchSize;
+    }
+
+    @Scheduled(cron = "${bank.archive.cron:-}")
+    public void scheduledRun() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            log.warn("Ledger archival run failed; the next run retries the segments that were not written", e);
+        }
+    }
+
+    /** Archives every month that is old enough and not archived yet. */
+    public ArchiveResult run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A ledger archival run is already in progress.");
+        }
+        try {
+            return archive();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /** The first day of the oldest month that may not be archived yet. */
+    public LocalDate archivableBefore() {
+        LocalDate byAge = LocalDateTime.now().minus(after).toLocalDate().withDayOfMonth(1);
+        LocalDate covered = checkpoints.completedThrough();
+        // A month needs checkpoints through its last day.
+        LocalDate byCheckpoints = covered.equals(LocalDate.MIN) ? LocalDate.MIN : covered.plusDays(1).withDayOfMonth(1);
+        return byAge.isBefore(byCheckpoints) ? byAge : byCheckpoints;
+    }
+
+    private ArchiveResult archive() {
+        long started = System.nanoTime();
+        LocalDate before = archivableBefore();
+        int segments = 0;
+        long rows = 0;
+        long bytes = 0;
+        LocalDateTime oldest = txRepo.findFirstTransactionDateFrom(EARLIEST);
+        if (oldest != null) {
+            for (LocalDate month = oldest.toLocalDate().withDayOfMonth(1); month.isBefore(before); month = month.plusMonths(1)) {
+                Timestamp from = Timestamp.valueOf(month.atStartOfDay());
+                Timestamp to = Timestamp.valueOf(month.plusMonths(1).atStartOfDay());
+                List<Long> ranges = jdbcTemplate.query(RANGES_SQL, (rs, n) -> rs.getLong(1), accountsPerSegment, from, to);
+                for (long range : ranges.stream().sorted().toList()) {
+                    LedgerSegment segment = archiveSegment(month, range * accountsPerSegment,
+                        range * accountsPerSegment + accountsPerSegment - 1);
+                    if (segment != null) {
+                        segments++;
+                        rows += segment.getRowCount();
+                        bytes += segment.getFileSize();
+                    }
+                }
+            }
+        }
+        ArchiveResult result = new ArchiveResult(before, segments, rows, bytes, (System.nanoTime() - started) / 1_000_000);
+        if (segments > 0) {
+            log.info("Ledger archival moved {} rows into {} segments ({} bytes) in {} ms", rows, segments, bytes,
+                result.millis());
+        }
+        return result;
+    }
+
+    // Returns the committed segment, or null if the range had no rows left.
+    private LedgerSegment archiveSegment(LocalDate month, long firstAccountId, long lastAccountId) {
+        YearMonth yearMonth = YearMonth.from(month);
+        // Random suffix: a retry after a failed attempt must not collide with its leftover file.
+        String fileName = String.format("%s/ledger-%s-%019d-%08x.seg", yearMonth, yearMonth, firstAccountId,
+            ThreadLocalRandom.current().nextInt());
+        Path path = archive.resolve(fileName);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Timestamp from = Timestamp.valueOf(month.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atStartOfDay());
+        try {
+            return transactionTemplate.execute(status -> {
+                long written;
+                long size;
+                LedgerSegment segment = new LedgerSegment();
+                try {
+                    Files.createDirectories(path.getParent());
+                    try (SegmentWriter writer = new SegmentWriter(temporary, blockRows)) {
+                        jdbcTemplate.query(connection -> {
+                            PreparedStatement statement = connection.prepareStatement(ROWS_SQL);
+                            statement.setFetchSize(fetchSize);
+                            statement.setLong(1, firstAccountId);
+                            statement.setLong(2, lastAccountId);
+                            statement.setTimestamp(3, from);
+                            statement.setTimestamp(4, to);
+                            return statement;
+                        }, rs -> {
+                            LocalDateTime date = rs.getObject(3, LocalDateTime.class);
+                            if (date.getNano() % 1000 != 0) {
+                                throw new IllegalStateException("Ledger row " + rs.getLong(2)
+                                    + " is dated below microsecond precision and cannot be archived");
+                            }
+                            BigDecimal balanceAfter = rs.getBigDecimal(6);
+                            try {
+                                writer.append(new ArchivedRow(rs.getLong(1), rs.getLong(2), ArchivedRow.toMicros(date),
+                                    ArchivedRow.typeCode(rs.getString(4)), Money.of(rs.getBigDecimal(5)).getMinorUnits(),
+                                    balanceAfter != null, balanceAfter != null ? Money.of(balanceAfter).getMinorUnits() : 0));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                        written = writer.rows();
+                        size = written > 0 ? writer.finish() : 0;
+                        segment.setFirstTransactionDate(ArchivedRow.toDate(writer.firstMicros()));
+                        segment.setLastTransactionDate(ArchivedRow.toDate(writer.lastMicros()));
+                    }
+                    if (written == 0) {
+                        Files.delete(temporary);
+                        return null;
+                    }
+                    Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                archive.segmentAdding();
+                int deleted = jdbcTemplate.update(DELETE_SQL, firstAccountId, lastAccountId, from, to);
+                if (deleted != written) {
+                    throw new IllegalStateException("Ledger rows of accounts " + firstAccountId + "-" + lastAccountId
+                        + " in " + month + " changed while they were archived");
+                }
+                segment.setMonth(month);
+                segment.setFirstAccountId(firstAccountId);
+                segment.setLastAccountId(lastAccountId);
+                segment.setFileName(fileName);
+                segment.setRowCount(written);
+                segment.setFileSize(size);
+                segment.setCreatedAt(LocalDateTime.now());
+                return segmentRepo.save(segment);
+            });
+        } catch (RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporary);
+                if (!segmentRepo.existsByFileName(fileName)) {
+                    Files.deleteIfExists(path);
+                }
+            } catch (IOException | RuntimeException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.bank.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.bank.archive.SegmentWriter.ACCOUNT_ENTRY_SIZE;
+import static com.bank.archive.SegmentWriter.FOOTER_SIZE;
+import static com.bank.archive.SegmentWriter.HEADER_SIZE;
+import static com.bank.archive.SegmentWriter.INDEX_ENTRY_SIZE;
+import static com.bank.archive.SegmentWriter.MAGIC;
+import static com.bank.archive.SegmentWriter.ROW_SIZE;
+import static com.bank.archive.SegmentWriter.VERSION;
+
+/**
+ * Reads a segment written by {@link SegmentWriter} through a read-only memory mapping.
+ * The index and account directory are decoded once when the segment is opened; a block
+ * is inflated and checked each time an iterator reaches it. Safe for concurrent use.
+ */
+final class SegmentReader {
+
+    /** An entry of the account directory. */
+    record AccountEntry(long accountId, int firstBlock, int rows, long credits, long debits,
+                        long firstMicros, long lastMicros) {
+    }
+
+    private final Path path;
+    private final MappedByteBuffer mapped;
+
+    private final long[] blockAccount;
+    private final long[] blockMicros;
+    private final long[] blockId;
+    private final long[] blockOffset;
+    private final int[] blockLength;
+    private final int[] blockRawLength;
+    private final int[] blockRows;
+    private final int[] blockCrc;
+    private final AccountEntry[] accounts;
+
+    SegmentReader(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int size = mapped.capacity();
+        if (size < HEADER_SIZE + FOOTER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(size - 4) != MAGIC) {
+            throw corrupt("not a segment file");
+        }
+        if (mapped.getInt(4) != VERSION) {
+            throw corrupt("unsupported version " + mapped.getInt(4));
+        }
+        int footer = size - FOOTER_SIZE;
+        int indexOffset = (int) mapped.getLong(footer);
+        int blocks = mapped.getInt(footer + 8);
+        int accountsOffset = (int) mapped.getLong(footer + 12);
+        int accountCount = mapped.getInt(footer + 20);
+        CRC32C crc = new CRC32C();
+        crc.update(mapped.slice(indexOffset, footer - indexOffset));
+        if ((int) crc.getValue() != mapped.getInt(footer + 32)) {
+            throw corrupt("index checksum mismatch");
+        }
+
+        blockAccount = new long[blocks];
+        blockMicros = new long[blocks];
+        blockId = new long[blocks];
+        blockOffset = new long[blocks];
+        blockLength = new int[blocks];
+        blockRawLength = new int[blocks];
+        blockRows = new int[blocks];
+        blockCrc = new int[blocks];
+        for (int b = 0, p = indexOffset; b < blocks; b++, p += INDEX_ENTRY_SIZE) {
+            blockAccount[b] = mapped.getLong(p);
+            blockMicros[b] = mapped.getLong(p + 8);
+            blockId[b] = mapped.getLong(p + 16);
+            blockOffset[b] = mapped.getLong(p + 24);
+            blockLength[b] = mapped.getInt(p + 32);
+            blockRawLength[b] = mapped.getInt(p + 36);
+            blockRows[b] = mapped.getInt(p + 40);
+            blockCrc[b] = mapped.getInt(p + 44);
+        }
+        accounts = new AccountEntry[accountCount];
+        for (int a = 0, p = accountsOffset; a < accountCount; a++, p += ACCOUNT_ENTRY_SIZE) {
+            accounts[a] = new AccountEntry(mapped.getLong(p), mapped.getInt(p + 8), mapped.getInt(p + 12),
+                mapped.getLong(p + 16), mapped.getLong(p + 24), mapped.getLong(p + 32), mapped.getLong(p + 40));
+        }
+    }
+
+    /** @return the account's directory entry, or null if the segment has no rows of it. */
+    AccountEntry account(long accountId) {
+        int i = firstAccountAtOrAfter(accountId);
+        return i < accounts.length && accounts[i].accountId() == accountId ? accounts[i] : null;
+    }
+
+    /** Directory entries of the accounts in the id range, ascending. */
+    Iterable<AccountEntry> accounts(long firstAccountId, long lastAccountId) {
+        int from = firstAccountAtOrAfter(firstAccountId);
+        int end = lastAccountId == Long.MAX_VALUE ? accounts.length : firstAccountAtOrAfter(lastAccountId + 1);
+        return () -> new Iterator<>() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public AccountEntry next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                return accounts[next++];
+            }
+        };
+    }
+
+    /** Rows with a key after (accountId, epochMicros, id), in ascending key order. */
+    Iterator<ArchivedRow> after(long accountId, long epochMicros, long id) {
+        // The last block starting at or before the key holds the first row after it, or
+        // ends just before it.
+        int block = lastBlockBefore(accountId, epochMicros, id, true);
+        return new Ascending(Math.max(block, 0), accountId, epochMicros, id);
+    }
+
+    /** Rows with a key before (accountId, epochMicros, id), in descending key order. */
+    Iterator<ArchivedRow> before(long accountId, long epochMicros, long id) {
+        return new Descending(lastBlockBefore(accountId, epochMicros, id, false), accountId, epochMicros, id);
+    }
+
+    private int firstAccountAtOrAfter(long accountId) {
+        int low = 0;
+        int high = accounts.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (accounts[middle].accountId() < accountId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // The last block whose first key is before the given key (or equal to it, if inclusive); -1 if none.
+    private int lastBlockBefore(long accountId, long epochMicros, long id, boolean inclusive) {
+        int low = 0;
+        int high = blockAccount.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int c = compare(blockAccount[middle], blockMicros[middle], blockId[middle], accountId, epochMicros, id);
+            if (c < 0 || (inclusive && c == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    private ByteBuffer inflate(int block) {
+        byte[] raw = new byte[blockRawLength[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(mapped.slice((int) blockOffset[block], blockLength[block]));
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(raw, 0, length);
+            if (length != raw.length || (int) crc.getValue() != blockCrc[block]) {
+                throw corrupt("block " + block + " checksum mismatch");
+            }
+        } catch (DataFormatException e) {
+            throw corrupt("block " + block + " cannot be inflated");
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    private static ArchivedRow row(ByteBuffer block, int index) {
+        int p = index * ROW_SIZE;
+        return new ArchivedRow(block.getLong(p), block.getLong(p + 8), block.getLong(p + 16), block.get(p + 24),
+            block.getLong(p + 25), block.get(p + 33) != 0, block.getLong(p + 34));
+    }
+
+    private static int compare(long account1, long micros1, long id1, long account2, long micros2, long id2) {
+        int c = Long.compare(account1, account2);
+        if (c == 0) {
+            c = Long.compare(micros1, micros2);
+        }
+        return c != 0 ? c : Long.compare(id1, id2);
+    }
+
+    private IllegalStateException corrupt(String reason) {
+        return new IllegalStateException("Corrupt archive segment " + path + ": " + reason);
+    }
+
+    private final class Ascending implements Iterator<ArchivedRow> {
+        private int block;
+        private ByteBuffer rows;
+        private int index;
+        private ArchivedRow next;
+
+        Ascending(int block, long accountId, long epochMicros, long id) {
+            this.block = block;
+            if (block < blockAccount.length) {
+                rows = inflate(block);
+                // Binary search for the first row after the key.
+                int low = 0;
+                int high = blockRows[block];
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (row(rows, middle).compareTo(accountId, epochMicros, id) <= 0) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                index = low;
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (rows != null) {
+                if (index < blockRows[block]) {
+                    next = row(rows, index++);
+                    return;
+                }
+                block++;
+                rows = block < blockAccount.length ? inflate(block) : null;
+                index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ArchivedRow next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            ArchivedRow row = next;
+            advance();
+            return row;
+        }
+    }
+
+    private final class Descending implements Iterator<ArchivedRow> {
+        private int block;
+        private ByteBuffer rows;
+        private int index;
+        private ArchivedRow next;
+
+        Descending(int block, long accountId, long epochMicros, long id) {
+            this.block = block;
+            if (block >= 0) {
+                rows = inflate(block);
+                // Binary search for the last row before the key.
+                int low = 0;
+                int high = blockRows[block];
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (row(rows, middle).compareTo(accountId, epochMicros, id) < 0) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                index = low - 1;
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (rows != null) {
+                if (index >= 0) {
+                    next = row(rows, index--);
+                    return;
+                }
+                block--;
+                rows = block >= 0 ? inflate(block) : null;
+                index = block >= 0 ? blockRows[block] - 1 : -1;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ArchivedRow next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            ArchivedRow row = next;
+            advance();
+            return row;
+        }
+    }
+}
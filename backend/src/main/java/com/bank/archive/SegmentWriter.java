@@ -0,0 +1,204 @@
+package com.bank.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+
+/**
+ * Writes one segment file. Rows must be appended in (accountId, date, id) order.
+ *
+ * <p>Layout: an 8-byte header (magic, version); the row blocks, each up to
+ * {@code blockRows} fixed-size rows compressed with deflate; the sparse index, one entry
+ * per block with its first row's key, offset, lengths and the CRC32C of its raw bytes;
+ * the account directory, one entry per account with its first block, row count, credits,
+ * debits and first and last date; and a fixed-size footer locating both, with a CRC32C
+ * of them and the magic number. A segment is never modified once written.
+ */
+final class SegmentWriter implements Closeable {
+
+    static final int MAGIC = 0x4C415243; // "LARC"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    // accountId, id, epochMicros, type, amount, hasBalanceAfter, balanceAfter
+    static final int ROW_SIZE = 8 + 8 + 8 + 1 + 8 + 1 + 8;
+    // first accountId, epochMicros and id, offset, compressed and raw length, rows, crc
+    static final int INDEX_ENTRY_SIZE = 8 + 8 + 8 + 8 + 4 + 4 + 4 + 4;
+    // accountId, first block, rows, credits, debits, first and last epochMicros
+    static final int ACCOUNT_ENTRY_SIZE = 8 + 4 + 4 + 8 + 8 + 8 + 8;
+    // index offset, blocks, accounts offset, accounts, rows, crc, magic
+    static final int FOOTER_SIZE = 8 + 4 + 8 + 4 + 8 + 4 + 4;
+
+    private final FileChannel channel;
+    private final int blockRows;
+    private final Deflater deflater = new Deflater();
+    private final CRC32C crc = new CRC32C();
+
+    private final ByteBuffer block;
+    private byte[] compressed;
+    private int blockRowCount;
+    private long position;
+
+    private ByteBuffer index = ByteBuffer.allocate(INDEX_ENTRY_SIZE * 64);
+    private int blocks;
+    private ByteBuffer accounts = ByteBuffer.allocate(ACCOUNT_ENTRY_SIZE * 64);
+    private int accountCount;
+
+    private ArchivedRow last;
+    private long rows;
+    private long firstMicros;
+    private long maxMicros = Long.MIN_VALUE;
+    // The current account's directory entry.
+    private int accountFirstBlock;
+    private int accountRows;
+    private long accountCredits;
+    private long accountDebits;
+    private long accountFirstMicros;
+
+    SegmentWriter(Path path, int blockRows) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.blockRows = blockRows;
+        this.block = ByteBuffer.allocate(blockRows * ROW_SIZE);
+        this.compressed = new byte[block.capacity() + 64];
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+        write(header);
+    }
+
+    void append(ArchivedRow row) throws IOException {
+        if (last != null && last.compareTo(row.accountId, row.epochMicros, row.id) >= 0) {
+            throw new IllegalStateException("Segment rows out of order at ledger row " + row.id);
+        }
+        if (blockRowCount == blockRows) {
+            writeBlock();
+        }
+        if (last == null || last.accountId != row.accountId) {
+            if (last != null) {
+                endAccount();
+            }
+            accountFirstBlock = blocks;
+            accountRows = 0;
+            accountCredits = 0;
+            accountDebits = 0;
+            accountFirstMicros = row.epochMicros;
+        }
+        if (blockRowCount == 0) {
+            index = ensure(index, INDEX_ENTRY_SIZE);
+            index.putLong(row.accountId).putLong(row.epochMicros).putLong(row.id);
+        }
+        block.putLong(row.accountId).putLong(row.id).putLong(row.epochMicros).put(row.type)
+             .putLong(row.amount).put((byte) (row.hasBalanceAfter ? 1 : 0)).putLong(row.balanceAfter);
+        blockRowCount++;
+        accountRows++;
+        if (row.isCredit()) {
+            accountCredits += row.amount;
+        } else {
+            accountDebits += row.amount;
+        }
+        if (rows == 0) {
+            firstMicros = row.epochMicros;
+        }
+        rows++;
+        last = row;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    long firstMicros() {
+        return firstMicros;
+    }
+
+    /** @return the latest date of the rows, which need not be the last row's. */
+    long lastMicros() {
+        return maxMicros;
+    }
+
+    /**
+     * Writes the index, directory and footer and forces the file to the device.
+     * @return the file size.
+     */
+    long finish() throws IOException {
+        if (blockRowCount > 0) {
+            writeBlock();
+        }
+        if (last != null) {
+            endAccount();
+        }
+        long indexOffset = position;
+        index.flip();
+        accounts.flip();
+        crc.reset();
+        crc.update(index.duplicate());
+        crc.update(accounts.duplicate());
+        int checksum = (int) crc.getValue();
+        write(index);
+        long accountsOffset = position;
+        write(accounts);
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE)
+            .putLong(indexOffset).putInt(blocks)
+            .putLong(accountsOffset).putInt(accountCount)
+            .putLong(rows).putInt(checksum).putInt(MAGIC)
+            .flip();
+        write(footer);
+        channel.force(true);
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        channel.close();
+    }
+
+    private void endAccount() {
+        accounts = ensure(accounts, ACCOUNT_ENTRY_SIZE);
+        accounts.putLong(last.accountId).putInt(accountFirstBlock).putInt(accountRows)
+                .putLong(accountCredits).putLong(accountDebits)
+                .putLong(accountFirstMicros).putLong(last.epochMicros);
+        maxMicros = Math.max(maxMicros, last.epochMicros);
+        accountCount++;
+    }
+
+    private void writeBlock() throws IOException {
+        int rawLength = block.position();
+        byte[] raw = block.array();
+        crc.reset();
+        crc.update(raw, 0, rawLength);
+        deflater.reset();
+        deflater.setInput(raw, 0, rawLength);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        index.putLong(position).putInt(length).putInt(rawLength).putInt(blockRowCount).putInt((int) crc.getValue());
+        write(ByteBuffer.wrap(compressed, 0, length));
+        blocks++;
+        block.clear();
+        blockRowCount = 0;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        return larger.put(buffer);
+    }
+}
@@ -0,0 +1,46 @@
+package com.bank.checkpoint;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operator commands for the balance checkpoints: {@code update} runs the job now,
+ * {@code rebuild} rewrites every checkpoint from the ledger and {@code verify} compares
+ * them with it. Not exposed over HTTP by default; once exposed, only operators can reach it
+ * (see SecurityConfig).
+ */
+@Component
+@Endpoint(id = "balancecheckpoints")
+public class BalanceCheckpointEndpoint {
+
+    private final BalanceCheckpointService checkpointService;
+
+    public BalanceCheckpointEndpoint(BalanceCheckpointService checkpointService) {
+        this.checkpointService = checkpointService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("completedThrough", checkpointService.completedThrough().toString());
+        status.put("lastSettledDay", checkpointService.lastSettledDay().toString());
+        return status;
+    }
+
+    @WriteOperation
+    public Object run(String command) {
+        return switch (command) {
+            case "update" -> Map.of("completedThrough", checkpointService.update().toString());
+            case "rebuild" -> Map.of("completedThrough", checkpointService.rebuild().toString());
+            case "verify" -> checkpointService.verify();
+            default -> throw new InvalidEndpointRequestException("Unknown command: " + command,
+                "Unknown command; use update, rebuild or verify.");
+        };
+    }
+}
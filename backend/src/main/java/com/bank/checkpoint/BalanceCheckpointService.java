@@ -0,0 +1,390 @@
+package com.bank.checkpoint;
+
+import com.bank.archive.LedgerArchive;
+import com.bank.dto.PeriodSummary;
+import com.bank.metrics.BankMetrics;
+import com.bank.model.BalanceCheckpoint;
+import com.bank.model.BalanceCheckpoint.Period;
+import com.bank.model.BalanceCheckpointCursor;
+import com.bank.model.Money;
+import com.bank.repository.AccountRepository;
+import com.bank.repository.BalanceCheckpointCursorRepository;
+import com.bank.repository.BalanceCheckpointRepository;
+import com.bank.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Daily and monthly balance checkpoints per account, and the point-in-time balance and
+ * period queries that read them.
+ *
+ * <p>The job writes one day at a time, oldest first, each in its own transaction together
+ * with the cursor that records it, so an interrupted run resumes where it stopped and
+ * instances sharing a database take turns on the locked cursor row. A day is written once
+ * it ended at least {@code bank.checkpoints.settle-delay} ago, which leaves time for its
+ * last transactions to commit (or, in engine mode, to be flushed). A row that is dated
+ * into an already written day is not picked up until a rebuild; {@link #verify()} reports
+ * the accounts it affects.
+ *
+ * <p>Checkpoints are sparse: an account has a row only for days and months in which it had
+ * a transaction. The balance at a time T is the closing balance of the account's latest
+ * daily checkpoint before T's day plus its transactions from the following day up to T,
+ * which, while the job keeps up, is at most the current and the previous day's rows.
+ */
+@Service
+public class BalanceCheckpointService {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceCheckpointService.class);
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1900, 1, 1, 0, 0);
+    // Oracle accepts at most 1000 values in an IN list.
+    private static final int IN_LIST_CHUNK = 500;
+    private static final long VERIFY_WINDOW = 10_000;
+    private static final int MAX_REPORTED = 100;
+
+    private final BalanceCheckpointRepository checkpointRepo;
+    private final BalanceCheckpointCursorRepository cursorRepo;
+    private final TransactionRepository txRepo;
+    private final AccountRepository accountRepo;
+    private final LedgerArchive archive;
+    private final TransactionTemplate transactionTemplate;
+    private final BankMetrics metrics;
+    private final Duration settleDelay;
+
+    public BalanceCheckpointService(BalanceCheckpointRepository checkpointRepo,
+                                    BalanceCheckpointCursorRepository cursorRepo,
+                                    TransactionRepository txRepo,
+                                    AccountRepository accountRepo,
+                                    LedgerArchive archive,
+                                    TransactionTemplate transactionTemplate,
+                                    BankMetrics metrics,
+                                    @Value("${bank.checkpoints.settle-delay:10m}") Duration settleDelay) {
+        this.checkpointRepo = checkpointRepo;
+        this.cursorRepo = cursorRepo;
+        this.txRepo = txRepo;
+        this.accountRepo = accountRepo;
+        this.archive = archive;
+        this.transactionTemplate = transactionTemplate;
+        this.metrics = metrics;
+        this.settleDelay = settleDelay;
+    }
+
+    @Scheduled(cron = "${bank.checkpoints.cron:0 */15 * * * *}")
+    public void scheduledUpdate() {
+        try {
+            update();
+        } catch (RuntimeException e) {
+            log.warn("Balance checkpoint run failed; the next run resumes from the cursor", e);
+        }
+    }
+
+    /**
+     * Writes checkpoints for every settled day after the cursor.
+     * @return the last day now covered by checkpoints.
+     */
+    public LocalDate update() {
+        LocalDate settled = lastSettledDay();
+        LocalDate start = completedThrough();
+        long started = System.nanoTime();
+        LocalDate through = start;
+        LocalDate written;
+        while ((written = transactionTemplate.execute(status -> writeNextDay(settled))) != null) {
+            through = written;
+        }
+        if (!through.equals(start)) {
+            log.info("Balance checkpoints written through {} in {} ms", through, (System.nanoTime() - started) / 1_000_000);
+        }
+        return through;
+    }
+
+    /**
+     * Deletes every checkpoint and writes them again from the oldest transaction. Queries
+     * stay correct meanwhile but read more transactions until the job catches up.
+     * @return the last day now covered by checkpoints.
+     */
+    public LocalDate rebuild() {
+        transactionTemplate.executeWithoutResult(status -> {
+            BalanceCheckpointCursor cursor = lockCursor();
+            checkpointRepo.deleteAllInBatch();
+            cursor.setCompletedThrough(initialCursorDay());
+        });
+        log.info("Balance checkpoints deleted for a rebuild");
+        return update();
+    }
+
+    /** The last day covered by checkpoints. */
+    public LocalDate completedThrough() {
+        return cursorRepo.findById(BalanceCheckpointCursor.ID)
+            .map(BalanceCheckpointCursor::getCompletedThrough)
+            .orElse(LocalDate.MIN);
+    }
+
+    /** The last day that has ended at least settle-delay ago. */
+    public LocalDate lastSettledDay() {
+        return LocalDateTime.now().minus(settleDelay).toLocalDate().minusDays(1);
+    }
+
+    /**
+     * @return the balance including every transaction dated before {@code at}.
+     */
+    public Money getBalanceAt(Long accountId, LocalDateTime at) {
+        return metrics.record("balanceAt", () -> balanceAt(accountId, at));
+    }
+
+    /**
+     * Opening and closing balance and the money moved over the days {@code from} to
+     * {@code to}, inclusive. Whole months are read from monthly checkpoints, the remaining
+     * checkpointed days from daily ones, and only days after the cursor from the ledger.
+     */
+    public PeriodSummary getPeriodSummary(Long accountId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The period ends before it starts.");
+        }
+        return metrics.record("periodSummary", () -> {
+            Money opening = balanceAt(accountId, from.atStartOfDay());
+            Totals totals = new Totals();
+            LocalDate covered = min(to, completedThrough());
+            if (!covered.isBefore(from)) {
+                LocalDate firstFullMonth = from.getDayOfMonth() == 1 ? from : from.plusMonths(1).withDayOfMonth(1);
+                // The first day of the month after the last whole month in the range.
+                LocalDate endOfFullMonths = covered.plusDays(1).withDayOfMonth(1);
+                if (firstFullMonth.isBefore(endOfFullMonths)) {
+                    totals.addCheckpoints(checkpointRepo.findInRange(accountId, Period.MONTH, firstFullMonth,
+                        endOfFullMonths.minusMonths(1)));
+                    totals.addCheckpoints(checkpointRepo.findInRange(accountId, Period.DAY, from, firstFullMonth.minusDays(1)));
+                    totals.addCheckpoints(checkpointRepo.findInRange(accountId, Period.DAY, endOfFullMonths, covered));
+                } else {
+                    totals.addCheckpoints(checkpointRepo.findInRange(accountId, Period.DAY, from, covered));
+                }
+            }
+            if (covered.isBefore(to)) {
+                LocalDate uncovered = covered.isBefore(from) ? from : covered.plusDays(1);
+                totals.addSums(sumByAccount(uncovered.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                    accountId, accountId));
+            }
+            return new PeriodSummary(accountId, from, to, opening, totals.credits, totals.debits,
+                opening.plus(totals.credits).minus(totals.debits), totals.count);
+        });
+    }
+
+    /**
+     * Compares each account's latest daily and monthly checkpoints with the signed sum of
+     * its ledger rows through the cursor day.
+     * Reads the whole ledger, in account id windows.
+     */
+    public CheckpointVerification verify() {
+        LocalDate through = completedThrough();
+        if (through.equals(LocalDate.MIN)) {
+            return new CheckpointVerification(null, 0, 0, List.of());
+        }
+        LocalDate end = through.plusDays(1);
+        Long maxId = accountRepo.findMaxId();
+        long checked = 0;
+        long mismatches = 0;
+        List<Long> mismatched = new ArrayList<>();
+        for (long first = 0; maxId != null && first <= maxId; first += VERIFY_WINDOW) {
+            long last = first + VERIFY_WINDOW - 1;
+            Map<Long, Money> ledger = new HashMap<>();
+            for (Object[] sum : sumByAccount(EARLIEST, end.atStartOfDay(), first, last)) {
+                ledger.put((Long) sum[0], money(sum[1]).minus(money(sum[2])));
+            }
+            Map<Long, Money> daily = closingBalances(checkpointRepo.findLatestBefore(first, last, Period.DAY, end));
+            Map<Long, Money> monthly = closingBalances(checkpointRepo.findLatestBefore(first, last, Period.MONTH, end));
+
+            Set<Long> accountIds = new HashSet<>(ledger.keySet());
+            accountIds.addAll(daily.keySet());
+            accountIds.addAll(monthly.keySet());
+            for (Long accountId : accountIds) {
+                checked++;
+                Money expected = ledger.getOrDefault(accountId, Money.ZERO);
+                if (!expected.equals(daily.getOrDefault(accountId, Money.ZERO))
+                        || !expected.equals(monthly.getOrDefault(accountId, Money.ZERO))) {
+                    mismatches++;
+                    if (mismatched.size() < MAX_REPORTED) {
+                        mismatched.add(accountId);
+                    }
+                }
+            }
+        }
+        if (mismatches > 0) {
+            log.warn("{} of {} accounts do not match their balance checkpoints, e.g. {}", mismatches, checked, mismatched);
+        }
+        return new CheckpointVerification(through, checked, mismatches, mismatched);
+    }
+
+    // Within the caller's transaction: writes the day after the cursor if it has settled.
+    private LocalDate writeNextDay(LocalDate settled) {
+        BalanceCheckpointCursor cursor = lockCursor();
+        LocalDate day = cursor.getCompletedThrough().plusDays(1);
+        if (day.isAfter(settled)) {
+            return null;
+        }
+        if (writeDay(day) == 0) {
+            // A quiet day: move straight to the day before the next transaction.
+            LocalDateTime next = findFirstTransactionDateFrom(day.plusDays(1).atStartOfDay());
+            LocalDate quietThrough = next != null ? min(settled, next.toLocalDate().minusDays(1)) : settled;
+            if (quietThrough.isAfter(day)) {
+                day = quietThrough;
+            }
+        }
+        cursor.setCompletedThrough(day);
+        return day;
+    }
+
+    /** @return the number of accounts with transactions that day. */
+    private int writeDay(LocalDate day) {
+        List<Object[]> sums = sumByAccount(day.atStartOfDay(), day.plusDays(1).atStartOfDay(),
+            Long.MIN_VALUE, Long.MAX_VALUE);
+        LocalDate month = day.withDayOfMonth(1);
+        List<BalanceCheckpoint> created = new ArrayList<>();
+        for (int i = 0; i < sums.size(); i += IN_LIST_CHUNK) {
+            List<Object[]> chunk = sums.subList(i, Math.min(i + IN_LIST_CHUNK, sums.size()));
+            List<Long> accountIds = chunk.stream().map(sum -> (Long) sum[0]).toList();
+            Map<Long, Money> openings = closingBalances(checkpointRepo.findLatestBefore(accountIds, Period.DAY, day));
+            Map<Long, BalanceCheckpoint> months = new HashMap<>();
+            for (BalanceCheckpoint monthly : checkpointRepo.findByPeriodAndPeriodStartAndAccountIdIn(Period.MONTH, month, accountIds)) {
+                months.put(monthly.getAccountId(), monthly);
+            }
+
+            for (Object[] sum : chunk) {
+                Long accountId = (Long) sum[0];
+                Money credits = money(sum[1]);
+                Money debits = money(sum[2]);
+                long count = (Long) sum[3];
+
+                BalanceCheckpoint daily = newCheckpoint(accountId, Period.DAY, day,
+                    openings.getOrDefault(accountId, Money.ZERO));
+                add(daily, credits, debits, count);
+                created.add(daily);
+
+                // An existing monthly row is managed and is updated at commit.
+                BalanceCheckpoint monthly = months.get(accountId);
+                if (monthly == null) {
+                    monthly = newCheckpoint(accountId, Period.MONTH, month, daily.getOpeningBalance());
+                    created.add(monthly);
+                }
+                add(monthly, credits, debits, count);
+            }
+        }
+        checkpointRepo.saveAll(created);
+        return sums.size();
+    }
+
+    private BalanceCheckpointCursor lockCursor() {
+        return cursorRepo.findForUpdate(BalanceCheckpointCursor.ID).orElseGet(() -> {
+            BalanceCheckpointCursor cursor = new BalanceCheckpointCursor();
+            cursor.setId(BalanceCheckpointCursor.ID);
+            cursor.setCompletedThrough(initialCursorDay());
+            return cursorRepo.save(cursor);
+        });
+    }
+
+    // The day before the oldest transaction, or the last settled day if there are none.
+    private LocalDate initialCursorDay() {
+        LocalDateTime first = findFirstTransactionDateFrom(EARLIEST);
+        return first != null ? first.toLocalDate().minusDays(1) : lastSettledDay();
+    }
+
+    private Money balanceAt(Long accountId, LocalDateTime at) {
+        Money balance = Money.ZERO;
+        LocalDateTime from = EARLIEST;
+        List<BalanceCheckpoint> latest = checkpointRepo.findLatestBefore(accountId, Period.DAY, at.toLocalDate(),
+            PageRequest.of(0, 1));
+        if (!latest.isEmpty()) {
+            balance = latest.get(0).getClosingBalance();
+            from = latest.get(0).getPeriodStart().plusDays(1).atStartOfDay();
+        }
+        for (Object[] sum : sumByAccount(from, at, accountId, accountId)) {
+            balance = balance.plus(money(sum[1])).minus(money(sum[2]));
+        }
+        return balance;
+    }
+
+    // Ledger rows of both the transactions table and the archive.
+    private List<Object[]> sumByAccount(LocalDateTime from, LocalDateTime to, Long firstAccountId, Long lastAccountId) {
+        return archive.read(firstAccountId, lastAccountId, from, to, archived -> archived.addSumsByAccount(
+            txRepo.sumByAccount(from, to, firstAccountId, lastAccountId), from, to, firstAccountId, lastAccountId));
+    }
+
+    private LocalDateTime findFirstTransactionDateFrom(LocalDateTime from) {
+        return archive.read(from, archived -> {
+            LocalDateTime table = txRepo.findFirstTransactionDateFrom(from);
+            LocalDateTime archivedFirst = archived.findFirstTransactionDateFrom(from);
+            return table == null || (archivedFirst != null && archivedFirst.isBefore(table)) ? archivedFirst : table;
+        });
+    }
+
+    private static BalanceCheckpoint newCheckpoint(Long accountId, Period period, LocalDate start, Money opening) {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setAccountId(accountId);
+        checkpoint.setPeriod(period);
+        checkpoint.setPeriodStart(start);
+        checkpoint.setOpeningBalance(opening);
+        checkpoint.setCredits(Money.ZERO);
+        checkpoint.setDebits(Money.ZERO);
+        checkpoint.setClosingBalance(opening);
+        return checkpoint;
+    }
+
+    private static void add(BalanceCheckpoint checkpoint, Money credits, Money debits, long count) {
+        checkpoint.setCredits(checkpoint.getCredits().plus(credits));
+        checkpoint.setDebits(checkpoint.getDebits().plus(debits));
+        checkpoint.setClosingBalance(checkpoint.getClosingBalance().plus(credits).minus(debits));
+        checkpoint.setTransactionCount(checkpoint.getTransactionCount() + count);
+    }
+
+    private static Map<Long, Money> closingBalances(List<BalanceCheckpoint> checkpoints) {
+        Map<Long, Money> balances = new HashMap<>();
+        for (BalanceCheckpoint checkpoint : checkpoints) {
+            balances.put(checkpoint.getAccountId(), checkpoint.getClosingBalance());
+        }
+        return balances;
+    }
+
+    // Aggregates come back as plain decimals, not through the Money converter.
+    private static Money money(Object sum) {
+        return Money.of((BigDecimal) sum);
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static final class Totals {
+        Money credits = Money.ZERO;
+        Money debits = Money.ZERO;
+        long count;
+
+        void addCheckpoints(List<BalanceCheckpoint> checkpoints) {
+            for (BalanceCheckpoint checkpoint : checkpoints) {
+                credits = credits.plus(checkpoint.getCredits());
+                debits = debits.plus(checkpoint.getDebits());
+                count += checkpoint.getTransactionCount();
+            }
+        }
+
+        void addSums(List<Object[]> sums) {
+            for (Object[] sum : sums) {
+                credits = credits.plus(money(sum[1]));
+                debits = debits.plus(money(sum[2]));
+                count += (Long) sum[3];
+            }
+        }
+    }
+}
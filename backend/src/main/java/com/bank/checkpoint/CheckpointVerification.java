@@ -0,0 +1,18 @@
+package com.bank.checkpoint;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Result of comparing the balance checkpoints with the ledger; {@code mismatchedAccountIds}
+ * lists at most the first 100 of {@code mismatches} accounts.
+ */
+public record CheckpointVerification(LocalDate completedThrough,
+                                     long accountsChecked,
+                                     long mismatches,
+                                     List<Long> mismatchedAccountIds) {
+
+    public boolean isConsistent() {
+        return mismatches == 0;
+    }
+}
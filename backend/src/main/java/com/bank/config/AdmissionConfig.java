@@ -0,0 +1,58 @@
+package com.bank.config;
+
+import com.bank.admission.AdmissionInterceptor;
+import com.bank.admission.AdmissionRejectedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final AdmissionInterceptor admissionInterceptor;
+    private final ObjectMapper objectMapper;
+
+    public AdmissionConfig(AdmissionInterceptor admissionInterceptor, ObjectMapper objectMapper) {
+        this.admissionInterceptor = admissionInterceptor;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor);
+    }
+
+    /** Answers a rejected request with 429 and Retry-After, ahead of the controllers' own handlers. */
+    @Override
+    public void extendHandlerExceptionResolvers(List<HandlerExceptionResolver> resolvers) {
+        resolvers.add(0, (request, response, handler, ex) -> {
+            if (!(ex instanceof AdmissionRejectedException rejected)) {
+                return null;
+            }
+            try {
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(rejected.getRetryAfterSeconds()));
+                if (request.getRequestURI().startsWith(request.getContextPath() + "/api/")) {
+                    // The /error page is not reachable from the stateless API chain.
+                    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    objectMapper.writeValue(response.getOutputStream(), Map.of("error", rejected.getMessage()));
+                } else {
+                    response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+                }
+            } catch (IOException ignored) {
+                // The client is gone.
+            }
+            return new ModelAndView();
+        });
+    }
+}
@@ -0,0 +1,192 @@
+package com.bank.config;
+
+import com.bank.datasource.BulkheadDataSource;
+import com.bank.datasource.DatabaseBusyException;
+import com.bank.datasource.ReadYourWrites;
+import com.bank.datasource.ReplicaRoutingDataSource;
+import com.bank.metrics.ConnectionTimingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DataSourceConfig implements WebMvcConfigurer {
+
+    /**
+     * Puts the connection bulkhead directly in front of the pool, inside the connection
+     * timing wrapper so that time spent waiting for a permit counts as connection wait.
+     * The declared type must be {@link Ordered} for the ordering to apply.
+     */
+    @Bean
+    public static BulkheadPostProcessor bulkheadPostProcessor(Environment environment,
+                                                              ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BulkheadPostProcessor(environment, meterRegistry);
+    }
+
+    /**
+     * Routes read-only service transactions to the replicas in bank.db.replica.urls, if any.
+     * Runs after the bulkhead so the primary keeps its own. Connections are fetched when the
+     * lazy proxy first uses them, so the connection timing wrapper goes inside the proxy.
+     */
+    @Bean
+    public static ReplicaRoutingPostProcessor replicaRoutingPostProcessor(Environment environment,
+                                                                          ObjectProvider<ReadYourWrites> readYourWrites,
+                                                                          ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ReplicaRoutingPostProcessor(environment, readYourWrites, meterRegistry);
+    }
+
+    @Bean
+    public static ReadYourWrites readYourWrites(Environment environment) {
+        return new ReadYourWrites(!replicaUrls(environment).isEmpty(),
+            environment.getProperty("bank.db.replica.read-your-writes", Duration.class, Duration.ofSeconds(5)));
+    }
+
+    private static List<String> replicaUrls(Environment environment) {
+        return List.of(StringUtils.commaDelimitedListToStringArray(
+                StringUtils.trimAllWhitespace(environment.getProperty("bank.db.replica.urls", ""))));
+    }
+
+    /** Wraps the pool in a bulkhead if bank.db.bulkhead.enabled, sized to the pool unless set. */
+    private static DataSource withBulkhead(HikariDataSource pool, Environment environment, MeterRegistry registry) {
+        if (!environment.getProperty("bank.db.bulkhead.enabled", Boolean.class, true)) {
+            return pool;
+        }
+        int permits = environment.getProperty("bank.db.bulkhead.permits", Integer.class, 0);
+        Duration maxWait = environment.getProperty("bank.db.bulkhead.max-wait", Duration.class,
+            Duration.ofMillis(500));
+        String name = pool.getPoolName() != null ? pool.getPoolName() : "primary";
+        return new BulkheadDataSource(pool, name, permits > 0 ? permits : pool.getMaximumPoolSize(),
+            maxWait, registry);
+    }
+
+    @Override
+    public void extendHandlerExceptionResolvers(List<HandlerExceptionResolver> resolvers) {
+        resolvers.add(0, (request, response, handler, ex) -> {
+            if (!DatabaseBusyException.isCauseOf(ex)) {
+                return null;
+            }
+            try {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                if (request.getRequestURI().startsWith(request.getContextPath() + "/api/")) {
+                    // The /error page is not reachable from the stateless API chain.
+                    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    response.getWriter().write("{\"error\":\"The database is busy; try again shortly.\"}");
+                } else {
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                }
+            } catch (IOException ignored) {
+                // The client is gone.
+            }
+            return new ModelAndView();
+        });
+    }
+
+    public static class BulkheadPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        BulkheadPostProcessor(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+            this.environment = environment;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource pool) {
+                return withBulkhead(pool, environment, meterRegistry.getObject());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+
+    public static class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+        private final ObjectProvider<ReadYourWrites> readYourWrites;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        ReplicaRoutingPostProcessor(Environment environment, ObjectProvider<ReadYourWrites> readYourWrites,
+                                    ObjectProvider<MeterRegistry> meterRegistry) {
+            this.environment = environment;
+            this.readYourWrites = readYourWrites;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            List<String> urls = replicaUrls(environment);
+            if (urls.isEmpty() || !(bean instanceof HikariDataSource || bean instanceof BulkheadDataSource)) {
+                return bean;
+            }
+            DataSource primary = (DataSource) bean;
+            MeterRegistry registry = meterRegistry.getObject();
+            int poolSize = environment.getProperty("bank.db.replica.pool-size", Integer.class, 0);
+            Duration connectionTimeout = environment.getProperty("bank.db.replica.connection-timeout",
+                Duration.class, Duration.ofSeconds(1));
+            List<DataSource> replicas = new ArrayList<>(urls.size());
+            for (int i = 0; i < urls.size(); i++) {
+                HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .username(environment.getProperty("bank.db.replica.username",
+                        environment.getProperty("spring.datasource.username")))
+                    .password(environment.getProperty("bank.db.replica.password",
+                        environment.getProperty("spring.datasource.password")))
+                    .build();
+                pool.setPoolName("replica-" + i);
+                pool.setMaximumPoolSize(poolSize > 0 ? poolSize : primaryPoolSize(primary));
+                pool.setReadOnly(true);
+                // A replica that is down must not stop the application starting; reads fall
+                // back to the next target after connection-timeout instead.
+                pool.setInitializationFailTimeout(-1);
+                pool.setConnectionTimeout(connectionTimeout.toMillis());
+                pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+                replicas.add(withBulkhead(pool, environment, registry));
+            }
+            return new LazyConnectionDataSourceProxy(new ConnectionTimingDataSource(
+                new ReplicaRoutingDataSource(primary, replicas, readYourWrites.getObject(), registry)));
+        }
+
+        private static int primaryPoolSize(DataSource primary) {
+            try {
+                return primary.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            } catch (SQLException e) {
+                throw new IllegalStateException("The primary datasource is not a Hikari pool.", e);
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.bank.config;
+
+import com.bank.ledger.LedgerEngine;
+import com.bank.outbox.OutboxRelay;
+import com.bank.schema.SchemaMigrations;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    /**
+     * Beans still created at startup with spring.main.lazy-initialization=true: the schema
+     * is migrated, the ledger journal replayed and the outbox relay started before the
+     * first request, not during it. Beans with @Scheduled methods are kept eager by Spring Boot.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SchemaMigrations.class, LedgerEngine.class, OutboxRelay.class);
+    }
+}
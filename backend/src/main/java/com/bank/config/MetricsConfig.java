@@ -0,0 +1,45 @@
+package com.bank.config;
+
+import com.bank.metrics.ConnectionTimingDataSource;
+import com.bank.metrics.RequestMetricsInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final RequestMetricsInterceptor requestMetricsInterceptor;
+
+    public MetricsConfig(RequestMetricsInterceptor requestMetricsInterceptor) {
+        this.requestMetricsInterceptor = requestMetricsInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetricsInterceptor);
+    }
+
+    /**
+     * Wraps the pool so connection wait time is attributed to the calling thread. With
+     * replicas the lazy routing proxy already carries the wrapper around its target.
+     */
+    @Bean
+    public static BeanPostProcessor connectionTimingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionTimingDataSource)
+                        && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                    return new ConnectionTimingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
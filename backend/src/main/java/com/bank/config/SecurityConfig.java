@@ -1,37 +1,134 @@
 package com.bank.config;
 
+import com.bank.datasource.DatabaseBusyException;
+import com.bank.security.BoundedPasswordEncoder;
+import com.bank.security.LegacyPlaintextPasswordEncoder;
+import com.bank.security.PasswordHashingBusyException;
+import com.bank.service.AccountOwnershipService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+
+import java.time.Duration;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // Sets the status directly: sendError would forward to /error, which the form-login chain
+    // answers with a redirect to the login page.
+    private static final AuthenticationEntryPoint API_ENTRY_POINT = (request, response, authException) -> {
+        if (isBusy(authException)) {
+            // The credentials could not be checked, which is not the client's fault.
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"bank\"");
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+    };
+
+    // A login whose credentials could not be checked is asked to try again rather than told they are wrong.
+    private static final AuthenticationFailureHandler INVALID_LOGIN = new SimpleUrlAuthenticationFailureHandler("/login?error");
+    private static final AuthenticationFailureHandler BUSY_LOGIN = new SimpleUrlAuthenticationFailureHandler("/login?busy");
+    private static final AuthenticationFailureHandler LOGIN_FAILURE_HANDLER = (request, response, exception) ->
+        (isBusy(exception) ? BUSY_LOGIN : INVALID_LOGIN).onAuthenticationFailure(request, response, exception);
+
+    private static boolean isBusy(AuthenticationException exception) {
+        return exception instanceof PasswordHashingBusyException || DatabaseBusyException.isCauseOf(exception);
+    }
+
     /**
-     * Defines a bean for the password encoder.
-     * WARNING: Using NoOpPasswordEncoder is insecure as it stores passwords in plain text.
-     * This is for demonstration or development purposes ONLY.
-     * @return PasswordEncoder instance that does no encoding.
+     * Passwords are stored as bcrypt hashes of cost bank.security.bcrypt-strength, prefixed
+     * {@code {bcrypt}}. Rows from before hashing hold the plain password without a prefix;
+     * they still match (see {@link LegacyPlaintextPasswordEncoder}), and like hashes of a lower cost they are re-encoded on the user's
+     * next successful login (see CustomUserDetailsService#updatePassword). Hashing runs on
+     * the bounded pool of {@link BoundedPasswordEncoder}, not on the request thread.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // This returns a PasswordEncoder that does nothing. Passwords will be stored as plain text.
-        return NoOpPasswordEncoder.getInstance();
+    public BoundedPasswordEncoder passwordEncoder(Environment environment, MeterRegistry meterRegistry) {
+        int strength = environment.getProperty("bank.security.bcrypt-strength", Integer.class, 10);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of(
+            "bcrypt", new BCryptPasswordEncoder(strength)));
+        encoder.setDefaultPasswordEncoderForMatches(new LegacyPlaintextPasswordEncoder());
+        int threads = environment.getProperty("bank.security.hashing.threads", Integer.class, 0);
+        return new BoundedPasswordEncoder(encoder,
+            threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            environment.getProperty("bank.security.hashing.queue-capacity", Integer.class, 64),
+            environment.getProperty("bank.security.hashing.max-wait", Duration.class, Duration.ofSeconds(5)),
+            environment.getProperty("bank.security.verified-cache.ttl", Duration.class, Duration.ofMinutes(5)),
+            environment.getProperty("bank.security.verified-cache.max-size", Integer.class, 10000),
+            meterRegistry);
+    }
+
+    /**
+     * Security for the actuator: HTTP Basic and no session, like the API, and only for
+     * users listed in bank.security.operators. Customers get 403.
+     * @param http HttpSecurity to configure.
+     * @return The configured SecurityFilterChain for the actuator endpoints.
+     * @throws Exception
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher(EndpointRequest.toAnyEndpoint())
+            .csrf(csrf -> csrf.disable())
+            .authorizeHttpRequests(authz -> authz.anyRequest().hasRole("OPERATOR"))
+            .httpBasic(basic -> basic.authenticationEntryPoint(API_ENTRY_POINT))
+            .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(API_ENTRY_POINT))
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        return http.build();
+    }
+
+    /**
+     * Security for the JSON API: HTTP Basic on every request and no session.
+     * @param http HttpSecurity to configure.
+     * @return The configured SecurityFilterChain for /api/**.
+     * @throws Exception
+     */
+    @Bean
+    @Order(2)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/api/**")
+            .csrf(csrf -> csrf.disable())
+            .authorizeHttpRequests(authz -> authz.anyRequest().authenticated())
+            .httpBasic(basic -> basic.authenticationEntryPoint(API_ENTRY_POINT))
+            .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(API_ENTRY_POINT))
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        return http.build();
     }
 
     /**
      * Configures the security filter chain for the application.
      * @param http HttpSecurity to configure.
+     * @param ownershipService cache whose entry for the user is dropped on logout.
      * @return The configured SecurityFilterChain.
      * @throws Exception
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    @Order(3)
+    public SecurityFilterChain filterChain(HttpSecurity http, AccountOwnershipService ownershipService) throws Exception {
         http
             .csrf(csrf -> csrf.disable()) // Disable CSRF for simplicity
             .authorizeHttpRequests(authz -> authz
@@ -44,10 +141,16 @@ public class SecurityConfig {
                 .loginPage("/login") // Custom login page URL
                 .usernameParameter("email") // THIS LINE IS ADDED
                 .defaultSuccessUrl("/dashboard", true) // Redirect here after successful login
+                .failureHandler(LOGIN_FAILURE_HANDLER)
                 .permitAll()
             )
             .logout(logout -> logout
                 .logoutUrl("/logout") // URL to trigger logout
+                .addLogoutHandler((request, response, authentication) -> {
+                    if (authentication != null) {
+                        ownershipService.invalidate(authentication.getName());
+                    }
+                })
                 .logoutSuccessUrl("/login?logout") // Redirect here after logout
                 .permitAll()
             );
@@ -0,0 +1,356 @@
+package com.bank.controller;
+
+import com.bank.admission.Admission;
+import com.bank.admission.AdmissionControl;
+import com.bank.checkpoint.BalanceCheckpointService;
+import com.bank.dto.AccountSummary;
+import com.bank.dto.AmountRequest;
+import com.bank.dto.BalanceView;
+import com.bank.dto.BatchStatusView;
+import com.bank.dto.PeriodSummary;
+import com.bank.dto.PointInTimeBalance;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionPageView;
+import com.bank.dto.TransferRequest;
+import com.bank.ledger.LedgerUnavailableException;
+import com.bank.model.Money;
+import com.bank.service.AccountNotFoundException;
+import com.bank.service.AccountOwnershipService;
+import com.bank.service.AccountVersionService;
+import com.bank.service.BankService;
+import com.bank.service.InsufficientFundsException;
+import com.bank.service.PaymentBatch;
+import com.bank.service.PaymentBatchService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON API over {@link BankService}, authenticated with HTTP Basic and without a session.
+ *
+ * <p>Reads carry a strong ETag built from the account's version (its highest transaction id
+ * and transaction count), which is usually known in memory, so a poll with a matching {@code If-None-Match} is answered 304 before
+ * any query runs or any JSON is written. Reads reflect the database; in engine mode that
+ * can trail a just-acknowledged mutation by up to one flush interval.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class ApiController {
+
+    // Clients may keep responses but must revalidate them on every use.
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    @Autowired
+    private BankService bankService;
+
+    @Autowired
+    private AccountOwnershipService ownershipService;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Autowired
+    private AccountVersionService versionService;
+
+    @Autowired
+    private PaymentBatchService batchService;
+
+    @Autowired
+    private BalanceCheckpointService checkpointService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Value("${bank.batch.results-timeout:1h}")
+    private Duration batchResultsTimeout;
+
+    @GetMapping("/accounts")
+    public ResponseEntity<List<AccountSummary>> accounts(Principal principal, WebRequest request) {
+        AccountOwnershipService.Ownership ownership = ownershipService.getOwnership(principal.getName());
+        List<Long> accountIds = ownership != null ? new ArrayList<>(ownership.getAccountIds()) : new ArrayList<>();
+        Collections.sort(accountIds);
+
+        // The list changes when an account is opened or any account gets a transaction.
+        long hash = 17;
+        for (Long id : accountIds) {
+            hash = hash * 0x9E3779B97F4A7C15L + id;
+            AccountVersionService.Version version = versionService.getVersion(id);
+            hash = hash * 0x9E3779B97F4A7C15L + version.latestTransactionId();
+            hash = hash * 0x9E3779B97F4A7C15L + version.transactionCount();
+        }
+        String etag = "\"accounts-" + accountIds.size() + "-" + Long.toHexString(hash) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(bankService.getAccountSummaries(accountIds));
+    }
+
+    @GetMapping("/accounts/{id}")
+    public ResponseEntity<AccountSummary> account(@PathVariable("id") Long accountId, Principal principal,
+                                                  WebRequest request) {
+        requireOwner(principal, accountId);
+        if (request.checkNotModified(versionService.etag(accountId))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(loadSummary(accountId));
+    }
+
+    @GetMapping("/accounts/{id}/balance")
+    public ResponseEntity<BalanceView> balance(@PathVariable("id") Long accountId, Principal principal,
+                                               WebRequest request) {
+        requireOwner(principal, accountId);
+        if (request.checkNotModified(versionService.etag(accountId))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE)
+            .body(new BalanceView(accountId, loadSummary(accountId).balance()));
+    }
+
+    /** The balance as of {@code at}: every transaction dated before it is included. */
+    @GetMapping(value = "/accounts/{id}/balance", params = "at")
+    public PointInTimeBalance balanceAt(@PathVariable("id") Long accountId,
+                                        @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+                                        Principal principal) {
+        requireOwner(principal, accountId);
+        return new PointInTimeBalance(accountId, at, checkpointService.getBalanceAt(accountId, at));
+    }
+
+    /** Opening and closing balance and the money moved in and out over the days from..to, inclusive. */
+    @GetMapping("/accounts/{id}/summary")
+    public PeriodSummary summary(@PathVariable("id") Long accountId,
+                                 @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                 @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                 Principal principal) {
+        requireOwner(principal, accountId);
+        return checkpointService.getPeriodSummary(accountId, from, to);
+    }
+
+    @GetMapping("/accounts/{id}/transactions")
+    public ResponseEntity<TransactionPageView> transactions(
+            @PathVariable("id") Long accountId,
+            @RequestParam(value = "before", required = false) String before,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "size", defaultValue = "25") int size,
+            Principal principal, WebRequest request) {
+        requireOwner(principal, accountId);
+        TransactionCursor beforeCursor = TransactionCursor.parse(before);
+        TransactionCursor afterCursor = TransactionCursor.parse(after);
+        if (request.checkNotModified(versionService.etag(accountId))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(TransactionPageView.of(
+            bankService.getTransactionPage(accountId, from, to, type, beforeCursor, afterCursor, size)));
+    }
+
+    @PostMapping("/accounts/{id}/deposit")
+    @Admission(value = "deposit", account = "id")
+    public BalanceView deposit(@PathVariable("id") Long accountId, @RequestBody AmountRequest body,
+                               Principal principal) {
+        requireOwner(principal, accountId);
+        return new BalanceView(accountId, bankService.deposit(accountId, requireAmount(body.amount())));
+    }
+
+    @PostMapping("/accounts/{id}/withdraw")
+    @Admission(value = "withdraw", account = "id")
+    public BalanceView withdraw(@PathVariable("id") Long accountId, @RequestBody AmountRequest body,
+                                Principal principal) {
+        requireOwner(principal, accountId);
+        return new BalanceView(accountId, bankService.withdraw(accountId, requireAmount(body.amount())));
+    }
+
+    /** @return the new balance of the source account. */
+    @PostMapping("/transfers")
+    @Admission("transfer")
+    public BalanceView transfer(@RequestBody TransferRequest body, Principal principal) {
+        if (body.fromAccountId() == null || body.toAccountId() == null) {
+            throw new IllegalArgumentException("fromAccountId and toAccountId are required.");
+        }
+        requireOwner(principal, body.fromAccountId());
+        admissionControl.admitAccount("transfer", principal.getName(), body.fromAccountId());
+        Money balance = bankService.transfer(body.fromAccountId(), body.toAccountId(), requireAmount(body.amount()));
+        return new BalanceView(body.fromAccountId(), balance);
+    }
+
+    /**
+     * Queues a payment batch given as a JSON array of transfers.
+     * @return 202 with the batch status and its URI in {@code Location}.
+     */
+    @PostMapping(value = "/batches", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Admission("batch")
+    public ResponseEntity<BatchStatusView> submitBatch(@RequestBody List<TransferRequest> body, Principal principal) {
+        return accepted(submit(principal, body));
+    }
+
+    /** Queues a payment batch given as a CSV body of {@code fromAccountId,toAccountId,amount} lines. */
+    @PostMapping(value = "/batches", consumes = "text/csv")
+    @Admission("batch")
+    public ResponseEntity<BatchStatusView> submitBatchCsv(HttpServletRequest request, Principal principal) throws IOException {
+        return accepted(submit(principal, batchService.parseCsv(
+            new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))));
+    }
+
+    /** Queues a payment batch uploaded as a {@code .json} or CSV file in the {@code file} part. */
+    @PostMapping(value = "/batches", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Admission("batch")
+    public ResponseEntity<BatchStatusView> submitBatchFile(@RequestParam("file") MultipartFile file,
+                                                           Principal principal) throws IOException {
+        List<TransferRequest> transfers;
+        try (InputStream in = file.getInputStream()) {
+            String name = file.getOriginalFilename();
+            if (name != null && name.toLowerCase().endsWith(".json")) {
+                try {
+                    transfers = objectMapper.readValue(in, new TypeReference<List<TransferRequest>>() { });
+                } catch (JsonMappingException e) {
+                    throw new IllegalArgumentException(e.getOriginalMessage());
+                }
+            } else {
+                transfers = batchService.parseCsv(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        }
+        return accepted(submit(principal, transfers));
+    }
+
+    @GetMapping("/batches/{id}")
+    public BatchStatusView batch(@PathVariable("id") String id, Principal principal) {
+        return requireBatch(principal, id).status();
+    }
+
+    /**
+     * Streams the per-line results as NDJSON. While the batch runs, each chunk's results
+     * are written as soon as the chunk commits and the response ends with the last line.
+     * The response is asynchronous: no request thread waits for the batch.
+     */
+    @GetMapping("/batches/{id}/results")
+    public ResponseEntity<ResponseBodyEmitter> batchResults(@PathVariable("id") String id, Principal principal) {
+        PaymentBatch batch = requireBatch(principal, id);
+        BatchResultsStream stream = new BatchResultsStream(batch, objectMapper, taskExecutor, batchResultsTimeout.toMillis());
+        return ResponseEntity.ok().contentType(BatchResultsStream.NDJSON).body(stream.start());
+    }
+
+    // Errors are answered here rather than through the /error page, which a stateless
+    // request could not reach authenticated.
+
+    @ExceptionHandler(AccountNotFoundException.class)
+    public ResponseEntity<Map<String, String>> notFound(AccountNotFoundException e) {
+        return error(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(InsufficientFundsException.class)
+    public ResponseEntity<Map<String, String>> insufficientFunds(InsufficientFundsException e) {
+        return error(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(LedgerUnavailableException.class)
+    public ResponseEntity<Map<String, String>> ledgerUnavailable(LedgerUnavailableException e) {
+        return error(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+
+    @ExceptionHandler({ IllegalArgumentException.class, HttpMessageNotReadableException.class,
+                        MethodArgumentTypeMismatchException.class })
+    public ResponseEntity<Map<String, String>> badRequest(Exception e) {
+        String message = e.getMessage();
+        if (e instanceof HttpMessageNotReadableException) {
+            // Mapping errors (e.g. an invalid amount) carry a message meant for the client; parse errors do not.
+            message = e.getCause() instanceof JsonMappingException mapping ? mapping.getOriginalMessage()
+                                                                           : "Malformed request body.";
+        }
+        return error(HttpStatus.BAD_REQUEST, message);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, String>> status(ResponseStatusException e) {
+        return error(HttpStatus.valueOf(e.getStatusCode().value()), e.getReason());
+    }
+
+    private void requireOwner(Principal principal, Long accountId) {
+        if (!ownershipService.isOwner(principal.getName(), accountId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied");
+        }
+    }
+
+    private PaymentBatch submit(Principal principal, List<TransferRequest> transfers) {
+        try {
+            return batchService.submit(principal.getName(), transfers);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<BatchStatusView> accepted(PaymentBatch batch) {
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/v1/batches/" + batch.getId()))
+            .body(batch.status());
+    }
+
+    private PaymentBatch requireBatch(Principal principal, String id) {
+        PaymentBatch batch = batchService.getBatch(principal.getName(), id);
+        if (batch == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Batch not found: " + id);
+        }
+        return batch;
+    }
+
+    private AccountSummary loadSummary(Long accountId) {
+        List<AccountSummary> summaries = bankService.getAccountSummaries(List.of(accountId));
+        if (summaries.isEmpty()) {
+            throw new AccountNotFoundException("Account not found with id: " + accountId);
+        }
+        return summaries.get(0);
+    }
+
+    private static Money requireAmount(Money amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount is required.");
+        }
+        return amount;
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("error", message != null ? message : status.getReasonPhrase()));
+    }
+}
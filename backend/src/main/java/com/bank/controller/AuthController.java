@@ -1,6 +1,7 @@
 package com.bank.controller;
 
 import com.bank.model.User;
+import com.bank.security.PasswordHashingBusyException;
 import com.bank.service.BankService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -32,7 +33,12 @@ public class AuthController {
             model.addAttribute("error", "Passwords do not match!");
             return "register";
         }
-        bankService.registerUser(user);
+        try {
+            bankService.registerUser(user);
+        } catch (PasswordHashingBusyException e) {
+            model.addAttribute("error", "We could not register you right now. Please try again in a moment.");
+            return "register";
+        }
         return "redirect:/login";
     }
 
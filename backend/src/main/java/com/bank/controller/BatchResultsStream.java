@@ -0,0 +1,93 @@
+package com.bank.controller;
+
+import com.bank.dto.BatchLineResult;
+import com.bank.service.PaymentBatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Follows a payment batch and writes its per-line results to an asynchronous response as
+ * NDJSON, so no request thread waits while the batch runs. The batch's listener only
+ * schedules a drain on {@code executor}, one at a time, so a slow client never holds up the
+ * batch worker; the response ends after the last line.
+ */
+final class BatchResultsStream implements Runnable {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+
+    private final PaymentBatch batch;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor executor;
+    private final ResponseBodyEmitter emitter;
+    private final Runnable listener = this::schedule;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed;
+    // Only touched by the drain, which runs one at a time.
+    private int written;
+
+    BatchResultsStream(PaymentBatch batch, ObjectMapper objectMapper, TaskExecutor executor, long timeoutMillis) {
+        this.batch = batch;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.emitter = new ResponseBodyEmitter(timeoutMillis);
+    }
+
+    ResponseBodyEmitter start() {
+        emitter.onCompletion(this::close);
+        emitter.onTimeout(this::close);
+        emitter.onError(e -> close());
+        batch.addListener(listener);
+        schedule();
+        return emitter;
+    }
+
+    private void schedule() {
+        if (!closed && scheduled.compareAndSet(false, true)) {
+            executor.execute(this);
+        }
+    }
+
+    private void close() {
+        closed = true;
+        batch.removeListener(listener);
+    }
+
+    @Override
+    public void run() {
+        try {
+            // Read before the results, so that a finished batch has none left afterwards.
+            boolean finished = batch.isFinished();
+            List<BatchLineResult> results = batch.resultsFrom(written);
+            if (!results.isEmpty()) {
+                ByteArrayOutputStream lines = new ByteArrayOutputStream();
+                for (BatchLineResult result : results) {
+                    lines.write(objectMapper.writeValueAsBytes(result));
+                    lines.write('\n');
+                }
+                emitter.send(lines.toByteArray(), NDJSON);
+                written += results.size();
+            }
+            if (finished) {
+                close();
+                emitter.complete();
+                return;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the response already completed.
+            close();
+            return;
+        }
+        scheduled.set(false);
+        // A chunk that arrived while this drain ran found it scheduled.
+        if (batch.hasNews(written)) {
+            schedule();
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package com.bank.controller;
 
+import com.bank.admission.Admission;
+import com.bank.dto.DashboardView;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionPage;
+import com.bank.feed.LedgerEventBus;
 import com.bank.model.Account;
-import com.bank.model.TransactionEntity;
+import com.bank.model.Money;
 import com.bank.model.User;
+import com.bank.service.AccountOwnershipService;
 import com.bank.service.BankService;
+import com.bank.service.StatementExporter;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.security.Principal;
-import java.util.List;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
 
 @Controller
 public class WebController {
@@ -23,15 +37,45 @@ public class WebController {
     @Autowired
     private BankService bankService;
 
+    @Autowired
+    private StatementExporter statementExporter;
+
+    @Autowired
+    private AccountOwnershipService ownershipService;
+
+    @Autowired
+    private LedgerEventBus eventBus;
+
     @GetMapping("/dashboard")
     public String dashboard(Model model, Principal principal) {
-        User user = bankService.getUserByEmail(principal.getName());
-        model.addAttribute("user", user);
-        model.addAttribute("accounts", user.getAccounts());
+        DashboardView dashboard = bankService.getDashboard(principal.getName());
+        if (dashboard == null) {
+            // The session outlived its user, e.g. one removed since signing in.
+            return "redirect:/login";
+        }
+        model.addAttribute("userName", dashboard.userName());
+        model.addAttribute("accounts", dashboard.accounts());
         return "dashboard";
     }
 
+    /**
+     * Live feed of the user's committed transactions for the dashboard and history pages.
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feed(Principal principal) {
+        AccountOwnershipService.Ownership ownership = ownershipService.getOwnership(principal.getName());
+        if (ownership == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied");
+        }
+        try {
+            return eventBus.subscribe(ownership.getAccountIds());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
     @PostMapping("/account/create")
+    @Admission("open-account")
     public String createAccount(Principal principal) {
         User user = bankService.getUserByEmail(principal.getName());
         bankService.createAccount(user);
@@ -45,14 +89,13 @@ public class WebController {
     }
 
     @PostMapping("/deposit")
+    @Admission(value = "deposit", account = "accountId")
     public String processDeposit(@RequestParam("accountId") Long accountId,
-                                 @RequestParam("amount") BigDecimal amount,
+                                 @RequestParam("amount") Money amount,
                                  Principal principal,
                                  Model model) {
         try {
-            User user = bankService.getUserByEmail(principal.getName());
-            boolean isOwner = user.getAccounts().stream().anyMatch(acc -> acc.getId().equals(accountId));
-            if (!isOwner) {
+            if (!ownershipService.isOwner(principal.getName(), accountId)) {
                 throw new IllegalAccessException("Access Denied.");
             }
             bankService.deposit(accountId, amount);
@@ -71,14 +114,13 @@ public class WebController {
     }
 
     @PostMapping("/withdraw")
+    @Admission(value = "withdraw", account = "accountId")
     public String processWithdraw(@RequestParam("accountId") Long accountId,
-                                  @RequestParam("amount") BigDecimal amount,
+                                  @RequestParam("amount") Money amount,
                                   Principal principal,
                                   Model model) {
         try {
-            User user = bankService.getUserByEmail(principal.getName());
-            boolean isOwner = user.getAccounts().stream().anyMatch(acc -> acc.getId().equals(accountId));
-            if (!isOwner) {
+            if (!ownershipService.isOwner(principal.getName(), accountId)) {
                 throw new IllegalAccessException("Access Denied.");
             }
             bankService.withdraw(accountId, amount);
@@ -92,35 +134,84 @@ public class WebController {
     
     @GetMapping("/account")
     public String accountDetails(@RequestParam("id") Long accountId, Model model, Principal principal) {
-        User user = bankService.getUserByEmail(principal.getName());
-        Account account = user.getAccounts().stream()
-                .filter(acc -> acc.getId().equals(accountId))
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found or access denied"));
+        if (!ownershipService.isOwner(principal.getName(), accountId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found or access denied");
+        }
+        Account account = bankService.getAccount(accountId);
 
         model.addAttribute("account", account);
         return "account";
     }
 
     @GetMapping("/transactions")
-    public String transactions(@RequestParam("accountId") Long accountId, Model model, Principal principal) {
-        User user = bankService.getUserByEmail(principal.getName());
-        boolean isOwner = user.getAccounts().stream().anyMatch(acc -> acc.getId().equals(accountId));
-        if (!isOwner) {
+    public String transactions(@RequestParam("accountId") Long accountId,
+                               @RequestParam(value = "before", required = false) String before,
+                               @RequestParam(value = "after", required = false) String after,
+                               @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                               @RequestParam(value = "type", required = false) String type,
+                               @RequestParam(value = "size", defaultValue = "25") int size,
+                               Model model, Principal principal) {
+        if (!ownershipService.isOwner(principal.getName(), accountId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied");
         }
 
-        List<TransactionEntity> transactions = bankService.getTransactions(accountId);
-        model.addAttribute("transactions", transactions);
+        TransactionPage page;
+        try {
+            page = bankService.getTransactionPage(accountId, from, to, type,
+                    TransactionCursor.parse(before), TransactionCursor.parse(after), size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        model.addAttribute("transactions", page.getTransactions());
+        model.addAttribute("nextCursor", page.hasNext() ? page.getNextCursor().encode() : null);
+        model.addAttribute("previousCursor", page.hasPrevious() ? page.getPreviousCursor().encode() : null);
         model.addAttribute("accountId", accountId);
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
+        model.addAttribute("type", type);
+        model.addAttribute("size", size);
+        // New rows can be added in place only when the newest unfiltered rows are shown.
+        model.addAttribute("liveRows", !page.hasPrevious() && from == null && to == null
+                && (type == null || type.isBlank()));
         return "transactions";
     }
     
+    @GetMapping("/statement")
+    public void exportStatement(@RequestParam("accountId") Long accountId,
+                                @RequestParam(value = "format", defaultValue = "csv") String format,
+                                @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                                Principal principal,
+                                HttpServletResponse response) throws IOException {
+        if (!ownershipService.isOwner(principal.getName(), accountId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied");
+        }
+
+        StatementExporter.Format statementFormat;
+        try {
+            statementFormat = StatementExporter.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        // No Content-Length is set, so the container sends the body chunked as the buffer fills.
+        String filename = "statement-" + accountId + "." + statementFormat.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : statementFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+            statementExporter.export(accountId, statementFormat, gzipOut);
+            gzipOut.finish();
+        } else {
+            statementExporter.export(accountId, statementFormat, out);
+        }
+        out.flush();
+    }
+
     @GetMapping("/transfer")
     public String showTransferForm(@RequestParam("fromAccountId") Long fromAccountId, Model model, Principal principal) {
-        User user = bankService.getUserByEmail(principal.getName());
-        boolean isOwner = user.getAccounts().stream().anyMatch(acc -> acc.getId().equals(fromAccountId));
-        if (!isOwner) {
+        if (!ownershipService.isOwner(principal.getName(), fromAccountId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied");
         }
         model.addAttribute("fromAccountId", fromAccountId);
@@ -128,15 +219,14 @@ public class WebController {
     }
 
     @PostMapping("/transfer")
+    @Admission(value = "transfer", account = "fromAccountId")
     public String processTransfer(@RequestParam("fromAccountId") Long fromAccountId,
                                   @RequestParam("toAccountId") Long toAccountId,
-                                  @RequestParam("amount") BigDecimal amount,
+                                  @RequestParam("amount") Money amount,
                                   Principal principal,
                                   Model model) {
         try {
-            User user = bankService.getUserByEmail(principal.getName());
-            boolean isOwner = user.getAccounts().stream().anyMatch(acc -> acc.getId().equals(fromAccountId));
-            if (!isOwner) {
+            if (!ownershipService.isOwner(principal.getName(), fromAccountId)) {
                 throw new IllegalAccessException("You do not have permission to transfer from this account.");
             }
 
@@ -0,0 +1,22 @@
+package com.bank.datasource;
+
+/**
+ * Thrown when no database connection could be had within the bulkhead's wait budget.
+ * Answered with 503 so clients back off instead of queueing behind the pool.
+ */
+public class DatabaseBusyException extends RuntimeException {
+
+    public DatabaseBusyException(String message) {
+        super(message);
+    }
+
+    /** Transaction managers, Spring Data and Spring Security wrap it, so look through the causes. */
+    public static boolean isCauseOf(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof DatabaseBusyException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.bank.datasource;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which users changed data recently, so that their reads go to the primary
+ * until the replicas have had {@code window} to catch up. A user is identified by the
+ * principal's name (the email), or by the subject set with {@link #as} on threads that
+ * have no authenticated principal, such as the login itself.
+ */
+public class ReadYourWrites {
+
+    // Expired entries are swept once the map grows past this many users, at most once per window.
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private static final ThreadLocal<String> SUBJECT = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    /** @param enabled false when there are no replicas; nothing is then recorded. */
+    public ReadYourWrites(boolean enabled, Duration window) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+    }
+
+    /** Records a write by the current user. */
+    public void recordWrite() {
+        recordWrite(currentSubject());
+    }
+
+    public void recordWrite(String subject) {
+        if (!enabled || subject == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        lastWrite.put(subject, now);
+        if (lastWrite.size() > SWEEP_THRESHOLD) {
+            long swept = lastSweep.get();
+            if (now - swept >= windowNanos && lastSweep.compareAndSet(swept, now)) {
+                lastWrite.values().removeIf(written -> now - written >= windowNanos);
+            }
+        }
+    }
+
+    /** @return true if the current user wrote within the window. */
+    public boolean recentlyWrote() {
+        String subject = currentSubject();
+        if (subject == null) {
+            return false;
+        }
+        Long written = lastWrite.get(subject);
+        return written != null && System.nanoTime() - written < windowNanos;
+    }
+
+    /** Runs {@code work} on behalf of {@code subject}, for threads with no principal yet. */
+    public <T> T as(String subject, Supplier<T> work) {
+        String previous = SUBJECT.get();
+        SUBJECT.set(subject);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                SUBJECT.remove();
+            } else {
+                SUBJECT.set(previous);
+            }
+        }
+    }
+
+    private static String currentSubject() {
+        String subject = SUBJECT.get();
+        if (subject != null) {
+            return subject;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,107 @@
+package com.bank.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the connections of read-only transactions declared on our own services to the
+ * replicas, round robin, and everything else to the primary (the delegate). A replica is
+ * skipped when the current user wrote recently (see {@link ReadYourWrites}) and when it
+ * cannot hand out a connection.
+ * <p>
+ * Spring Data's default read-only transactions (findById, query methods called outside a
+ * service transaction) stay on the primary: the ledger engine, the ownership cache and the
+ * account versions read through them and must not see a lagging copy.
+ * <p>
+ * The route is decided when the connection is fetched, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}; otherwise
+ * the transaction manager takes the connection before the transaction is marked read-only.
+ */
+public class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String SPRING_DATA_PREFIX = "org.springframework.data.";
+
+    private final List<DataSource> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter primaryConnections;
+    private final Counter readYourWritesConnections;
+    private final Counter fallbackConnections;
+    private final List<Counter> replicaConnections = new ArrayList<>();
+    private final List<Counter> replicaFailures = new ArrayList<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                    ReadYourWrites readYourWrites, MeterRegistry registry) {
+        super(primary);
+        this.replicas = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+        this.primaryConnections = routed(registry, "primary", "default");
+        this.readYourWritesConnections = routed(registry, "primary", "read-your-writes");
+        this.fallbackConnections = routed(registry, "primary", "replicas-unavailable");
+        for (int i = 0; i < replicas.size(); i++) {
+            replicaConnections.add(routed(registry, "replica-" + i, "read"));
+            replicaFailures.add(Counter.builder("bank.db.route.failures")
+                .description("Replica connections that failed and were taken from another target")
+                .tag("target", "replica-" + i)
+                .register(registry));
+        }
+    }
+
+    private static Counter routed(MeterRegistry registry, String target, String reason) {
+        return Counter.builder("bank.db.route")
+            .description("Connections handed out, by target")
+            .tag("target", target)
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!replicaEligible()) {
+            primaryConnections.increment();
+            return super.getConnection();
+        }
+        if (readYourWrites.recentlyWrote()) {
+            readYourWritesConnections.increment();
+            return super.getConnection();
+        }
+        int first = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (first + i) % replicas.size();
+            try {
+                Connection connection = replicas.get(index).getConnection();
+                replicaConnections.get(index).increment();
+                return connection;
+            } catch (SQLException e) {
+                replicaFailures.get(index).increment();
+                log.warn("Replica {} unavailable, trying the next target: {}", index, e.getMessage());
+            }
+        }
+        fallbackConnections.increment();
+        return super.getConnection();
+    }
+
+    // getConnection(username, password) is inherited and always uses the primary.
+
+    private static boolean replicaEligible() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null && !name.startsWith(SPRING_DATA_PREFIX);
+    }
+}
@@ -0,0 +1,17 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account as returned by the JSON API.
+ */
+public record AccountSummary(Long id, Money balance, LocalDateTime creationDate) {
+
+    /** For the summary query, which adds a hot account's stripes to its balance column. */
+    public AccountSummary(Long id, Money balance, BigDecimal stripedBalance, LocalDateTime creationDate) {
+        this(id, balance.plus(Money.of(stripedBalance)), creationDate);
+    }
+}
@@ -0,0 +1,9 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+
+/**
+ * Body of a deposit or withdrawal: {@code {"amount": 12.50}}.
+ */
+public record AmountRequest(Money amount) {
+}
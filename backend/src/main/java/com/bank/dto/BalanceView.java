@@ -0,0 +1,9 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+
+/**
+ * The balance of one account, as returned by the JSON API.
+ */
+public record BalanceView(Long accountId, Money balance) {
+}
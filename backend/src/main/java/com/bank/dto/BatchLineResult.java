@@ -0,0 +1,23 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one transfer of a payment batch. {@code line} is the 1-based position of the
+ * transfer in the submission; a rejected line carries a cause (see {@code BankMetrics})
+ * and a message instead of the new balance of the source account.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchLineResult(int line,
+                              String status,
+                              Long fromAccountId,
+                              Long toAccountId,
+                              Money amount,
+                              Money balanceAfter,
+                              String cause,
+                              String message) {
+
+    public static final String COMPLETED = "COMPLETED";
+    public static final String REJECTED = "REJECTED";
+}
@@ -0,0 +1,16 @@
+package com.bank.dto;
+
+import java.time.Instant;
+
+/**
+ * Progress of a payment batch, as returned by the JSON API.
+ */
+public record BatchStatusView(String id,
+                              String state,
+                              int lines,
+                              int processed,
+                              int completed,
+                              int rejected,
+                              Instant submittedAt,
+                              Instant finishedAt) {
+}
@@ -0,0 +1,16 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * An account card on the dashboard, with its recent activity summary.
+ */
+public record DashboardAccount(Long id,
+                               Money balance,
+                               LocalDateTime creationDate,
+                               LocalDateTime lastTransactionDate,
+                               Money moneyIn30Days,
+                               Money moneyOut30Days) {
+}
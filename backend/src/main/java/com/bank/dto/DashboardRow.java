@@ -0,0 +1,21 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the dashboard query: the user's name plus one of their accounts,
+ * or a null accountId if the user has none. The stripe sum and the 30-day sums are
+ * aggregates, which Hibernate returns as plain decimals rather than through the Money converter.
+ */
+public record DashboardRow(String userName,
+                           Long accountId,
+                           Money balance,
+                           BigDecimal stripedBalance,
+                           LocalDateTime creationDate,
+                           LocalDateTime lastTransactionDate,
+                           BigDecimal moneyIn30Days,
+                           BigDecimal moneyOut30Days) {
+}
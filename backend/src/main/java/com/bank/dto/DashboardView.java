@@ -0,0 +1,9 @@
+package com.bank.dto;
+
+import java.util.List;
+
+/**
+ * Everything the dashboard renders, detached from the persistence context.
+ */
+public record DashboardView(String userName, List<DashboardAccount> accounts) {
+}
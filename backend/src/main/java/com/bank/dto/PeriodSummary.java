@@ -0,0 +1,18 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+
+import java.time.LocalDate;
+
+/**
+ * Balances and movements of one account over the days {@code from} to {@code to}, inclusive.
+ */
+public record PeriodSummary(Long accountId,
+                            LocalDate from,
+                            LocalDate to,
+                            Money openingBalance,
+                            Money credits,
+                            Money debits,
+                            Money closingBalance,
+                            long transactionCount) {
+}
@@ -0,0 +1,11 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * The balance of one account including every transaction dated before {@code at}.
+ */
+public record PointInTimeBalance(Long accountId, LocalDateTime at, Money balance) {
+}
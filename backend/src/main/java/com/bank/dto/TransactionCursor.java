@@ -0,0 +1,51 @@
+package com.bank.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset position in an account's history: the (transactionDate, id) of a row.
+ * Encoded as {@code <iso-date-time>_<id>} so it can travel in a query string.
+ */
+public class TransactionCursor {
+
+    private final LocalDateTime transactionDate;
+    private final Long id;
+
+    public TransactionCursor(LocalDateTime transactionDate, Long id) {
+        this.transactionDate = transactionDate;
+        this.id = id;
+    }
+
+    public static TransactionCursor of(TransactionView tx) {
+        return new TransactionCursor(tx.getTransactionDate(), tx.getId());
+    }
+
+    /**
+     * Parses a cursor produced by {@link #encode()}.
+     * @return the cursor, or null if the value is blank.
+     * @throws IllegalArgumentException if the value is malformed.
+     */
+    public static TransactionCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        int sep = value.lastIndexOf('_');
+        if (sep <= 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        try {
+            return new TransactionCursor(LocalDateTime.parse(value.substring(0, sep)),
+                                         Long.valueOf(value.substring(sep + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+    }
+
+    public String encode() {
+        return transactionDate + "_" + id;
+    }
+
+    public LocalDateTime getTransactionDate() { return transactionDate; }
+    public Long getId() { return id; }
+}
@@ -0,0 +1,28 @@
+package com.bank.dto;
+
+import java.util.List;
+
+/**
+ * A fixed-size window of an account's history, newest first, with the cursors
+ * needed to move to the older ("next") or newer ("previous") window.
+ */
+public class TransactionPage {
+
+    private final List<TransactionView> transactions;
+    private final TransactionCursor nextCursor;
+    private final TransactionCursor previousCursor;
+
+    public TransactionPage(List<TransactionView> transactions,
+                           TransactionCursor nextCursor,
+                           TransactionCursor previousCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+    }
+
+    public List<TransactionView> getTransactions() { return transactions; }
+    public TransactionCursor getNextCursor() { return nextCursor; }
+    public TransactionCursor getPreviousCursor() { return previousCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+    public boolean hasPrevious() { return previousCursor != null; }
+}
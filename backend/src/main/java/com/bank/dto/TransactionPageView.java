@@ -0,0 +1,15 @@
+package com.bank.dto;
+
+import java.util.List;
+
+/**
+ * One window of history as returned by the JSON API; the cursors are null at either end.
+ */
+public record TransactionPageView(List<TransactionView> transactions, String nextCursor, String previousCursor) {
+
+    public static TransactionPageView of(TransactionPage page) {
+        return new TransactionPageView(page.getTransactions(),
+            page.hasNext() ? page.getNextCursor().encode() : null,
+            page.hasPrevious() ? page.getPreviousCursor().encode() : null);
+    }
+}
@@ -0,0 +1,33 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a ledger row, used by the history page so rows are
+ * never loaded as managed entities.
+ */
+public class TransactionView {
+
+    private final Long id;
+    private final String type;
+    private final Money amount;
+    private final LocalDateTime transactionDate;
+    private final Money balanceAfterTransaction;
+
+    public TransactionView(Long id, String type, Money amount,
+                           LocalDateTime transactionDate, Money balanceAfterTransaction) {
+        this.id = id;
+        this.type = type;
+        this.amount = amount;
+        this.transactionDate = transactionDate;
+        this.balanceAfterTransaction = balanceAfterTransaction;
+    }
+
+    public Long getId() { return id; }
+    public String getType() { return type; }
+    public Money getAmount() { return amount; }
+    public LocalDateTime getTransactionDate() { return transactionDate; }
+    public Money getBalanceAfterTransaction() { return balanceAfterTransaction; }
+}
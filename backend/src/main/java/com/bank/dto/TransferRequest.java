@@ -0,0 +1,9 @@
+package com.bank.dto;
+
+import com.bank.model.Money;
+
+/**
+ * Body of a transfer: {@code {"fromAccountId": 1, "toAccountId": 2, "amount": 12.50}}.
+ */
+public record TransferRequest(Long fromAccountId, Long toAccountId, Money amount) {
+}
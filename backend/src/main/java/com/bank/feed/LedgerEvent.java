@@ -0,0 +1,23 @@
+package com.bank.feed;
+
+import com.bank.model.Money;
+import com.bank.model.TransactionEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed ledger row as pushed to live feed subscribers. It carries the balance after
+ * the transaction, so one event updates both the history and the balance of the account.
+ */
+public record LedgerEvent(Long accountId,
+                          Long transactionId,
+                          String type,
+                          Money amount,
+                          LocalDateTime transactionDate,
+                          Money balanceAfterTransaction) {
+
+    public static LedgerEvent of(TransactionEntity tx) {
+        return new LedgerEvent(tx.getAccount().getId(), tx.getId(), tx.getType(), tx.getAmount(),
+            tx.getTransactionDate(), tx.getBalanceAfterTransaction());
+    }
+}
@@ -0,0 +1,323 @@
+package com.bank.feed;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of committed ledger events to server-sent event streams.
+ *
+ * <p>Each subscriber is registered under the accounts it may see and has a bounded buffer.
+ * Publishing only offers the event to those buffers, so a writer never waits on a client;
+ * a subscriber whose buffer is full is dropped and its stream closed, and the browser
+ * reconnects and reloads. Buffers are drained by a small dispatcher pool, one drain per
+ * subscriber at a time. Streams are asynchronous requests, so an idle subscriber holds a
+ * connection but no thread. The dispatchers stay platform threads even in virtual-thread
+ * mode: {@code SseEmitter.send} writes to the socket while holding a monitor, which would
+ * pin a virtual thread's carrier for as long as a slow client takes to read.
+ *
+ * <p>A client that stops reading fills its TCP window, and the dispatcher sending to it
+ * blocks until the container's write timeout. A watchdog drops a subscriber whose send has
+ * taken longer than {@code bank.feed.send-timeout} and adds a dispatcher thread in place of
+ * the blocked one, up to {@code bank.feed.max-stalled-sends}, so other subscribers keep
+ * receiving events. The extra thread goes away when the blocked send returns. The watchdog
+ * never calls the emitter itself, since the blocked send holds its monitor.
+ *
+ * <p>Heartbeat comments keep proxies from closing idle streams and detect clients that
+ * have gone away.
+ */
+@Component
+public class LedgerEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEventBus.class);
+
+    private static final Object HEARTBEAT = new Object();
+
+    private static final int IDLE = 0;
+    private static final int SENDING = 1;
+    private static final int STALLED = 2;
+
+    private final class Subscriber implements Runnable {
+        final Collection<Long> accountIds;
+        final SseEmitter emitter;
+        final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean removed = new AtomicBoolean();
+        final AtomicInteger sendState = new AtomicInteger(IDLE);
+        volatile long sendStartedNanos;
+        volatile boolean closed;
+        // Guarded by dispatcher: whether a thread was added for this subscriber's stalled send.
+        boolean replaced;
+
+        Subscriber(Collection<Long> accountIds, SseEmitter emitter) {
+            this.accountIds = accountIds;
+            this.emitter = emitter;
+        }
+
+        void offer(Object item) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(item)) {
+                dropped.increment();
+                close();
+            }
+            schedule();
+        }
+
+        /** Stops delivery; the stream itself is completed by the next drain. */
+        void close() {
+            closed = true;
+            unregister(this);
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Object item;
+                while (!closed && (item = buffer.poll()) != null) {
+                    send(item);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the stream already completed.
+                close();
+            }
+            if (closed) {
+                buffer.clear();
+                try {
+                    emitter.complete();
+                } catch (IllegalStateException ignored) {
+                    // Already completed by the container.
+                }
+                return;
+            }
+            scheduled.set(false);
+            if (!buffer.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void send(Object item) throws IOException {
+            sendStartedNanos = System.nanoTime();
+            sendState.set(SENDING);
+            try {
+                if (item == HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                    return;
+                }
+                LedgerEvent event = (LedgerEvent) item;
+                emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.transactionId()))
+                    .name("transaction")
+                    .data(event, MediaType.APPLICATION_JSON));
+                delivered.increment();
+            } finally {
+                if (!sendState.compareAndSet(SENDING, IDLE)) {
+                    // The watchdog gave up on this send while it was blocked.
+                    releaseStalled(this);
+                }
+            }
+        }
+    }
+
+    private final Map<Long, Set<Subscriber>> subscribersByAccount = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final int dispatchThreads;
+    private final long sendTimeoutNanos;
+    private final int maxStalledSends;
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService heartbeats;
+    private final Counter delivered;
+    private final Counter dropped;
+    private final Counter stalled;
+    // Guarded by dispatcher.
+    private int stalledSends;
+
+    public LedgerEventBus(MeterRegistry meterRegistry,
+                          @Value("${bank.feed.buffer-size:64}") int bufferSize,
+                          @Value("${bank.feed.max-subscribers:5000}") int maxSubscribers,
+                          @Value("${bank.feed.timeout:30m}") Duration timeout,
+                          @Value("${bank.feed.heartbeat:20s}") Duration heartbeat,
+                          @Value("${bank.feed.dispatch-threads:2}") int dispatchThreads,
+                          @Value("${bank.feed.send-timeout:5s}") Duration sendTimeout,
+                          @Value("${bank.feed.max-stalled-sends:32}") int maxStalledSends) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.dispatchThreads = dispatchThreads;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.maxStalledSends = maxStalledSends;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), task -> {
+                Thread thread = new Thread(task, "feed-dispatch-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long checkMillis = Math.max(100, Math.min(1000, sendTimeout.toMillis() / 2));
+        heartbeats.scheduleWithFixedDelay(this::checkSends, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("bank.feed.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        this.delivered = Counter.builder("bank.feed.events.delivered").register(meterRegistry);
+        this.dropped = Counter.builder("bank.feed.subscribers.dropped")
+            .description("Subscribers disconnected because their buffer was full")
+            .register(meterRegistry);
+        this.stalled = Counter.builder("bank.feed.subscribers.stalled")
+            .description("Subscribers disconnected because a send to them took longer than the send timeout")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of the events of the given accounts.
+     *
+     * @throws IllegalStateException if {@code bank.feed.max-subscribers} streams are already open.
+     */
+    public SseEmitter subscribe(Collection<Long> accountIds) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many live feed subscribers.");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(Set.copyOf(accountIds), emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        subscribers.add(subscriber);
+        for (Long accountId : subscriber.accountIds) {
+            subscribersByAccount.compute(accountId, (id, set) -> {
+                Set<Subscriber> targets = set != null ? set : ConcurrentHashMap.newKeySet();
+                targets.add(subscriber);
+                return targets;
+            });
+        }
+        // Commits the response so the browser sees the stream open straight away.
+        subscriber.offer(HEARTBEAT);
+        return emitter;
+    }
+
+    /**
+     * Offers a committed event to the subscribers of its account. Never blocks.
+     */
+    public void publish(LedgerEvent event) {
+        Set<Subscriber> targets = subscribersByAccount.get(event.accountId());
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(event);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+            subscriber.schedule();
+        }
+        dispatcher.shutdown();
+        try {
+            if (!dispatcher.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Live feed dispatcher did not finish closing streams");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(HEARTBEAT);
+        }
+    }
+
+    /** Drops subscribers whose send is blocked and replaces the dispatcher stuck on each. */
+    private void checkSends() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sendState.get() != SENDING || now - subscriber.sendStartedNanos < sendTimeoutNanos) {
+                continue;
+            }
+            synchronized (dispatcher) {
+                if (!subscriber.sendState.compareAndSet(SENDING, STALLED)) {
+                    continue;
+                }
+                if (stalledSends < maxStalledSends) {
+                    stalledSends++;
+                    subscriber.replaced = true;
+                    dispatcher.setMaximumPoolSize(dispatchThreads + stalledSends);
+                    dispatcher.setCorePoolSize(dispatchThreads + stalledSends);
+                }
+            }
+            stalled.increment();
+            log.debug("Dropping live feed subscriber stalled for {} ms", (now - subscriber.sendStartedNanos) / 1_000_000);
+            subscriber.close();
+        }
+    }
+
+    /** Called by the dispatcher thread of a stalled send once the send returns. */
+    private void releaseStalled(Subscriber subscriber) {
+        synchronized (dispatcher) {
+            if (subscriber.replaced) {
+                subscriber.replaced = false;
+                stalledSends--;
+                dispatcher.setCorePoolSize(dispatchThreads + stalledSends);
+                dispatcher.setMaximumPoolSize(dispatchThreads + stalledSends);
+            }
+        }
+    }
+
+    private void unregister(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.remove(subscriber);
+        for (Long accountId : subscriber.accountIds) {
+            subscribersByAccount.computeIfPresent(accountId, (id, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        subscriberCount.decrementAndGet();
+    }
+}
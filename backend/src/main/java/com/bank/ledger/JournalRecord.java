@@ -0,0 +1,38 @@
+package com.bank.ledger;
+
+/**
+ * One journaled ledger command. Amounts are in minor units (cents).
+ */
+final class JournalRecord {
+
+    static final byte DEPOSIT = 1;
+    static final byte WITHDRAW = 2;
+    /** Transfer whose two accounts live in the same shard; applied atomically. */
+    static final byte TRANSFER = 3;
+    /** Debit leg of a cross-shard transfer, written by the source shard. */
+    static final byte TRANSFER_OUT = 4;
+    /** Credit leg of a cross-shard transfer, written by the destination shard. */
+    static final byte TRANSFER_IN = 5;
+
+    final long sequence;
+    final byte type;
+    final long account;
+    final long counterparty;
+    final long amount;
+    /** For TRANSFER_IN: the shard and sequence of the matching TRANSFER_OUT. */
+    final int sourceShard;
+    final long sourceSequence;
+    final long epochMicros;
+
+    JournalRecord(long sequence, byte type, long account, long counterparty, long amount,
+                  int sourceShard, long sourceSequence, long epochMicros) {
+        this.sequence = sequence;
+        this.type = type;
+        this.account = account;
+        this.counterparty = counterparty;
+        this.amount = amount;
+        this.sourceShard = sourceShard;
+        this.sourceSequence = sourceSequence;
+        this.epochMicros = epochMicros;
+    }
+}
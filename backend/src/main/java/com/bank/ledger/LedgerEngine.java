@@ -0,0 +1,260 @@
+package com.bank.ledger;
+
+import com.bank.feed.LedgerEventBus;
+import com.bank.model.LedgerCheckpoint;
+import com.bank.model.Money;
+import com.bank.outbox.OutboxWriter;
+import com.bank.repository.AccountRepository;
+import com.bank.repository.LedgerCheckpointRepository;
+import com.bank.repository.TransactionRepository;
+import com.bank.service.AccountVersionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+/**
+ * In-memory ledger used instead of the JPA mutation path when {@code bank.ledger.mode=engine}.
+ *
+ * <p>Accounts are spread over {@code bank.ledger.shards} single-writer shards by account id.
+ * A command is acknowledged once its journal record is forced to disk; the accounts and
+ * transactions tables are brought up to date asynchronously by the flusher, so database
+ * reads may lag the engine by up to one flush interval. On startup the engine loads the
+ * balances from the database and replays every journal record after the shard's checkpoint.
+ *
+ * <p>A transfer between shards is a debit journaled by the source shard followed by a
+ * credit journaled by the destination shard. If the process dies between the two, recovery
+ * finds the debit without a credit and applies the credit.
+ *
+ * <p>If a shard fails to force its journal, the engine stops accepting commands until it
+ * is restarted and has replayed the journals.
+ *
+ * <p>The shard count must not change while journal files exist.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.ledger.mode", havingValue = "engine")
+public class LedgerEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+
+    private final AccountRepository accountRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerShard[] shards;
+    private final LedgerFlusher flusher;
+    private final Path journalDir;
+    // Checkpoints as loaded at construction; the flusher advances its own copy.
+    private final long[] checkpointSequence;
+    private final long[][] checkpointApplied;
+    private volatile boolean accepting;
+    private volatile boolean failed;
+
+    public LedgerEngine(AccountRepository accountRepo,
+                        TransactionRepository txRepo,
+                        LedgerCheckpointRepository checkpointRepo,
+                        TransactionTemplate transactionTemplate,
+                        JdbcTemplate jdbcTemplate,
+                        AccountVersionService versionService,
+                        LedgerEventBus eventBus,
+                        OutboxWriter outbox,
+                        @Value("${bank.ledger.shards:4}") int shardCount,
+                        @Value("${bank.ledger.journal-dir:./ledger-journal}") Path journalDir,
+                        @Value("${bank.ledger.segment-records:1048576}") int segmentRecords,
+                        @Value("${bank.ledger.queue-capacity:65536}") int queueCapacity,
+                        @Value("${bank.ledger.flush-batch-size:1000}") int flushBatchSize,
+                        @Value("${bank.ledger.flush-interval:200ms}") Duration flushInterval) throws IOException {
+        this.accountRepo = accountRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.journalDir = journalDir;
+
+        if (!accountRepo.findStriped().isEmpty()) {
+            throw new IllegalStateException("Some accounts are striped (see HotAccountBalances); fold them back with "
+                + "the hotaccounts endpoint in the jpa ledger mode before switching to the engine.");
+        }
+        long[] flushedSequence = new long[shardCount];
+        long[][] flushedApplied = new long[shardCount][shardCount];
+        for (LedgerCheckpoint checkpoint : checkpointRepo.findAll()) {
+            if (checkpoint.getShard() >= shardCount) {
+                throw new IllegalStateException("Ledger checkpoint found for shard " + checkpoint.getShard()
+                    + " but bank.ledger.shards=" + shardCount + "; the shard count cannot change once journals exist.");
+            }
+            flushedSequence[checkpoint.getShard()] = checkpoint.getFlushedSequence();
+            flushedApplied[checkpoint.getShard()] = LedgerFlusher.decode(checkpoint.getAppliedSources(), shardCount);
+        }
+
+        this.checkpointSequence = flushedSequence.clone();
+        this.checkpointApplied = new long[shardCount][];
+        for (int i = 0; i < shardCount; i++) {
+            checkpointApplied[i] = flushedApplied[i].clone();
+        }
+
+        this.shards = new LedgerShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new LedgerShard(i, shardCount, this, new LedgerJournal(journalDir, i, segmentRecords), queueCapacity);
+        }
+        this.flusher = new LedgerFlusher(this, transactionTemplate, txRepo, accountRepo, checkpointRepo, jdbcTemplate,
+            versionService, eventBus, outbox, flushedSequence, flushedApplied, flushBatchSize, flushInterval, Math.max(queueCapacity * 4, flushBatchSize));
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = accountRepo.streamAllBalances()) {
+                rows.forEach(row -> {
+                    long id = (Long) row[0];
+                    shardFor(id).loadBalance(id, ((Money) row[1]).getMinorUnits());
+                });
+            }
+        });
+        flusher.start();
+
+        for (LedgerShard shard : shards) {
+            shard.replay(checkpointSequence[shard.index], checkpointApplied[shard.index]);
+        }
+        int recovered = recoverInterruptedTransfers(shards);
+        for (LedgerShard shard : shards) {
+            shard.start();
+        }
+        accepting = true;
+        log.info("Ledger engine started with {} shards from {} in {} ms ({} interrupted transfers completed, {} entries to flush)",
+            shards.length, journalDir, (System.nanoTime() - started) / 1_000_000, recovered, flusher.backlog());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        accepting = false;
+        // Let in-flight transfers finish their credit leg before the shard threads exit.
+        // A failed shard answers nothing more, and unconfirmed credits are left to recovery.
+        for (LedgerShard shard : shards) {
+            while (!failed && !shard.isIdle()) {
+                Thread.sleep(10);
+            }
+        }
+        for (LedgerShard shard : shards) {
+            shard.stop();
+        }
+        flusher.stop();
+    }
+
+    /** @return the new balance. */
+    public Money deposit(Long accountId, Money amount) {
+        return submit(JournalRecord.DEPOSIT, accountId, 0, amount);
+    }
+
+    /** @return the new balance. */
+    public Money withdraw(Long accountId, Money amount) {
+        return submit(JournalRecord.WITHDRAW, accountId, 0, amount);
+    }
+
+    /** @return the new balance of the source account. */
+    public Money transfer(Long fromId, Long toId, Money amount) {
+        return submit(JournalRecord.TRANSFER, fromId, toId, amount);
+    }
+
+    /**
+     * Submits a transfer without waiting for it, so a caller with many transfers can let
+     * the shards journal them together.
+     * @return the new balance of the source account, once the transfer is journaled.
+     */
+    public CompletableFuture<Money> transferAsync(Long fromId, Long toId, Money amount) {
+        try {
+            return submitAsync(JournalRecord.TRANSFER, fromId, toId, amount).thenApply(Money::ofMinor);
+        } catch (LedgerUnavailableException e) {
+            // Earlier transfers of the caller's chunk are already submitted and must still be awaited.
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public Money getBalance(Long accountId) {
+        return submit(LedgerShard.BALANCE, accountId, 0, Money.ZERO);
+    }
+
+    /**
+     * Makes a newly created (zero-balance) account known to the engine.
+     */
+    public void registerAccount(Long accountId) {
+        shardFor(accountId).register(accountId);
+    }
+
+    /** Number of entries journaled but not yet written to the database. */
+    public int getFlushBacklog() {
+        return flusher.backlog();
+    }
+
+    LedgerShard shardFor(long accountId) {
+        return shards[shardIndex(accountId, shards.length)];
+    }
+
+    static int shardIndex(long accountId, int shardCount) {
+        return Math.floorMod(Long.hashCode(accountId), shardCount);
+    }
+
+    /**
+     * Credits every replayed TRANSFER_OUT whose destination shard has no TRANSFER_IN for it.
+     * Runs after all shards have replayed and before any starts.
+     * @return the number of transfers completed.
+     */
+    static int recoverInterruptedTransfers(LedgerShard[] shards) throws IOException {
+        int recovered = 0;
+        for (LedgerShard source : shards) {
+            for (JournalRecord out : source.replayedOuts()) {
+                LedgerShard destination = shards[shardIndex(out.counterparty, shards.length)];
+                if (!destination.hasApplied(source.index, out.sequence)) {
+                    destination.recoverCredit(source.index, out);
+                    recovered++;
+                }
+            }
+        }
+        return recovered;
+    }
+
+    void shardFailed(int shard) {
+        failed = true;
+        accepting = false;
+    }
+
+    void enqueueFlush(LedgerEntry entry) {
+        flusher.enqueue(entry);
+    }
+
+    void onFlushed(int shard, long sequence) {
+        shards[shard].markFlushed(sequence);
+    }
+
+    long nowMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    private CompletableFuture<Long> submitAsync(byte kind, Long account, long counterparty, Money amount) {
+        if (!accepting) {
+            throw new LedgerUnavailableException("Ledger engine is not running.");
+        }
+        return shardFor(account).submit(kind, account, counterparty, amount.getMinorUnits());
+    }
+
+    private Money submit(byte kind, Long account, long counterparty, Money amount) {
+        CompletableFuture<Long> result = submitAsync(kind, account, counterparty, amount);
+        try {
+            return Money.ofMinor(result.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
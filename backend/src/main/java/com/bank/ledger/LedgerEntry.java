@@ -0,0 +1,32 @@
+package com.bank.ledger;
+
+/**
+ * A journaled balance change waiting to be written to the accounts and transactions
+ * tables. Amounts are in minor units (cents).
+ */
+final class LedgerEntry {
+
+    final int shard;
+    final long sequence;
+    final long accountId;
+    final String type;
+    final long amount;
+    final long balanceAfter;
+    final long epochMicros;
+    /** For TRANSFER_IN entries of a cross-shard transfer: the source shard, else -1. */
+    final int sourceShard;
+    final long sourceSequence;
+
+    LedgerEntry(int shard, long sequence, long accountId, String type, long amount, long balanceAfter,
+                long epochMicros, int sourceShard, long sourceSequence) {
+        this.shard = shard;
+        this.sequence = sequence;
+        this.accountId = accountId;
+        this.type = type;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.epochMicros = epochMicros;
+        this.sourceShard = sourceShard;
+        this.sourceSequence = sourceSequence;
+    }
+}
@@ -0,0 +1,224 @@
+package com.bank.ledger;
+
+import com.bank.feed.LedgerEvent;
+import com.bank.feed.LedgerEventBus;
+import com.bank.model.LedgerCheckpoint;
+import com.bank.model.Money;
+import com.bank.model.TransactionEntity;
+import com.bank.outbox.OutboxWriter;
+import com.bank.repository.AccountRepository;
+import com.bank.repository.LedgerCheckpointRepository;
+import com.bank.repository.TransactionRepository;
+import com.bank.service.AccountVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Writes journaled entries to the transactions and accounts tables in batches. Each batch
+ * is one database transaction that also advances the checkpoint of every shard it covers,
+ * so the checkpoint always matches what is in the tables, and adds its rows to the ledger
+ * outbox. Once a batch commits its rows are recorded as account versions and published to
+ * the live feed.
+ */
+final class LedgerFlusher implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerFlusher.class);
+
+    private final LedgerEngine engine;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionRepository txRepo;
+    private final AccountRepository accountRepo;
+    private final LedgerCheckpointRepository checkpointRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountVersionService versionService;
+    private final LedgerEventBus eventBus;
+    private final OutboxWriter outbox;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final BlockingQueue<LedgerEntry> queue;
+
+    private final long[] flushedSequence;
+    private final long[][] flushedApplied;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    LedgerFlusher(LedgerEngine engine, TransactionTemplate transactionTemplate, TransactionRepository txRepo,
+                  AccountRepository accountRepo, LedgerCheckpointRepository checkpointRepo, JdbcTemplate jdbcTemplate,
+                  AccountVersionService versionService, LedgerEventBus eventBus, OutboxWriter outbox,
+                  long[] flushedSequence, long[][] flushedApplied,
+                  int batchSize, Duration interval, int queueCapacity) {
+        this.engine = engine;
+        this.transactionTemplate = transactionTemplate;
+        this.txRepo = txRepo;
+        this.accountRepo = accountRepo;
+        this.checkpointRepo = checkpointRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.versionService = versionService;
+        this.eventBus = eventBus;
+        this.outbox = outbox;
+        this.flushedSequence = flushedSequence;
+        this.flushedApplied = flushedApplied;
+        this.batchSize = batchSize;
+        this.intervalMillis = interval.toMillis();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Blocks when the database falls too far behind, which in turn slows the shards down.
+     */
+    void enqueue(LedgerEntry entry) {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing a ledger entry for the database.");
+        }
+    }
+
+    int backlog() {
+        return queue.size();
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this, "ledger-flusher");
+        thread.start();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<LedgerEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    LedgerEntry first = queue.poll(intervalMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Keep the batch and retry it; the journal still holds every entry.
+                log.error("Ledger flush of {} entries failed, retrying", batch.size(), e);
+                try {
+                    Thread.sleep(Math.max(intervalMillis, 1000));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flush(List<LedgerEntry> batch) {
+        long[] newSequence = flushedSequence.clone();
+        long[][] newApplied = new long[flushedApplied.length][];
+        for (int i = 0; i < flushedApplied.length; i++) {
+            newApplied[i] = flushedApplied[i].clone();
+        }
+        boolean[] touched = new boolean[flushedSequence.length];
+        Set<Long> writtenAccounts = new LinkedHashSet<>();
+        List<LedgerEvent> events = new ArrayList<>(batch.size());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<TransactionEntity> rows = new ArrayList<>(batch.size());
+            Map<Long, Long> balances = new LinkedHashMap<>();
+            for (LedgerEntry e : batch) {
+                TransactionEntity tx = new TransactionEntity();
+                tx.setAccount(accountRepo.getReferenceById(e.accountId));
+                tx.setType(e.type);
+                tx.setAmount(Money.ofMinor(e.amount));
+                tx.setTransactionDate(LocalDateTime.ofInstant(
+                    Instant.EPOCH.plus(e.epochMicros, ChronoUnit.MICROS), ZoneId.systemDefault()));
+                tx.setBalanceAfterTransaction(Money.ofMinor(e.balanceAfter));
+                rows.add(tx);
+                balances.put(e.accountId, e.balanceAfter);
+
+                touched[e.shard] = true;
+                newSequence[e.shard] = Math.max(newSequence[e.shard], e.sequence);
+                if (e.sourceShard >= 0) {
+                    newApplied[e.shard][e.sourceShard] = Math.max(newApplied[e.shard][e.sourceShard], e.sourceSequence);
+                }
+            }
+            txRepo.saveAll(rows);
+            outbox.append(rows);
+            for (TransactionEntity tx : rows) {
+                writtenAccounts.add(tx.getAccount().getId());
+                events.add(LedgerEvent.of(tx));
+            }
+
+            List<Object[]> updates = new ArrayList<>(balances.size());
+            balances.forEach((id, balance) -> updates.add(new Object[] { BigDecimal.valueOf(balance, 2), id }));
+            jdbcTemplate.batchUpdate("UPDATE accounts SET balance = ? WHERE id = ?", updates);
+
+            for (int shard = 0; shard < touched.length; shard++) {
+                if (touched[shard]) {
+                    LedgerCheckpoint checkpoint = new LedgerCheckpoint();
+                    checkpoint.setShard(shard);
+                    checkpoint.setFlushedSequence(newSequence[shard]);
+                    checkpoint.setAppliedSources(encode(newApplied[shard]));
+                    checkpointRepo.save(checkpoint);
+                }
+            }
+        });
+
+        for (int shard = 0; shard < touched.length; shard++) {
+            if (touched[shard]) {
+                flushedSequence[shard] = newSequence[shard];
+                flushedApplied[shard] = newApplied[shard];
+                engine.onFlushed(shard, newSequence[shard]);
+            }
+        }
+        writtenAccounts.forEach(versionService::recordTransaction);
+        events.forEach(eventBus::publish);
+    }
+
+    static String encode(long[] applied) {
+        return Arrays.stream(applied).mapToObj(Long::toString).collect(Collectors.joining(","));
+    }
+
+    static long[] decode(String applied, int shardCount) {
+        long[] result = new long[shardCount];
+        if (applied != null && !applied.isBlank()) {
+            String[] parts = applied.split(",");
+            for (int i = 0; i < parts.length && i < shardCount; i++) {
+                result[i] = Long.parseLong(parts[i]);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,213 @@
+package com.bank.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal of one shard, stored as fixed-size memory-mapped
+ * segment files named {@code shard-<n>-<firstSequence>.journal}.
+ *
+ * <p>Each record is 64 bytes: the fields of a {@link JournalRecord}, a CRC32C of those
+ * fields and a magic number. Replay stops at the first record that is not intact, which
+ * is where a torn write would be, and the next append overwrites it. Only the shard's
+ * writer thread may append.
+ */
+final class LedgerJournal implements Closeable {
+
+    static final int RECORD_SIZE = 64;
+    private static final int CRC_OFFSET = 56;
+    private static final int MAGIC_OFFSET = 60;
+    private static final int MAGIC = 0x4C454447; // "LEDG"
+
+    private static final class Segment {
+        final Path path;
+        final long firstSequence;
+
+        Segment(Path path, long firstSequence) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+        }
+    }
+
+    private final Path dir;
+    private final int shard;
+    private final int recordsPerSegment;
+    private final List<Segment> segments = new ArrayList<>();
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long lastSequence;
+    private boolean dirty;
+
+    LedgerJournal(Path dir, int shard, int recordsPerSegment) throws IOException {
+        this.dir = dir;
+        this.shard = shard;
+        this.recordsPerSegment = recordsPerSegment;
+        Files.createDirectories(dir);
+        String prefix = "shard-" + shard + "-";
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().startsWith(prefix)
+                           && p.getFileName().toString().endsWith(".journal"))
+                 .sorted()
+                 .forEach(p -> {
+                     String name = p.getFileName().toString();
+                     long first = Long.parseLong(name.substring(prefix.length(), name.length() - ".journal".length()));
+                     segments.add(new Segment(p, first));
+                 });
+        }
+    }
+
+    /**
+     * Reads every intact record in sequence order and leaves the journal positioned
+     * after the last one. Must be called once before the first append.
+     */
+    void replay(Consumer<JournalRecord> consumer) throws IOException {
+        if (segments.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+        long expected = segments.get(0).firstSequence;
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            if (segment.firstSequence != expected) {
+                throw new IllegalStateException("Journal gap before " + segment.path + ": expected sequence " + expected);
+            }
+            MappedByteBuffer mapped = map(segment.path);
+            int position = 0;
+            while (position + RECORD_SIZE <= mapped.capacity()) {
+                JournalRecord record = read(mapped, position);
+                if (record == null || record.sequence != expected) {
+                    break;
+                }
+                consumer.accept(record);
+                expected++;
+                position += RECORD_SIZE;
+            }
+            if (last) {
+                channel = FileChannel.open(segment.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                buffer = mapped;
+                buffer.position(position);
+            } else if (position + RECORD_SIZE <= mapped.capacity()) {
+                throw new IllegalStateException("Corrupt journal record in " + segment.path + " at offset " + position);
+            }
+        }
+        lastSequence = expected - 1;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Writes the record; it is durable only after the next {@link #force()}.
+     */
+    void append(JournalRecord record) throws IOException {
+        if (record.sequence != lastSequence + 1) {
+            throw new IllegalStateException("Out of order journal append: " + record.sequence + " after " + lastSequence);
+        }
+        if (buffer.remaining() < RECORD_SIZE) {
+            force();
+            openSegment(record.sequence);
+        }
+        int position = buffer.position();
+        buffer.putLong(position, record.sequence);
+        buffer.put(position + 8, record.type);
+        buffer.put(position + 9, (byte) 0);
+        buffer.putShort(position + 10, (short) record.sourceShard);
+        buffer.putInt(position + 12, 0);
+        buffer.putLong(position + 16, record.account);
+        buffer.putLong(position + 24, record.counterparty);
+        buffer.putLong(position + 32, record.amount);
+        buffer.putLong(position + 40, record.sourceSequence);
+        buffer.putLong(position + 48, record.epochMicros);
+        buffer.putInt(position + CRC_OFFSET, checksum(buffer, position));
+        buffer.putInt(position + MAGIC_OFFSET, MAGIC);
+        buffer.position(position + RECORD_SIZE);
+        lastSequence = record.sequence;
+        dirty = true;
+    }
+
+    /**
+     * Forces appended records to the storage device.
+     */
+    void force() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Deletes closed segments whose records all have a sequence of at most {@code sequence}.
+     */
+    void releaseUpTo(long sequence) {
+        while (segments.size() > 1 && segments.get(1).firstSequence - 1 <= sequence) {
+            Segment segment = segments.remove(0);
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        Path path = dir.resolve(String.format("shard-%d-%020d.journal", shard, firstSequence));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        segments.add(new Segment(path, firstSequence));
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+        }
+    }
+
+    private JournalRecord read(ByteBuffer buf, int position) {
+        if (buf.getInt(position + MAGIC_OFFSET) != MAGIC
+                || buf.getInt(position + CRC_OFFSET) != checksum(buf, position)) {
+            return null;
+        }
+        return new JournalRecord(
+            buf.getLong(position),
+            buf.get(position + 8),
+            buf.getLong(position + 16),
+            buf.getLong(position + 24),
+            buf.getLong(position + 32),
+            buf.getShort(position + 10),
+            buf.getLong(position + 40),
+            buf.getLong(position + 48));
+    }
+
+    private int checksum(ByteBuffer buf, int position) {
+        crc.reset();
+        crc.update(buf.slice(position, CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,445 @@
+package com.bank.ledger;
+
+import com.bank.service.AccountNotFoundException;
+import com.bank.service.InsufficientFundsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the balances of every account that hashes to it. Only the shard's own thread
+ * reads or writes {@code balances}; everything else talks to it through the queue.
+ *
+ * <p>The loop takes a batch of commands, applies and journals each one, forces the
+ * journal once for the whole batch and only then acknowledges the commands, hands the
+ * resulting entries to the flusher and sends cross-shard credits.
+ *
+ * <p>If the journal cannot be forced, or anything fails after that, the shard stops. The
+ * commands of the batch are already applied in memory and may be in the journal, so they
+ * are answered with {@link LedgerUnavailableException} rather than as failed, and the
+ * engine is rebuilt from the journal on the next start.
+ */
+final class LedgerShard implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerShard.class);
+
+    static final byte BALANCE = 0;
+    private static final int MAX_BATCH = 512;
+
+    static final class Command {
+        final byte kind;
+        final long account;
+        final long counterparty;
+        final long amount;
+        final int sourceShard;
+        final long sourceSequence;
+        final boolean external;
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        Command(byte kind, long account, long counterparty, long amount,
+                int sourceShard, long sourceSequence, boolean external) {
+            this.kind = kind;
+            this.account = account;
+            this.counterparty = counterparty;
+            this.amount = amount;
+            this.sourceShard = sourceShard;
+            this.sourceSequence = sourceSequence;
+            this.external = external;
+        }
+    }
+
+    final int index;
+    private final LedgerEngine engine;
+    private final LedgerJournal journal;
+    private final LinkedBlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    private final Semaphore admission;
+
+    private final ConcurrentHashMap<Long, Integer> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private long[] balances = new long[1024];
+
+    /** Per source shard, the highest TRANSFER_OUT sequence already credited here. */
+    private final long[] appliedSources;
+    /** Sequences of our TRANSFER_OUT records whose credit is not yet durable. */
+    private final ConcurrentSkipListSet<Long> pendingOuts = new ConcurrentSkipListSet<>();
+    /** TRANSFER_OUT records read during replay, for the recovery pass. */
+    private final List<JournalRecord> replayedOuts = new ArrayList<>();
+
+    private long nextSequence;
+    private volatile long flushedSequence;
+    private long releasedSequence;
+    private volatile boolean running;
+    private volatile boolean failed;
+    private Thread thread;
+
+    LedgerShard(int index, int shardCount, LedgerEngine engine, LedgerJournal journal, int queueCapacity) {
+        this.index = index;
+        this.engine = engine;
+        this.journal = journal;
+        this.admission = new Semaphore(queueCapacity);
+        this.appliedSources = new long[shardCount];
+    }
+
+    // --- Recovery, single-threaded before start() ---
+
+    void loadBalance(long accountId, long balance) {
+        int slot = register(accountId);
+        ensureCapacity(slot);
+        balances[slot] = balance;
+    }
+
+    /**
+     * Replays journal records newer than the checkpoint on top of the balances loaded
+     * from the database, and queues them for flushing again.
+     */
+    void replay(long checkpointSequence, long[] checkpointApplied) throws IOException {
+        System.arraycopy(checkpointApplied, 0, appliedSources, 0, appliedSources.length);
+        flushedSequence = checkpointSequence;
+        releasedSequence = checkpointSequence;
+        journal.replay(record -> {
+            if (record.type == JournalRecord.TRANSFER_OUT) {
+                replayedOuts.add(record);
+            }
+            if (record.sequence > checkpointSequence) {
+                List<Runnable> after = new ArrayList<>(2);
+                apply(record, after);
+                after.forEach(Runnable::run);
+            }
+        });
+        nextSequence = journal.lastSequence() + 1;
+    }
+
+    List<JournalRecord> replayedOuts() {
+        return replayedOuts;
+    }
+
+    boolean hasApplied(int sourceShard, long sourceSequence) {
+        return appliedSources[sourceShard] >= sourceSequence;
+    }
+
+    /**
+     * Credits a TRANSFER_OUT whose TRANSFER_IN was lost in a crash.
+     */
+    void recoverCredit(int sourceShard, JournalRecord out) throws IOException {
+        JournalRecord in = new JournalRecord(nextSequence++, JournalRecord.TRANSFER_IN, out.counterparty,
+            out.account, out.amount, sourceShard, out.sequence, out.epochMicros);
+        journal.append(in);
+        journal.force();
+        List<Runnable> after = new ArrayList<>(1);
+        apply(in, after);
+        after.forEach(Runnable::run);
+    }
+
+    // --- Lifecycle ---
+
+    void start() {
+        replayedOuts.clear();
+        running = true;
+        thread = new Thread(this, "ledger-shard-" + index);
+        thread.start();
+    }
+
+    boolean isIdle() {
+        return queue.isEmpty() && pendingOuts.isEmpty();
+    }
+
+    void stop() throws InterruptedException, IOException {
+        running = false;
+        if (thread != null) {
+            thread.join();
+        }
+        try {
+            journal.close();
+        } catch (RuntimeException e) {
+            if (!failed) {
+                throw e;
+            }
+        }
+    }
+
+    // --- Called from other threads ---
+
+    int register(long accountId) {
+        return slots.computeIfAbsent(accountId, id -> nextSlot.getAndIncrement());
+    }
+
+    boolean hasAccount(long accountId) {
+        return slots.containsKey(accountId);
+    }
+
+    CompletableFuture<Long> submit(byte kind, long account, long counterparty, long amount) {
+        try {
+            admission.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the ledger.");
+        }
+        Command command = new Command(kind, account, counterparty, amount, -1, 0, true);
+        queue.add(command);
+        // fail() drains the queue after setting failed, so the command is either drained or removed here.
+        if (failed && queue.remove(command)) {
+            admission.release();
+            command.result.completeExceptionally(notApplied());
+        }
+        return command.result;
+    }
+
+    /** Cross-shard credits bypass admission so two full shards cannot block each other. */
+    private CompletableFuture<Long> submitCredit(long account, long from, long amount, int sourceShard, long sourceSequence) {
+        Command command = new Command(JournalRecord.TRANSFER_IN, account, from, amount, sourceShard, sourceSequence, false);
+        queue.add(command);
+        if (failed && queue.remove(command)) {
+            command.result.completeExceptionally(notApplied());
+        }
+        return command.result;
+    }
+
+    void markFlushed(long sequence) {
+        flushedSequence = sequence;
+    }
+
+    // --- Shard thread ---
+
+    @Override
+    public void run() {
+        List<Command> batch = new ArrayList<>(MAX_BATCH);
+        List<Runnable> after = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Command first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    releaseJournal();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (Command command : batch) {
+                    try {
+                        process(command, after);
+                    } catch (RuntimeException e) {
+                        command.result.completeExceptionally(e);
+                    } finally {
+                        if (command.external) {
+                            admission.release();
+                        }
+                    }
+                }
+                journal.force();
+                for (Runnable action : after) {
+                    action.run();
+                }
+                releaseJournal();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                fail(e, batch);
+                return;
+            } finally {
+                batch.clear();
+                after.clear();
+            }
+        }
+    }
+
+    /**
+     * Stops the shard. Commands of the batch that were not rejected are applied in memory
+     * and possibly journaled, so their outcome is unknown until the journal is replayed;
+     * queued commands were never applied.
+     */
+    private void fail(RuntimeException e, List<Command> batch) {
+        log.error("Ledger shard {} stopped; restart the application to recover it from the journal", index, e);
+        failed = true;
+        running = false;
+        engine.shardFailed(index);
+        LedgerUnavailableException unknown = new LedgerUnavailableException(
+            "The ledger stopped before confirming this operation; it may have been applied.", e);
+        for (Command command : batch) {
+            command.result.completeExceptionally(unknown);
+        }
+        Command queued;
+        while ((queued = queue.poll()) != null) {
+            if (queued.external) {
+                admission.release();
+            }
+            queued.result.completeExceptionally(notApplied());
+        }
+    }
+
+    private static LedgerUnavailableException notApplied() {
+        return new LedgerUnavailableException("The ledger is unavailable; the operation was not applied.");
+    }
+
+    private void process(Command c, List<Runnable> after) {
+        switch (c.kind) {
+            case BALANCE -> {
+                int slot = slotOf(c.account);
+                if (slot < 0) {
+                    throw new AccountNotFoundException("Account not found with id: " + c.account);
+                }
+                long balance = balances[slot];
+                after.add(() -> c.result.complete(balance));
+            }
+            case JournalRecord.DEPOSIT -> {
+                int slot = slotOf(c.account);
+                if (slot < 0) {
+                    throw new AccountNotFoundException("Account not found with id: " + c.account);
+                }
+                if (balances[slot] > Long.MAX_VALUE - c.amount) {
+                    throw new RuntimeException("Deposit would overflow the account balance.");
+                }
+                long balance = append(JournalRecord.DEPOSIT, c, after);
+                after.add(() -> c.result.complete(balance));
+            }
+            case JournalRecord.WITHDRAW -> {
+                int slot = slotOf(c.account);
+                if (slot < 0) {
+                    throw new AccountNotFoundException("Account not found with id: " + c.account);
+                }
+                if (balances[slot] < c.amount) {
+                    throw new InsufficientFundsException("Insufficient funds for withdrawal.");
+                }
+                long balance = append(JournalRecord.WITHDRAW, c, after);
+                after.add(() -> c.result.complete(balance));
+            }
+            case JournalRecord.TRANSFER -> {
+                int fromSlot = slotOf(c.account);
+                if (fromSlot < 0) {
+                    throw new AccountNotFoundException("Source account not found with id: " + c.account);
+                }
+                LedgerShard destination = engine.shardFor(c.counterparty);
+                if (!destination.hasAccount(c.counterparty)) {
+                    throw new AccountNotFoundException("Destination account not found with id: " + c.counterparty);
+                }
+                if (balances[fromSlot] < c.amount) {
+                    throw new InsufficientFundsException("Insufficient funds for transfer.");
+                }
+                if (destination == this) {
+                    long balance = append(JournalRecord.TRANSFER, c, after);
+                    after.add(() -> c.result.complete(balance));
+                } else {
+                    long balance = append(JournalRecord.TRANSFER_OUT, c, after);
+                    long outSequence = nextSequence - 1;
+                    pendingOuts.add(outSequence);
+                    after.add(() -> destination
+                        .submitCredit(c.counterparty, c.account, c.amount, index, outSequence)
+                        .whenComplete((credited, error) -> {
+                            // The debit is durable, so the transfer has happened either way. A credit
+                            // that did not make it is applied by the recovery pass on the next start,
+                            // which needs this record kept in the journal until then.
+                            if (error == null) {
+                                pendingOuts.remove(outSequence);
+                            } else {
+                                log.error("Credit of transfer {}/{} to account {} not confirmed; it is applied on restart",
+                                    index, outSequence, c.counterparty, error);
+                            }
+                            c.result.complete(balance);
+                        }));
+                }
+            }
+            case JournalRecord.TRANSFER_IN -> {
+                long balance = append(JournalRecord.TRANSFER_IN, c, after);
+                after.add(() -> c.result.complete(balance));
+            }
+            default -> throw new IllegalStateException("Unknown ledger command " + c.kind);
+        }
+    }
+
+    /**
+     * Journals the command, applies it and schedules its flush entries.
+     * @return the balance of {@code c.account} afterwards.
+     */
+    private long append(byte type, Command c, List<Runnable> after) {
+        JournalRecord record = new JournalRecord(nextSequence, type, c.account, c.counterparty, c.amount,
+            c.sourceShard, c.sourceSequence, engine.nowMicros());
+        try {
+            journal.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextSequence++;
+        return apply(record, after);
+    }
+
+    private long apply(JournalRecord r, List<Runnable> after) {
+        int slot = slotOf(r.account);
+        long balance;
+        switch (r.type) {
+            case JournalRecord.DEPOSIT -> {
+                balance = balances[slot] += r.amount;
+                flush(after, r, r.account, "DEPOSIT", balance);
+            }
+            case JournalRecord.WITHDRAW -> {
+                balance = balances[slot] -= r.amount;
+                flush(after, r, r.account, "WITHDRAW", balance);
+            }
+            case JournalRecord.TRANSFER -> {
+                balance = balances[slot] -= r.amount;
+                long toBalance = balances[slotOf(r.counterparty)] += r.amount;
+                flush(after, r, r.account, "TRANSFER_OUT", balance);
+                flush(after, r, r.counterparty, "TRANSFER_IN", toBalance);
+            }
+            case JournalRecord.TRANSFER_OUT -> {
+                balance = balances[slot] -= r.amount;
+                flush(after, r, r.account, "TRANSFER_OUT", balance);
+            }
+            case JournalRecord.TRANSFER_IN -> {
+                balance = balances[slot] += r.amount;
+                appliedSources[r.sourceShard] = Math.max(appliedSources[r.sourceShard], r.sourceSequence);
+                flush(after, r, r.account, "TRANSFER_IN", balance);
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + r.type);
+        }
+        return balance;
+    }
+
+    private void flush(List<Runnable> after, JournalRecord r, long accountId, String type, long balance) {
+        int sourceShard = r.type == JournalRecord.TRANSFER_IN ? r.sourceShard : -1;
+        LedgerEntry entry = new LedgerEntry(index, r.sequence, accountId, type, r.amount, balance,
+            r.epochMicros, sourceShard, r.sourceSequence);
+        after.add(() -> engine.enqueueFlush(entry));
+    }
+
+    private int slotOf(long accountId) {
+        Integer slot = slots.get(accountId);
+        if (slot == null) {
+            return -1;
+        }
+        ensureCapacity(slot);
+        return slot;
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot >= balances.length) {
+            balances = Arrays.copyOf(balances, Math.max(balances.length * 2, slot + 1));
+        }
+    }
+
+    /**
+     * Drops journal segments that are in the database and hold no transfer whose
+     * credit might still have to be replayed.
+     */
+    private void releaseJournal() {
+        long limit = flushedSequence;
+        Long oldestPending = pendingOuts.ceiling(Long.MIN_VALUE);
+        if (oldestPending != null) {
+            limit = Math.min(limit, oldestPending - 1);
+        }
+        if (limit > releasedSequence) {
+            journal.releaseUpTo(limit);
+            releasedSequence = limit;
+        }
+    }
+}
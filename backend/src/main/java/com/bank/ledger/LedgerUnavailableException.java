@@ -0,0 +1,17 @@
+package com.bank.ledger;
+
+/**
+ * Thrown when the ledger engine cannot confirm an operation, because it is not running or
+ * a shard stopped after its journal could not be forced. An operation that was in flight
+ * when a shard stopped may still have been applied; the journal decides on restart.
+ */
+public class LedgerUnavailableException extends RuntimeException {
+
+    public LedgerUnavailableException(String message) {
+        super(message);
+    }
+
+    public LedgerUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,129 @@
+package com.bank.metrics;
+
+import com.bank.service.AccountNotFoundException;
+import com.bank.service.InsufficientFundsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency, failure and slow-call instrumentation for banking operations.
+ *
+ * <p>Every operation gets a {@code bank.operation} timer (tagged by operation and outcome,
+ * with p50/p99/p999) and failures are counted in {@code bank.operation.failures} by cause.
+ * A call slower than {@code bank.metrics.slow-threshold.<operation>} (falling back to
+ * {@code bank.metrics.slow-threshold.default}) is logged with the number of statements it
+ * ran and how long it waited for a database connection.
+ */
+@Component
+public class BankMetrics {
+
+    public static final String INSUFFICIENT_FUNDS = "insufficient_funds";
+    public static final String NOT_FOUND = "not_found";
+    public static final String ACCESS_DENIED = "access_denied";
+    public static final String INVALID_REQUEST = "invalid_request";
+    public static final String ERROR = "error";
+
+    private static final Logger log = LoggerFactory.getLogger(BankMetrics.class);
+
+    private final MeterRegistry registry;
+    private final Environment environment;
+    private final Duration defaultThreshold;
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    private final class Operation {
+        final Timer success;
+        final Timer failure;
+        final long slowNanos;
+
+        Operation(String name) {
+            success = timer(name, "success");
+            failure = timer(name, "failure");
+            slowNanos = environment.getProperty("bank.metrics.slow-threshold." + name, Duration.class, defaultThreshold)
+                .toNanos();
+        }
+
+        private Timer timer(String name, String outcome) {
+            return Timer.builder("bank.operation")
+                .tag("operation", name)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry);
+        }
+    }
+
+    public BankMetrics(MeterRegistry registry, Environment environment) {
+        this.registry = registry;
+        this.environment = environment;
+        this.defaultThreshold = environment.getProperty("bank.metrics.slow-threshold.default", Duration.class,
+            Duration.ofMillis(250));
+        FunctionCounter.builder("bank.jdbc.statements", this, m -> JdbcActivity.totalStatements())
+            .description("SQL statements prepared by Hibernate")
+            .register(registry);
+    }
+
+    public void record(String operation, Runnable action) {
+        record(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T record(String operation, Supplier<T> action) {
+        Operation op = operations.computeIfAbsent(operation, Operation::new);
+        JdbcActivity jdbc = JdbcActivity.current();
+        long statements = jdbc.getStatements();
+        long connectionWait = jdbc.getConnectionWaitNanos();
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = action.get();
+            failed = false;
+            return result;
+        } catch (RuntimeException e) {
+            failure(operation, causeOf(e));
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            (failed ? op.failure : op.success).record(elapsed, TimeUnit.NANOSECONDS);
+            if (elapsed > op.slowNanos) {
+                log.warn("Slow operation {} took {} ms ({} statements, {} ms waiting for a connection{})",
+                    operation, elapsed / 1_000_000, jdbc.getStatements() - statements,
+                    (jdbc.getConnectionWaitNanos() - connectionWait) / 1_000_000, failed ? ", failed" : "");
+            }
+        }
+    }
+
+    /** Counts a failure that did not surface as an exception from {@link #record}. */
+    public void failure(String operation, String cause) {
+        Counter.builder("bank.operation.failures")
+            .tag("operation", operation)
+            .tag("cause", cause)
+            .register(registry)
+            .increment();
+    }
+
+    public static String causeOf(RuntimeException e) {
+        if (e instanceof InsufficientFundsException) {
+            return INSUFFICIENT_FUNDS;
+        }
+        if (e instanceof AccountNotFoundException) {
+            return NOT_FOUND;
+        }
+        if (e instanceof IllegalArgumentException) {
+            return INVALID_REQUEST;
+        }
+        return ERROR;
+    }
+}
@@ -0,0 +1,37 @@
+package com.bank.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Adds the time each caller waits for a connection to its {@link JdbcActivity}.
+ */
+public class ConnectionTimingDataSource extends DelegatingDataSource {
+
+    public ConnectionTimingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long started = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            JdbcActivity.connectionAcquired(System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            JdbcActivity.connectionAcquired(System.nanoTime() - started);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running per-thread totals of JDBC work: statements prepared by Hibernate and time spent
+ * waiting for a pooled connection. The totals are never reset; callers take a snapshot
+ * before a unit of work and subtract it afterwards, so nothing has to be cleaned up.
+ */
+public final class JdbcActivity {
+
+    private static final ThreadLocal<JdbcActivity> CURRENT = ThreadLocal.withInitial(JdbcActivity::new);
+    private static final LongAdder TOTAL_STATEMENTS = new LongAdder();
+
+    private long statements;
+    private long connectionWaitNanos;
+
+    private JdbcActivity() {
+    }
+
+    public static JdbcActivity current() {
+        return CURRENT.get();
+    }
+
+    public long getStatements() { return statements; }
+    public long getConnectionWaitNanos() { return connectionWaitNanos; }
+
+    /** Statements prepared by all threads since startup. */
+    static long totalStatements() {
+        return TOTAL_STATEMENTS.sum();
+    }
+
+    static void statementPrepared() {
+        CURRENT.get().statements++;
+        TOTAL_STATEMENTS.increment();
+    }
+
+    static void connectionAcquired(long waitNanos) {
+        CURRENT.get().connectionWaitNanos += waitNanos;
+    }
+}
@@ -0,0 +1,100 @@
+package com.bank.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request database and rendering costs, tagged by the matched URI pattern:
+ * {@code bank.request.statements}, {@code bank.request.connection.wait} and
+ * {@code bank.request.render} (the time between the handler returning and the view
+ * being written). Total latency per endpoint is Spring's own {@code http.server.requests}.
+ * Requests slower than {@code bank.metrics.slow-threshold.request} are logged.
+ */
+@Component
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestMetricsInterceptor.class);
+
+    private static final String STARTED = RequestMetricsInterceptor.class.getName() + ".started";
+    private static final String HANDLED = RequestMetricsInterceptor.class.getName() + ".handled";
+    private static final String STATEMENTS = RequestMetricsInterceptor.class.getName() + ".statements";
+    private static final String CONNECTION_WAIT = RequestMetricsInterceptor.class.getName() + ".connectionWait";
+
+    private final MeterRegistry registry;
+    private final long slowNanos;
+
+    public RequestMetricsInterceptor(MeterRegistry registry, Environment environment) {
+        this.registry = registry;
+        this.slowNanos = environment.getProperty("bank.metrics.slow-threshold.request", Duration.class,
+            Duration.ofSeconds(1)).toNanos();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        JdbcActivity jdbc = JdbcActivity.current();
+        request.setAttribute(STATEMENTS, jdbc.getStatements());
+        request.setAttribute(CONNECTION_WAIT, jdbc.getConnectionWaitNanos());
+        request.setAttribute(STARTED, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        request.setAttribute(HANDLED, System.nanoTime());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Long started = (Long) request.getAttribute(STARTED);
+        if (started == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        Long handled = (Long) request.getAttribute(HANDLED);
+        JdbcActivity jdbc = JdbcActivity.current();
+        long statements = jdbc.getStatements() - (Long) request.getAttribute(STATEMENTS);
+        long connectionWait = jdbc.getConnectionWaitNanos() - (Long) request.getAttribute(CONNECTION_WAIT);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("bank.request.statements")
+            .tag("uri", uri)
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .register(registry)
+            .record(statements);
+        Timer.builder("bank.request.connection.wait")
+            .tag("uri", uri)
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .register(registry)
+            .record(connectionWait, TimeUnit.NANOSECONDS);
+        long render = handled != null ? now - handled : 0;
+        if (handled != null) {
+            Timer.builder("bank.request.render")
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry)
+                .record(render, TimeUnit.NANOSECONDS);
+        }
+
+        if (now - started > slowNanos) {
+            log.warn("Slow request {} {} took {} ms ({} statements, {} ms waiting for a connection, {} ms rendering)",
+                request.getMethod(), uri, (now - started) / 1_000_000, statements,
+                connectionWait / 1_000_000, render / 1_000_000);
+        }
+    }
+}
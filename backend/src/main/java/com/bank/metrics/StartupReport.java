@@ -0,0 +1,129 @@
+package com.bank.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs where startup time went once the application is ready: the time from JVM start to
+ * {@code main}, each top-level startup phase, and the slowest bean creations (which
+ * include the beans they depend on). Phases are known only when MainApplication records
+ * them with a {@link BufferingApplicationStartup}. Also logs the time from JVM start to
+ * the end of the first request, kept in {@code bank.startup.first-request}, and warns
+ * when that or readiness exceeds {@code bank.startup.budget}.
+ */
+@Component
+public class StartupReport implements ApplicationListener<ApplicationReadyEvent>, Filter, Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    private static final int SLOWEST_BEANS = 10;
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final long budgetMillis;
+    private final boolean enabled;
+    private volatile long firstRequestMillis;
+
+    public StartupReport(Environment environment, MeterRegistry registry) {
+        this.enabled = environment.getProperty("bank.startup.report", Boolean.class, true);
+        this.budgetMillis = environment.getProperty("bank.startup.budget", Duration.class, Duration.ZERO).toMillis();
+        TimeGauge.builder("bank.startup.first-request", this, TimeUnit.MILLISECONDS, r -> r.firstRequestMillis)
+            .description("Time from JVM start to the end of the first request")
+            .register(registry);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        long readyMillis = System.currentTimeMillis() - jvmStartMillis;
+        StartupTimeline timeline = event.getApplicationContext().getApplicationStartup()
+            instanceof BufferingApplicationStartup buffering ? buffering.drainBufferedTimeline() : null;
+        if (!enabled) {
+            return;
+        }
+        StringBuilder report = new StringBuilder("Startup: ready ").append(readyMillis).append(" ms after JVM start");
+        if (timeline != null) {
+            report.append(String.format("%n  %-44s %6d ms", "JVM start to main",
+                timeline.getStartTime().toEpochMilli() - jvmStartMillis));
+            List<StartupTimeline.TimelineEvent> events = timeline.getEvents();
+            for (StartupTimeline.TimelineEvent phase : events) {
+                // Beans created on first use after the context refreshed have no parent step either.
+                if (phase.getStartupStep().getParentId() == null && !isBeanCreation(phase)) {
+                    report.append(String.format("%n  %-44s %6d ms", phase.getStartupStep().getName(),
+                        phase.getDuration().toMillis()));
+                }
+            }
+            report.append(String.format("%n  slowest beans, with their dependencies:"));
+            events.stream()
+                .filter(StartupReport::isBeanCreation)
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(SLOWEST_BEANS)
+                .forEach(e -> report.append(String.format("%n    %-42s %6d ms", tag(e.getStartupStep(), "beanName"),
+                    e.getDuration().toMillis())));
+        }
+        log.info(report.toString());
+        if (budgetMillis > 0 && readyMillis > budgetMillis) {
+            log.warn("Startup took {} ms, over the budget of {} ms", readyMillis, budgetMillis);
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        chain.doFilter(request, response);
+        if (firstRequestMillis == 0) {
+            firstRequest();
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private synchronized void firstRequest() {
+        if (firstRequestMillis != 0) {
+            return;
+        }
+        firstRequestMillis = System.currentTimeMillis() - jvmStartMillis;
+        if (budgetMillis > 0 && firstRequestMillis > budgetMillis) {
+            log.warn("First request served {} ms after JVM start, over the budget of {} ms", firstRequestMillis,
+                budgetMillis);
+        } else if (enabled) {
+            log.info("First request served {} ms after JVM start", firstRequestMillis);
+        }
+    }
+
+    private static boolean isBeanCreation(StartupTimeline.TimelineEvent event) {
+        return "spring.beans.instantiate".equals(event.getStartupStep().getName());
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
@@ -0,0 +1,17 @@
+package com.bank.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every SQL statement Hibernate prepares into {@link JdbcActivity}; the SQL itself
+ * is passed through unchanged. Registered with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        JdbcActivity.statementPrepared();
+        return sql;
+    }
+}
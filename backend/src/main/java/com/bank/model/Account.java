@@ -1,7 +1,8 @@
 package com.bank.model;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
+import org.hibernate.annotations.Formula;
+
 import java.time.LocalDateTime;
 
 @Entity
@@ -10,7 +11,7 @@ public class Account {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
-    @SequenceGenerator(name = "account_seq", sequenceName = "account_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_sequence", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -18,7 +19,15 @@ public class Account {
     private User user;
 
     @Column(nullable = false)
-    private BigDecimal balance = BigDecimal.ZERO;
+    @Convert(converter = MoneyConverter.class)
+    private Money balance = Money.ZERO;
+
+    // Hot accounts spread their balance over this many stripe rows (null when not striped).
+    private Integer balanceStripes;
+
+    @Formula("(SELECT COALESCE(SUM(s.balance), 0) FROM account_balance_stripes s WHERE s.account_id = id)")
+    @Convert(converter = MoneyConverter.class)
+    private Money stripedBalance;
 
     private LocalDateTime creationDate;
 
@@ -34,8 +43,11 @@ public class Account {
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
-    public BigDecimal getBalance() { return balance; }
-    public void setBalance(BigDecimal balance) { this.balance = balance; }
+    /** The whole balance: the balance column plus, for a loaded hot account, its stripes. */
+    public Money getBalance() { return stripedBalance != null ? balance.plus(stripedBalance) : balance; }
+    public void setBalance(Money balance) { this.balance = balance; }
+
+    public Integer getBalanceStripes() { return balanceStripes; }
 
     public LocalDateTime getCreationDate() { return creationDate; }
     public void setCreationDate(LocalDateTime creationDate) { this.creationDate = creationDate; }
@@ -0,0 +1,53 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One slice of a hot account's balance. A striped account's balance is its own balance
+ * column plus the sum of its stripes; see {@link com.bank.service.HotAccountBalances}.
+ */
+@Entity
+@Table(name = "account_balance_stripes")
+@IdClass(AccountBalanceStripe.Key.class)
+public class AccountBalanceStripe {
+
+    @Id
+    private Long accountId;
+
+    @Id
+    private int stripeNo;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money balance;
+
+    protected AccountBalanceStripe() {
+    }
+
+    public AccountBalanceStripe(Long accountId, int stripeNo, Money balance) {
+        this.accountId = accountId;
+        this.stripeNo = stripeNo;
+        this.balance = balance;
+    }
+
+    public Long getAccountId() { return accountId; }
+    public int getStripeNo() { return stripeNo; }
+    public Money getBalance() { return balance; }
+
+    public static class Key implements Serializable {
+        private Long accountId;
+        private int stripeNo;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(accountId, k.accountId) && stripeNo == k.stripeNo;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, stripeNo);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Opening and closing balance of one account over one day or one calendar month, with the
+ * money that moved in and out. Written by the checkpoint job once the period has settled;
+ * only periods in which the account had a transaction get a row.
+ */
+@Entity
+@Table(name = "balance_checkpoints", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_balance_checkpoint", columnNames = {"account_id", "period", "period_start"})
+})
+public class BalanceCheckpoint {
+
+    public enum Period { DAY, MONTH }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_checkpoint_seq")
+    @SequenceGenerator(name = "balance_checkpoint_seq", sequenceName = "balance_checkpoint_sequence", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 5)
+    private Period period;
+
+    /** The day, or the first day of the month. */
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money openingBalance;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money credits;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money debits;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money closingBalance;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getAccountId() { return accountId; }
+    public void setAccountId(Long accountId) { this.accountId = accountId; }
+
+    public Period getPeriod() { return period; }
+    public void setPeriod(Period period) { this.period = period; }
+
+    public LocalDate getPeriodStart() { return periodStart; }
+    public void setPeriodStart(LocalDate periodStart) { this.periodStart = periodStart; }
+
+    public Money getOpeningBalance() { return openingBalance; }
+    public void setOpeningBalance(Money openingBalance) { this.openingBalance = openingBalance; }
+
+    public Money getCredits() { return credits; }
+    public void setCredits(Money credits) { this.credits = credits; }
+
+    public Money getDebits() { return debits; }
+    public void setDebits(Money debits) { this.debits = debits; }
+
+    public Money getClosingBalance() { return closingBalance; }
+    public void setClosingBalance(Money closingBalance) { this.closingBalance = closingBalance; }
+
+    public long getTransactionCount() { return transactionCount; }
+    public void setTransactionCount(long transactionCount) { this.transactionCount = transactionCount; }
+}
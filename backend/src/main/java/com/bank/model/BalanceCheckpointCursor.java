@@ -0,0 +1,27 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * How far balance checkpoints have been written: every day up to and including
+ * {@code completedThrough}. A single row, locked by the job while it writes a day.
+ */
+@Entity
+@Table(name = "balance_checkpoint_cursor")
+public class BalanceCheckpointCursor {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private LocalDate completedThrough;
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public LocalDate getCompletedThrough() { return completedThrough; }
+    public void setCompletedThrough(LocalDate completedThrough) { this.completedThrough = completedThrough; }
+}
@@ -0,0 +1,56 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Money moved and number of transactions of one type for one account on one business day,
+ * written by the end-of-day totals job.
+ */
+@Entity
+@Table(name = "daily_account_totals")
+@IdClass(DailyAccountTotal.Key.class)
+public class DailyAccountTotal {
+
+    @Id
+    private LocalDate businessDate;
+
+    @Id
+    private Long accountId;
+
+    @Id
+    @Column(length = 20)
+    private String type;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    @Column(nullable = false)
+    private long txCount;
+
+    public LocalDate getBusinessDate() { return businessDate; }
+    public Long getAccountId() { return accountId; }
+    public String getType() { return type; }
+    public Money getAmount() { return amount; }
+    public long getTxCount() { return txCount; }
+
+    public static class Key implements Serializable {
+        private LocalDate businessDate;
+        private Long accountId;
+        private String type;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(businessDate, k.businessDate)
+                && Objects.equals(accountId, k.accountId) && Objects.equals(type, k.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(businessDate, accountId, type);
+        }
+    }
+}
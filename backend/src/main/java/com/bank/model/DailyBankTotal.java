@@ -0,0 +1,50 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Money moved and number of transactions of one type across the bank on one business day,
+ * merged from the partition totals once every partition of the day is complete.
+ */
+@Entity
+@Table(name = "daily_bank_totals")
+@IdClass(DailyBankTotal.Key.class)
+public class DailyBankTotal {
+
+    @Id
+    private LocalDate businessDate;
+
+    @Id
+    @Column(length = 20)
+    private String type;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    @Column(nullable = false)
+    private long txCount;
+
+    public LocalDate getBusinessDate() { return businessDate; }
+    public String getType() { return type; }
+    public Money getAmount() { return amount; }
+    public long getTxCount() { return txCount; }
+
+    public static class Key implements Serializable {
+        private LocalDate businessDate;
+        private String type;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(businessDate, k.businessDate) && Objects.equals(type, k.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(businessDate, type);
+        }
+    }
+}
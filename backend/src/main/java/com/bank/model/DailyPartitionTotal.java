@@ -0,0 +1,51 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Partial result of one end-of-day partition: money moved and number of transactions of
+ * one type across the partition's accounts. Kept so that a restarted run can merge the
+ * partitions finished before it.
+ */
+@Entity
+@Table(name = "daily_partition_totals")
+@IdClass(DailyPartitionTotal.Key.class)
+public class DailyPartitionTotal {
+
+    @Id
+    private LocalDate businessDate;
+
+    @Id
+    private Integer partitionNo;
+
+    @Id
+    @Column(length = 20)
+    private String type;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    @Column(nullable = false)
+    private long txCount;
+
+    public static class Key implements Serializable {
+        private LocalDate businessDate;
+        private Integer partitionNo;
+        private String type;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(businessDate, k.businessDate)
+                && Objects.equals(partitionNo, k.partitionNo) && Objects.equals(type, k.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(businessDate, partitionNo, type);
+        }
+    }
+}
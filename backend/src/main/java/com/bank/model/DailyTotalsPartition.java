@@ -0,0 +1,81 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * One account id range of an end-of-day totals run, and its checkpoint: once
+ * {@code completedAt} is set, the range's account and partition totals are committed and
+ * a restarted run skips it.
+ */
+@Entity
+@Table(name = "daily_totals_partitions")
+@IdClass(DailyTotalsPartition.Key.class)
+public class DailyTotalsPartition {
+
+    @Id
+    private LocalDate businessDate;
+
+    @Id
+    private Integer partitionNo;
+
+    @Column(nullable = false)
+    private Long firstAccountId;
+
+    @Column(nullable = false)
+    private Long lastAccountId;
+
+    private LocalDateTime completedAt;
+
+    private Long txCount;
+
+    private Long accountCount;
+
+    public LocalDate getBusinessDate() { return businessDate; }
+    public void setBusinessDate(LocalDate businessDate) { this.businessDate = businessDate; }
+
+    public Integer getPartitionNo() { return partitionNo; }
+    public void setPartitionNo(Integer partitionNo) { this.partitionNo = partitionNo; }
+
+    public Long getFirstAccountId() { return firstAccountId; }
+    public void setFirstAccountId(Long firstAccountId) { this.firstAccountId = firstAccountId; }
+
+    public Long getLastAccountId() { return lastAccountId; }
+    public void setLastAccountId(Long lastAccountId) { this.lastAccountId = lastAccountId; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+
+    public Long getTxCount() { return txCount; }
+    public void setTxCount(Long txCount) { this.txCount = txCount; }
+
+    public Long getAccountCount() { return accountCount; }
+    public void setAccountCount(Long accountCount) { this.accountCount = accountCount; }
+
+    public static class Key implements Serializable {
+        private LocalDate businessDate;
+        private Integer partitionNo;
+
+        public Key() {
+        }
+
+        public Key(LocalDate businessDate, Integer partitionNo) {
+            this.businessDate = businessDate;
+            this.partitionNo = partitionNo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(businessDate, k.businessDate)
+                && Objects.equals(partitionNo, k.partitionNo);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(businessDate, partitionNo);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+
+/**
+ * How far the ledger engine has written one shard's journal into the database.
+ * Updated in the same transaction as the rows it covers.
+ */
+@Entity
+@Table(name = "ledger_checkpoints")
+public class LedgerCheckpoint {
+
+    @Id
+    private Integer shard;
+
+    /** Highest journal sequence of this shard already in the accounts/transactions tables. */
+    @Column(nullable = false)
+    private Long flushedSequence;
+
+    /**
+     * Comma-separated, one value per source shard: the highest TRANSFER_OUT sequence of that
+     * shard whose credit this shard has already flushed.
+     */
+    @Column(length = 4000)
+    private String appliedSources;
+
+    public Integer getShard() { return shard; }
+    public void setShard(Integer shard) { this.shard = shard; }
+
+    public Long getFlushedSequence() { return flushedSequence; }
+    public void setFlushedSequence(Long flushedSequence) { this.flushedSequence = flushedSequence; }
+
+    public String getAppliedSources() { return appliedSources; }
+    public void setAppliedSources(String appliedSources) { this.appliedSources = appliedSources; }
+}
@@ -0,0 +1,58 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A ledger row waiting to be relayed to downstream systems, inserted in the transaction
+ * that writes the row. Entries are written and drained with plain SQL (see
+ * {@link com.bank.outbox.OutboxWriter}); the entity defines the table. Ids are taken
+ * one at a time from the sequence while the account is locked, so an account's entries
+ * are numbered in the order its transactions commit.
+ */
+@Entity
+@Table(name = "ledger_outbox", indexes = {
+    @Index(name = "idx_ledger_outbox_partition", columnList = "partition_no, id")
+})
+public class LedgerOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_outbox_seq")
+    @SequenceGenerator(name = "ledger_outbox_seq", sequenceName = "ledger_outbox_sequence", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private Long transactionId;
+
+    @Column(nullable = false, length = 20)
+    private String type;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    @Column(nullable = false)
+    private LocalDateTime transactionDate;
+
+    @Convert(converter = MoneyConverter.class)
+    private Money balanceAfterTransaction;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() { return id; }
+    public int getPartitionNo() { return partitionNo; }
+    public Long getAccountId() { return accountId; }
+    public Long getTransactionId() { return transactionId; }
+    public String getType() { return type; }
+    public Money getAmount() { return amount; }
+    public LocalDateTime getTransactionDate() { return transactionDate; }
+    public Money getBalanceAfterTransaction() { return balanceAfterTransaction; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,82 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Catalog entry of an archive segment file: the ledger rows of one account id range and
+ * one calendar month, moved out of the transactions table. The row is inserted in the
+ * transaction that deletes those rows, so a reader sees every row either in the table or
+ * in a listed segment.
+ */
+@Entity
+@Table(name = "ledger_segments", indexes = {
+    @Index(name = "idx_ledger_segment_accounts", columnList = "first_account_id, last_account_id")
+})
+public class LedgerSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_segment_seq")
+    @SequenceGenerator(name = "ledger_segment_seq", sequenceName = "ledger_segment_sequence", allocationSize = 1)
+    private Long id;
+
+    /** The first day of the month. */
+    @Column(name = "segment_month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "first_account_id", nullable = false)
+    private Long firstAccountId;
+
+    @Column(name = "last_account_id", nullable = false)
+    private Long lastAccountId;
+
+    /** Relative to bank.archive.dir. */
+    @Column(nullable = false, unique = true)
+    private String fileName;
+
+    @Column(nullable = false)
+    private long rowCount;
+
+    @Column(nullable = false)
+    private long fileSize;
+
+    @Column(nullable = false)
+    private LocalDateTime firstTransactionDate;
+
+    @Column(nullable = false)
+    private LocalDateTime lastTransactionDate;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getMonth() { return month; }
+    public void setMonth(LocalDate month) { this.month = month; }
+
+    public Long getFirstAccountId() { return firstAccountId; }
+    public void setFirstAccountId(Long firstAccountId) { this.firstAccountId = firstAccountId; }
+
+    public Long getLastAccountId() { return lastAccountId; }
+    public void setLastAccountId(Long lastAccountId) { this.lastAccountId = lastAccountId; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public long getRowCount() { return rowCount; }
+    public void setRowCount(long rowCount) { this.rowCount = rowCount; }
+
+    public long getFileSize() { return fileSize; }
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+
+    public LocalDateTime getFirstTransactionDate() { return firstTransactionDate; }
+    public void setFirstTransactionDate(LocalDateTime firstTransactionDate) { this.firstTransactionDate = firstTransactionDate; }
+
+    public LocalDateTime getLastTransactionDate() { return lastTransactionDate; }
+    public void setLastTransactionDate(LocalDateTime lastTransactionDate) { this.lastTransactionDate = lastTransactionDate; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
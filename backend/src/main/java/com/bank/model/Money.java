@@ -0,0 +1,180 @@
+package com.bank.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money held as a whole number of minor units (cents) at the fixed scale of
+ * {@value #SCALE}. Arithmetic is exact and overflow-checked, and allocates nothing but the
+ * result. Values are stored in the existing decimal columns through {@link MoneyConverter}.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long MINOR_PER_MAJOR = 100;
+    // Reused by format(); the only allocation left is the String itself.
+    private static final ThreadLocal<StringBuilder> FORMAT_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the amount has more than {@value #SCALE} decimal
+     * places or does not fit.
+     */
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofMinor(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places: " + amount);
+        }
+    }
+
+    /**
+     * Parses a plain decimal such as {@code 12}, {@code -0.5} or {@code 1234.56} without going
+     * through {@code BigDecimal}. Also used by Spring to bind request parameters.
+     * @throws IllegalArgumentException if the text is not such a number or has more than
+     * {@value #SCALE} decimal places.
+     */
+    public static Money valueOf(String text) {
+        String s = text.trim();
+        int i = 0;
+        boolean negative = false;
+        if (!s.isEmpty() && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negative = s.charAt(0) == '-';
+            i++;
+        }
+        // Accumulated negated, so that the text of Long.MIN_VALUE cents parses too.
+        long minor = 0;
+        int integerDigits = 0;
+        int fractionDigits = -1;
+        try {
+            for (; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else if (c >= '0' && c <= '9' && fractionDigits < SCALE) {
+                    minor = Math.subtractExact(Math.multiplyExact(minor, 10), c - '0');
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    } else {
+                        integerDigits++;
+                    }
+                } else {
+                    throw new IllegalArgumentException("Amount must be a number with at most " + SCALE
+                        + " decimal places: " + text);
+                }
+            }
+            if (integerDigits == 0 && fractionDigits <= 0) {
+                throw new IllegalArgumentException("Amount must be a number with at most " + SCALE
+                    + " decimal places: " + text);
+            }
+            for (int scale = Math.max(fractionDigits, 0); scale < SCALE; scale++) {
+                minor = Math.multiplyExact(minor, 10);
+            }
+            return ofMinor(negative ? minor : Math.negateExact(minor));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount is too large: " + text);
+        }
+    }
+
+    public long getMinorUnits() { return minorUnits; }
+
+    /** @throws ArithmeticException on overflow. */
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    /** @throws ArithmeticException on overflow. */
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public boolean isPositive() { return minorUnits > 0; }
+    public boolean isNegative() { return minorUnits < 0; }
+    public boolean isZero() { return minorUnits == 0; }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Appends the amount with thousands separators, e.g. {@code -1,234.50}.
+     */
+    public StringBuilder formatTo(StringBuilder out) {
+        return appendTo(out, true);
+    }
+
+    /**
+     * @return the amount with thousands separators, e.g. {@code -1,234.50}, as shown in the views.
+     */
+    public String format() {
+        StringBuilder buffer = FORMAT_BUFFER.get();
+        buffer.setLength(0);
+        return appendTo(buffer, true).toString();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && other.minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    /**
+     * @return the plain amount, e.g. {@code -1234.50}.
+     */
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24), false).toString();
+    }
+
+    private StringBuilder appendTo(StringBuilder out, boolean grouping) {
+        // Long.MIN_VALUE has no positive counterpart, so work with the negated value.
+        long negated = minorUnits > 0 ? -minorUnits : minorUnits;
+        if (minorUnits < 0) {
+            out.append('-');
+        }
+        long major = -(negated / MINOR_PER_MAJOR);
+        int cents = (int) -(negated % MINOR_PER_MAJOR);
+        appendGrouped(out, major, grouping);
+        out.append('.');
+        out.append((char) ('0' + cents / 10));
+        out.append((char) ('0' + cents % 10));
+        return out;
+    }
+
+    private static void appendGrouped(StringBuilder out, long value, boolean grouping) {
+        if (value < 1000 || !grouping) {
+            out.append(value);
+            return;
+        }
+        appendGrouped(out, value / 1000, true);
+        int group = (int) (value % 1000);
+        out.append(',');
+        out.append((char) ('0' + group / 100));
+        out.append((char) ('0' + group / 10 % 10));
+        out.append((char) ('0' + group % 10));
+    }
+}
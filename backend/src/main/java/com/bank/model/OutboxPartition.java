@@ -0,0 +1,31 @@
+package com.bank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One partition of the ledger outbox and its progress. A relay drains a partition only
+ * while it holds this row's lock, so an account's entries, which all fall in one
+ * partition, are delivered by one relay at a time and in order.
+ */
+@Entity
+@Table(name = "outbox_partitions")
+public class OutboxPartition {
+
+    @Id
+    private Integer partitionNo;
+
+    /** Id of the last entry delivered, 0 before the first. */
+    @Column(nullable = false)
+    private long deliveredThrough;
+
+    @Column(nullable = false)
+    private long deliveredCount;
+
+    private LocalDateTime updatedAt;
+
+    public Integer getPartitionNo() { return partitionNo; }
+    public long getDeliveredThrough() { return deliveredThrough; }
+    public long getDeliveredCount() { return deliveredCount; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -1,19 +1,22 @@
 package com.bank.model;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_tx_account_date_id", columnList = "account_id, transaction_date, id"),
+    // Day-by-day scans across all accounts (balance checkpoints).
+    @Index(name = "idx_tx_date", columnList = "transaction_date")
+})
 public class TransactionEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
-    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_sequence", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
@@ -21,12 +24,14 @@ public class TransactionEntity {
     private String type;
 
     @Column(nullable = false)
-    private BigDecimal amount;
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
 
     @Column(nullable = false)
     private LocalDateTime transactionDate;
 
-    private BigDecimal balanceAfterTransaction;
+    @Convert(converter = MoneyConverter.class)
+    private Money balanceAfterTransaction;
 
     // --- Getters & Setters ---
 
@@ -39,8 +44,8 @@ public class TransactionEntity {
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
 
-    public BigDecimal getAmount() { return amount; }
-    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public Money getAmount() { return amount; }
+    public void setAmount(Money amount) { this.amount = amount; }
 
     public LocalDateTime getTransactionDate() {
         return transactionDate;
@@ -50,7 +55,7 @@ public class TransactionEntity {
         this.transactionDate = transactionDate;
     }
 
-    public BigDecimal getBalanceAfterTransaction() { return balanceAfterTransaction; }
-    public void setBalanceAfterTransaction(BigDecimal balance) { this.balanceAfterTransaction = balance; }
+    public Money getBalanceAfterTransaction() { return balanceAfterTransaction; }
+    public void setBalanceAfterTransaction(Money balance) { this.balanceAfterTransaction = balance; }
 }
 
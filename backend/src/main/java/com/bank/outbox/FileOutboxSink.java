@@ -0,0 +1,82 @@
+package com.bank.outbox;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends outbox messages to a local file as NDJSON, one line per message, and forces each
+ * batch to disk before it is acknowledged. A redelivered batch appears in the file again;
+ * readers deduplicate on {@code transactionId}. Enabled by setting
+ * {@code bank.outbox.file-sink.path}.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.outbox.file-sink.path")
+public class FileOutboxSink implements OutboxSink {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final FileChannel channel;
+
+    public FileOutboxSink(@Value("${bank.outbox.file-sink.path}") Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    // Relay threads deliver concurrently; each batch is written whole.
+    @Override
+    public synchronized void deliver(List<OutboxMessage> batch) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(batch.size() * 192);
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            for (OutboxMessage message : batch) {
+                json.writeStartObject();
+                json.writeNumberField("outboxId", message.id());
+                json.writeNumberField("accountId", message.accountId());
+                json.writeNumberField("transactionId", message.transactionId());
+                json.writeStringField("type", message.type());
+                json.writeFieldName("amount");
+                json.writeNumber(message.amount().toString());
+                json.writeStringField("transactionDate", message.transactionDate().toString());
+                if (message.balanceAfterTransaction() != null) {
+                    json.writeFieldName("balanceAfterTransaction");
+                    json.writeNumber(message.balanceAfterTransaction().toString());
+                } else {
+                    json.writeNullField("balanceAfterTransaction");
+                }
+                json.writeEndObject();
+            }
+            json.writeRaw('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(out.toByteArray());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,37 @@
+package com.bank.outbox;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operator view of the ledger outbox: undelivered entries per partition, the relay's lag and
+ * the partitions backing off after failures. Counting the outbox reads the whole table, so
+ * this is not a metric. Not exposed over HTTP by default, like the other operator endpoints.
+ */
+@Component
+@Endpoint(id = "outbox")
+@ConditionalOnProperty(name = "bank.outbox.enabled", havingValue = "true")
+public class OutboxEndpoint {
+
+    private final OutboxRelay relay;
+
+    public OutboxEndpoint(OutboxRelay relay) {
+        this.relay = relay;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<Integer, Long> pending = relay.pending();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pending", pending.values().stream().mapToLong(Long::longValue).sum());
+        status.put("pendingByPartition", pending);
+        status.put("lagSeconds", relay.lagSeconds());
+        status.put("failingPartitions", relay.failing());
+        return status;
+    }
+}
@@ -0,0 +1,20 @@
+package com.bank.outbox;
+
+import com.bank.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * A ledger row as delivered to an {@link OutboxSink}. {@code id} is the outbox entry's and
+ * increases with each of the account's transactions; {@code transactionId} identifies the
+ * ledger row and is the key to deduplicate redeliveries on.
+ */
+public record OutboxMessage(long id,
+                            Long accountId,
+                            Long transactionId,
+                            String type,
+                            Money amount,
+                            LocalDateTime transactionDate,
+                            Money balanceAfterTransaction,
+                            LocalDateTime createdAt) {
+}
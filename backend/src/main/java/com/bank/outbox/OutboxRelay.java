@@ -0,0 +1,323 @@
+package com.bank.outbox;
+
+import com.bank.model.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Drains the ledger outbox to the {@link OutboxSink}s.
+ *
+ * <p>The outbox is split into {@code bank.outbox.partitions} partitions by account id, and
+ * {@code bank.outbox.relay-threads} threads take turns over them. A thread claims a
+ * partition by locking its row with SKIP LOCKED, so relays on other instances move on to
+ * other partitions instead of waiting. It then reads the partition's oldest entries, hands
+ * them to every sink and deletes them, all in one transaction. Because an account falls in
+ * one partition and only its holder reads it, an account's entries are delivered in order
+ * even with several relays.
+ *
+ * <p>A full batch means a backlog: the partition's next batch is twice as large, up to
+ * {@code bank.outbox.catch-up-batch-size}, and the thread polls again without pausing;
+ * a partial batch resets it. A failed batch stays in the outbox and its partition backs off
+ * exponentially up to {@code bank.outbox.max-backoff}. {@code bank.outbox.lag} is the age of
+ * the oldest entry this instance knows to be undelivered.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.outbox.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    // Oracle accepts at most 1000 values in an IN list.
+    private static final int IN_LIST_CHUNK = 500;
+
+    private static final String CLAIM_SQL =
+        "SELECT partition_no FROM outbox_partitions WHERE partition_no = ? FOR UPDATE SKIP LOCKED";
+    private static final String BATCH_SQL =
+        "SELECT id, account_id, transaction_id, type, amount, transaction_date, balance_after_transaction, created_at " +
+        "FROM ledger_outbox WHERE partition_no = ? ORDER BY id FETCH FIRST ? ROWS ONLY";
+    private static final String PROGRESS_SQL =
+        "UPDATE outbox_partitions SET delivered_through = ?, delivered_count = delivered_count + ?, updated_at = ? " +
+        "WHERE partition_no = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxSink> sinks;
+    private final int partitions;
+    private final int threads;
+    private final int batchSize;
+    private final int catchUpBatchSize;
+    private final long pollMillis;
+    private final long maxBackoffMillis;
+
+    // Per partition: the next batch size, consecutive failures, when to retry after one, and
+    // the creation time of the oldest entry seen undelivered (null if it was drained).
+    private final AtomicIntegerArray limits;
+    private final AtomicIntegerArray failures;
+    private final AtomicLongArray retryAt;
+    private final AtomicReferenceArray<LocalDateTime> oldestPending;
+
+    private final Counter delivered;
+    private final Timer batches;
+    private final Map<String, Counter> sinkFailures = new HashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       List<OutboxSink> sinks,
+                       MeterRegistry meterRegistry,
+                       @Value("${bank.outbox.partitions:16}") int partitions,
+                       @Value("${bank.outbox.relay-threads:2}") int threads,
+                       @Value("${bank.outbox.batch-size:500}") int batchSize,
+                       @Value("${bank.outbox.catch-up-batch-size:5000}") int catchUpBatchSize,
+                       @Value("${bank.outbox.poll-interval:200ms}") Duration pollInterval,
+                       @Value("${bank.outbox.max-backoff:30s}") Duration maxBackoff) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sinks = List.copyOf(sinks);
+        this.partitions = Math.max(1, partitions);
+        this.threads = Math.max(1, Math.min(threads, this.partitions));
+        this.batchSize = Math.max(1, batchSize);
+        this.catchUpBatchSize = Math.max(this.batchSize, catchUpBatchSize);
+        this.pollMillis = Math.max(1, pollInterval.toMillis());
+        this.maxBackoffMillis = Math.max(pollMillis, maxBackoff.toMillis());
+        this.limits = new AtomicIntegerArray(this.partitions);
+        this.failures = new AtomicIntegerArray(this.partitions);
+        this.retryAt = new AtomicLongArray(this.partitions);
+        this.oldestPending = new AtomicReferenceArray<>(this.partitions);
+        for (int p = 0; p < this.partitions; p++) {
+            limits.set(p, this.batchSize);
+        }
+
+        this.delivered = Counter.builder("bank.outbox.delivered")
+            .description("Ledger outbox messages delivered to every sink")
+            .register(meterRegistry);
+        this.batches = Timer.builder("bank.outbox.batches")
+            .description("Claiming, delivering and deleting one outbox batch")
+            .register(meterRegistry);
+        TimeGauge.builder("bank.outbox.lag", this, TimeUnit.SECONDS, OutboxRelay::lagSeconds)
+            .description("Age of the oldest ledger outbox entry known to be undelivered")
+            .register(meterRegistry);
+        for (OutboxSink sink : this.sinks) {
+            sinkFailures.put(sink.name(), Counter.builder("bank.outbox.sink.failures")
+                .tag("sink", sink.name())
+                .register(meterRegistry));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (sinks.isEmpty()) {
+            throw new IllegalStateException("bank.outbox.enabled is set but there is no outbox sink; "
+                + "set bank.outbox.file-sink.path or add an OutboxSink bean.");
+        }
+        preparePartitions();
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            int first = i * partitions / threads;
+            Thread worker = new Thread(() -> work(first), "outbox-relay-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Ledger outbox relay started: {} partitions, {} threads, sinks {}", partitions, threads,
+            sinks.stream().map(OutboxSink::name).toList());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+            if (worker.isAlive()) {
+                log.warn("{} did not finish its outbox batch; it is delivered again after restart", worker.getName());
+            }
+        }
+    }
+
+    /** Undelivered entries per partition, from a count of the table. */
+    public Map<Integer, Long> pending() {
+        Map<Integer, Long> pending = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT partition_no, COUNT(*) FROM ledger_outbox GROUP BY partition_no ORDER BY partition_no",
+            rs -> { pending.put(rs.getInt(1), rs.getLong(2)); });
+        return pending;
+    }
+
+    /** Partitions backing off after a failed batch, with their consecutive failures. */
+    public Map<Integer, Integer> failing() {
+        Map<Integer, Integer> failing = new LinkedHashMap<>();
+        for (int p = 0; p < partitions; p++) {
+            if (failures.get(p) > 0) {
+                failing.put(p, failures.get(p));
+            }
+        }
+        return Collections.unmodifiableMap(failing);
+    }
+
+    public double lagSeconds() {
+        LocalDateTime now = LocalDateTime.now();
+        long lagMillis = 0;
+        for (int p = 0; p < partitions; p++) {
+            LocalDateTime oldest = oldestPending.get(p);
+            if (oldest != null) {
+                lagMillis = Math.max(lagMillis, Duration.between(oldest, now).toMillis());
+            }
+        }
+        return lagMillis / 1000.0;
+    }
+
+    // Creates the partition rows, once. The count cannot change while entries are waiting,
+    // since they were partitioned with the old one.
+    private void preparePartitions() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Integer> existing = jdbcTemplate.queryForList("SELECT partition_no FROM outbox_partitions", Integer.class);
+                if (!existing.isEmpty() && existing.size() != partitions) {
+                    Long waiting = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_outbox", Long.class);
+                    if (waiting != null && waiting > 0) {
+                        throw new IllegalStateException("The ledger outbox has " + existing.size() + " partitions but "
+                            + "bank.outbox.partitions=" + partitions + "; it can only change once the outbox is drained.");
+                    }
+                    jdbcTemplate.update("DELETE FROM outbox_partitions");
+                    existing = List.of();
+                }
+                List<Object[]> missing = new ArrayList<>();
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                for (int p = 0; p < partitions; p++) {
+                    if (!existing.contains(p)) {
+                        missing.add(new Object[] { p, now });
+                    }
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO outbox_partitions (partition_no, delivered_through, " +
+                    "delivered_count, updated_at) VALUES (?, 0, 0, ?)", missing);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created them first.
+            log.debug("Outbox partitions created concurrently", e);
+        }
+    }
+
+    private void work(int first) {
+        while (running) {
+            boolean backlog = false;
+            for (int i = 0; i < partitions && running; i++) {
+                backlog |= drain((first + i) % partitions);
+            }
+            if (!backlog) {
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Delivers one batch of the partition; true if it was full, so more are probably waiting.
+    private boolean drain(int partition) {
+        if (System.currentTimeMillis() < retryAt.get(partition)) {
+            return false;
+        }
+        int limit = limits.get(partition);
+        long started = System.nanoTime();
+        Integer count;
+        try {
+            count = transactionTemplate.execute(status -> deliverBatch(partition, limit));
+        } catch (RuntimeException e) {
+            int failed = failures.incrementAndGet(partition);
+            long backoff = Math.min(maxBackoffMillis, pollMillis << Math.min(failed, 20));
+            retryAt.set(partition, System.currentTimeMillis() + backoff);
+            limits.set(partition, batchSize);
+            log.warn("Outbox partition {} not delivered ({} failures in a row), retrying in {} ms", partition, failed,
+                backoff, e);
+            return false;
+        }
+        if (count == null || count < 0) {
+            // Another relay holds the partition.
+            return false;
+        }
+        failures.set(partition, 0);
+        if (count > 0) {
+            batches.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            delivered.increment(count);
+        }
+        boolean full = count == limit;
+        limits.set(partition, full ? Math.min(limit * 2, catchUpBatchSize) : batchSize);
+        if (!full) {
+            oldestPending.set(partition, null);
+        }
+        return full;
+    }
+
+    // Within a transaction: -1 if the partition is held elsewhere, else the entries delivered.
+    private int deliverBatch(int partition, int limit) {
+        if (jdbcTemplate.queryForList(CLAIM_SQL, Integer.class, partition).isEmpty()) {
+            return -1;
+        }
+        List<OutboxMessage> batch = jdbcTemplate.query(BATCH_SQL, OutboxRelay::message, partition, limit);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        oldestPending.set(partition, batch.get(0).createdAt());
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.deliver(batch);
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                sinkFailures.get(sink.name()).increment();
+                throw new IllegalStateException("Outbox sink " + sink.name() + " failed on " + batch.size()
+                    + " messages of partition " + partition, e);
+            }
+        }
+        for (int i = 0; i < batch.size(); i += IN_LIST_CHUNK) {
+            List<OutboxMessage> chunk = batch.subList(i, Math.min(i + IN_LIST_CHUNK, batch.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.update("DELETE FROM ledger_outbox WHERE id IN (" + placeholders + ")",
+                chunk.stream().map(OutboxMessage::id).toArray());
+        }
+        OutboxMessage last = batch.get(batch.size() - 1);
+        jdbcTemplate.update(PROGRESS_SQL, last.id(), batch.size(), Timestamp.valueOf(LocalDateTime.now()), partition);
+        if (batch.size() == limit) {
+            // The rest of the backlog is newer than the last entry delivered.
+            oldestPending.set(partition, last.createdAt());
+        }
+        return batch.size();
+    }
+
+    private static OutboxMessage message(ResultSet rs, int row) throws SQLException {
+        return new OutboxMessage(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getString(4),
+            Money.of(rs.getBigDecimal(5)), rs.getObject(6, LocalDateTime.class),
+            rs.getBigDecimal(7) != null ? Money.of(rs.getBigDecimal(7)) : null, rs.getObject(8, LocalDateTime.class));
+    }
+}
@@ -0,0 +1,22 @@
+package com.bank.outbox;
+
+import java.util.List;
+
+/**
+ * A downstream consumer of the ledger outbox. Every bean of this type receives every
+ * message once the outbox is enabled.
+ *
+ * <p>A batch holds the messages of one outbox partition in order, so an account's messages
+ * arrive in the order its transactions committed. Batches of different partitions are
+ * delivered concurrently, one relay thread each. Delivery is at least once: if any sink
+ * throws, the batch stays in the outbox and is delivered to every sink again after a
+ * backoff. A sink that cannot keep up may simply block; the relay waits for it and the
+ * backlog stays in the outbox table.
+ */
+public interface OutboxSink {
+
+    /** Name used in logs and metric tags. */
+    String name();
+
+    void deliver(List<OutboxMessage> batch) throws Exception;
+}
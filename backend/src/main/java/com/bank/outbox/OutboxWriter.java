@@ -0,0 +1,62 @@
+package com.bank.outbox;
+
+import com.bank.model.TransactionEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds ledger rows to the outbox within the caller's transaction, as one JDBC batch. Each
+ * entry takes its id from the sequence in the INSERT itself, while the caller still holds
+ * the account's row lock; that id is the order in which the relay delivers an account's
+ * entries. Does nothing unless {@code bank.outbox.enabled} is set.
+ */
+@Component
+public class OutboxWriter {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO ledger_outbox (id, partition_no, account_id, transaction_id, type, amount, transaction_date, " +
+        "balance_after_transaction, created_at) VALUES (ledger_outbox_sequence.NEXTVAL, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] INSERT_TYPES = { Types.INTEGER, Types.BIGINT, Types.BIGINT, Types.VARCHAR,
+        Types.NUMERIC, Types.TIMESTAMP, Types.NUMERIC, Types.TIMESTAMP };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int partitions;
+
+    public OutboxWriter(JdbcTemplate jdbcTemplate,
+                        @Value("${bank.outbox.enabled:false}") boolean enabled,
+                        @Value("${bank.outbox.partitions:16}") int partitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.partitions = Math.max(1, partitions);
+    }
+
+    /** Rows must have their ids, and an account's rows must be in the order they were applied. */
+    public void append(List<TransactionEntity> rows) {
+        if (!enabled || rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> entries = new ArrayList<>(rows.size());
+        for (TransactionEntity tx : rows) {
+            Long accountId = tx.getAccount().getId();
+            BigDecimal balanceAfter = tx.getBalanceAfterTransaction() != null
+                ? tx.getBalanceAfterTransaction().toBigDecimal() : null;
+            entries.add(new Object[] { partitionOf(accountId, partitions), accountId, tx.getId(), tx.getType(),
+                tx.getAmount().toBigDecimal(), Timestamp.valueOf(tx.getTransactionDate()), balanceAfter, now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, INSERT_TYPES);
+    }
+
+    private static int partitionOf(long accountId, int partitions) {
+        return (int) Math.floorMod(accountId, (long) partitions);
+    }
+}
@@ -0,0 +1,37 @@
+package com.bank.report;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Operator commands for the end-of-day totals: read a day's progress, run a day (resuming
+ * an unfinished run) or, with {@code recompute=true}, compute it again from scratch. The
+ * date defaults to yesterday. Not exposed over HTTP by default, like the other operator
+ * endpoints.
+ */
+@Component
+@Endpoint(id = "endofday")
+public class EndOfDayEndpoint {
+
+    private final EndOfDayTotalsJob job;
+
+    public EndOfDayEndpoint(EndOfDayTotalsJob job) {
+        this.job = job;
+    }
+
+    @ReadOperation
+    public EndOfDayResult status(@Nullable LocalDate date) {
+        return job.status(date != null ? date : LocalDate.now().minusDays(1));
+    }
+
+    @WriteOperation
+    public EndOfDayResult run(@Nullable LocalDate date, @Nullable Boolean recompute) {
+        LocalDate day = date != null ? date : LocalDate.now().minusDays(1);
+        return Boolean.TRUE.equals(recompute) ? job.recompute(day) : job.run(day);
+    }
+}
@@ -0,0 +1,23 @@
+package com.bank.report;
+
+import com.bank.model.Money;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Progress of the end-of-day totals of one business day. {@code totals} is filled in once
+ * every partition is complete; {@code aggregated} and {@code millis} describe the last run.
+ */
+public record EndOfDayResult(LocalDate businessDate,
+                             int partitions,
+                             int completed,
+                             int aggregated,
+                             long transactions,
+                             long accounts,
+                             long millis,
+                             List<TypeTotal> totals) {
+
+    public record TypeTotal(String type, Money amount, long transactions) {
+    }
+}
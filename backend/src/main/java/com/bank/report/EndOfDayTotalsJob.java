@@ -0,0 +1,358 @@
+package com.bank.report;
+
+import com.bank.archive.LedgerArchive;
+import com.bank.model.DailyBankTotal;
+import com.bank.model.DailyTotalsPartition;
+import com.bank.model.Money;
+import com.bank.repository.AccountRepository;
+import com.bank.repository.DailyBankTotalRepository;
+import com.bank.repository.DailyTotalsPartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Computes per-account and bank-wide totals by transaction type for one business day.
+ *
+ * <p>The account id space is split into {@code bank.eod.partitions} ranges, recorded as
+ * partition rows the first time a day is run. A fork-join pool aggregates the ranges in
+ * parallel; each range is one transaction that streams a grouped, forward-only cursor over
+ * the day's rows, adds any archived rows of the range (see {@link LedgerArchive}), writes
+ * the account totals in batches as they arrive, stores the range's partial totals and marks
+ * the partition complete. A failed or interrupted run therefore resumes with the partitions
+ * that are not complete. Bank-wide totals are merged from the
+ * partial totals once all partitions are done.
+ *
+ * <p>Each worker holds a pooled connection for the length of its partition, so the
+ * parallelism defaults to the smaller of the processor count and half the pool.
+ */
+@Service
+public class EndOfDayTotalsJob {
+
+    private static final Logger log = LoggerFactory.getLogger(EndOfDayTotalsJob.class);
+
+    private static final String AGGREGATE_SQL =
+        "SELECT account_id, type, SUM(amount), COUNT(*) FROM transactions " +
+        "WHERE account_id BETWEEN ? AND ? AND transaction_date >= ? AND transaction_date < ? " +
+        "GROUP BY account_id, type ORDER BY account_id";
+    private static final String INSERT_ACCOUNT_TOTAL =
+        "INSERT INTO daily_account_totals (business_date, account_id, type, amount, tx_count) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_PARTITION_TOTAL =
+        "INSERT INTO daily_partition_totals (business_date, partition_no, type, amount, tx_count) VALUES (?, ?, ?, ?, ?)";
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountRepository accountRepo;
+    private final DailyTotalsPartitionRepository partitionRepo;
+    private final DailyBankTotalRepository bankTotalRepo;
+    private final LedgerArchive archive;
+    private final int partitions;
+    private final int parallelism;
+    private final int fetchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public EndOfDayTotalsJob(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             AccountRepository accountRepo,
+                             DailyTotalsPartitionRepository partitionRepo,
+                             DailyBankTotalRepository bankTotalRepo,
+                             LedgerArchive archive,
+                             @Value("${bank.eod.partitions:64}") int partitions,
+                             @Value("${bank.eod.parallelism:0}") int parallelism,
+                             @Value("${bank.eod.fetch-size:1000}") int fetchSize,
+                             @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.accountRepo = accountRepo;
+        this.partitionRepo = partitionRepo;
+        this.bankTotalRepo = bankTotalRepo;
+        this.archive = archive;
+        this.partitions = Math.max(1, partitions);
+        this.parallelism = parallelism > 0 ? parallelism
+            : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), poolSize / 2));
+        this.fetchSize = fetchSize;
+    }
+
+    /** Runs for yesterday; the cron should leave time for the day's last rows to commit. */
+    @Scheduled(cron = "${bank.eod.cron:0 30 0 * * *}")
+    public void scheduledRun() {
+        try {
+            run(LocalDate.now().minusDays(1));
+        } catch (RuntimeException e) {
+            log.warn("End-of-day totals run failed; the next run resumes with the unfinished partitions", e);
+        }
+    }
+
+    /**
+     * Computes the day's totals, resuming a previous run of the same day if there was one.
+     * A day that is already complete is not recomputed; see {@link #recompute}.
+     */
+    public EndOfDayResult run(LocalDate day) {
+        return exclusively(() -> execute(day));
+    }
+
+    /** Deletes the day's totals and partitions and runs it again from scratch. */
+    public EndOfDayResult recompute(LocalDate day) {
+        return exclusively(() -> {
+            transactionTemplate.executeWithoutResult(status -> {
+                Date date = Date.valueOf(day);
+                jdbcTemplate.update("DELETE FROM daily_account_totals WHERE business_date = ?", date);
+                jdbcTemplate.update("DELETE FROM daily_partition_totals WHERE business_date = ?", date);
+                jdbcTemplate.update("DELETE FROM daily_bank_totals WHERE business_date = ?", date);
+                partitionRepo.deleteByDate(day);
+            });
+            return execute(day);
+        });
+    }
+
+    /** The day's progress and, once complete, its bank-wide totals. */
+    public EndOfDayResult status(LocalDate day) {
+        return result(day, 0, 0);
+    }
+
+    private EndOfDayResult exclusively(Supplier<EndOfDayResult> action) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An end-of-day totals run is already in progress.");
+        }
+        try {
+            return action.get();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private EndOfDayResult execute(LocalDate day) {
+        long started = System.nanoTime();
+        List<DailyTotalsPartition> plan = plan(day);
+        List<DailyTotalsPartition> pending = plan.stream().filter(p -> p.getCompletedAt() == null).toList();
+        if (!pending.isEmpty()) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("eod-totals-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+            try {
+                pool.invoke(new PartitionTask(pending, 0, pending.size()));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        // Cheap, and also completes a run that stopped after its last partition.
+        merge(day);
+        EndOfDayResult result = result(day, pending.size(), (System.nanoTime() - started) / 1_000_000);
+        if (!pending.isEmpty()) {
+            log.info("End-of-day totals for {}: {} of {} partitions aggregated, {} transactions of {} accounts in {} ms",
+                day, pending.size(), plan.size(), result.transactions(), result.accounts(), result.millis());
+        }
+        return result;
+    }
+
+    // Splits the partitions in halves until one is left, which it aggregates.
+    private final class PartitionTask extends RecursiveAction {
+        private final List<DailyTotalsPartition> partitions;
+        private final int from;
+        private final int to;
+
+        PartitionTask(List<DailyTotalsPartition> partitions, int from, int to) {
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                aggregate(partitions.get(from));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PartitionTask(partitions, from, middle), new PartitionTask(partitions, middle, to));
+        }
+    }
+
+    private List<DailyTotalsPartition> plan(LocalDate day) {
+        return transactionTemplate.execute(status -> {
+            List<DailyTotalsPartition> existing = partitionRepo.findByBusinessDateOrderByPartitionNo(day);
+            if (!existing.isEmpty()) {
+                return existing;
+            }
+            Long maxId = accountRepo.findMaxId();
+            long span = (maxId != null ? maxId : 0) + 1;
+            int count = (int) Math.min(partitions, span);
+            long width = (span + count - 1) / count;
+            List<DailyTotalsPartition> plan = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                DailyTotalsPartition partition = new DailyTotalsPartition();
+                partition.setBusinessDate(day);
+                partition.setPartitionNo(i);
+                partition.setFirstAccountId(i * width);
+                // The last range is open-ended, for accounts opened after the plan was made.
+                partition.setLastAccountId(i == count - 1 ? Long.MAX_VALUE : (i + 1) * width - 1);
+                plan.add(partition);
+            }
+            return partitionRepo.saveAll(plan);
+        });
+    }
+
+    private void aggregate(DailyTotalsPartition planned) {
+        LocalDate day = planned.getBusinessDate();
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        transactionTemplate.executeWithoutResult(status -> {
+            DailyTotalsPartition partition = partitionRepo.findForUpdate(day, planned.getPartitionNo()).orElseThrow();
+            if (partition.getCompletedAt() != null) {
+                return;
+            }
+            Date date = Date.valueOf(day);
+            int[] attempts = { 0 };
+            PartitionTotals totals = archive.read(partition.getFirstAccountId(), partition.getLastAccountId(), from, to,
+                archived -> {
+                    if (attempts[0]++ > 0) {
+                        // The archive changed under the previous attempt; its account totals are discarded.
+                        jdbcTemplate.update("DELETE FROM daily_account_totals WHERE business_date = ? " +
+                            "AND account_id BETWEEN ? AND ?", date, partition.getFirstAccountId(), partition.getLastAccountId());
+                    }
+                    return aggregate(partition, date, from, to, archived.isEmpty() ? new TreeMap<>()
+                        : archived.sumByAccountAndType(from, to, partition.getFirstAccountId(), partition.getLastAccountId()));
+                });
+
+            List<Object[]> partials = new ArrayList<>(totals.byType.size());
+            long transactions = 0;
+            for (Map.Entry<String, long[]> e : totals.byType.entrySet()) {
+                partials.add(new Object[] { date, partition.getPartitionNo(), e.getKey(),
+                    BigDecimal.valueOf(e.getValue()[0], Money.SCALE), e.getValue()[1] });
+                transactions += e.getValue()[1];
+            }
+            jdbcTemplate.batchUpdate(INSERT_PARTITION_TOTAL, partials);
+            partition.setTxCount(transactions);
+            partition.setAccountCount(totals.accounts);
+            partition.setCompletedAt(LocalDateTime.now());
+        });
+    }
+
+    // Streams the partition's rows, adds the archived totals of the same accounts and types
+    // (rarely any: a day is archived months after it ended) and writes the account totals.
+    private PartitionTotals aggregate(DailyTotalsPartition partition, Date date, LocalDateTime from, LocalDateTime to,
+                                      NavigableMap<Long, Map<String, long[]>> archived) {
+        PartitionTotals totals = new PartitionTotals(date);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(AGGREGATE_SQL);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, partition.getFirstAccountId());
+            statement.setLong(2, partition.getLastAccountId());
+            statement.setTimestamp(3, Timestamp.valueOf(from));
+            statement.setTimestamp(4, Timestamp.valueOf(to));
+            return statement;
+        }, rs -> {
+            long accountId = rs.getLong(1);
+            String type = rs.getString(2);
+            long amount = Money.of(rs.getBigDecimal(3)).getMinorUnits();
+            long count = rs.getLong(4);
+            totals.addArchived(archived.headMap(accountId, false));
+            Map<String, long[]> archivedTypes = archived.get(accountId);
+            long[] archivedTotal = archivedTypes != null ? archivedTypes.remove(type) : null;
+            if (archivedTotal != null) {
+                amount += archivedTotal[0];
+                count += archivedTotal[1];
+            }
+            totals.add(accountId, type, amount, count);
+        });
+        totals.addArchived(archived);
+        totals.flush();
+        return totals;
+    }
+
+    // Account totals of one partition, written in batches in ascending account order.
+    private final class PartitionTotals {
+        final Map<String, long[]> byType = new TreeMap<>();
+        final List<Object[]> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+        final Date date;
+        long accounts;
+        long lastAccountId = Long.MIN_VALUE;
+
+        PartitionTotals(Date date) {
+            this.date = date;
+        }
+
+        void add(long accountId, String type, long amount, long count) {
+            if (accountId != lastAccountId) {
+                accounts++;
+                lastAccountId = accountId;
+            }
+            long[] typeTotal = byType.computeIfAbsent(type, t -> new long[2]);
+            typeTotal[0] += amount;
+            typeTotal[1] += count;
+            batch.add(new Object[] { date, accountId, type, BigDecimal.valueOf(amount, Money.SCALE), count });
+            if (batch.size() == WRITE_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        // Adds the archived totals left in the map, which it empties.
+        void addArchived(Map<Long, Map<String, long[]>> archived) {
+            for (Map.Entry<Long, Map<String, long[]>> account : archived.entrySet()) {
+                for (Map.Entry<String, long[]> type : account.getValue().entrySet()) {
+                    add(account.getKey(), type.getKey(), type.getValue()[0], type.getValue()[1]);
+                }
+            }
+            archived.clear();
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ACCOUNT_TOTAL, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void merge(LocalDate day) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Date date = Date.valueOf(day);
+            jdbcTemplate.update("DELETE FROM daily_bank_totals WHERE business_date = ?", date);
+            jdbcTemplate.update("INSERT INTO daily_bank_totals (business_date, type, amount, tx_count) " +
+                "SELECT business_date, type, SUM(amount), SUM(tx_count) FROM daily_partition_totals " +
+                "WHERE business_date = ? GROUP BY business_date, type", date);
+        });
+    }
+
+    private EndOfDayResult result(LocalDate day, int aggregated, long millis) {
+        List<DailyTotalsPartition> plan = partitionRepo.findByBusinessDateOrderByPartitionNo(day);
+        int completed = 0;
+        long transactions = 0;
+        long accounts = 0;
+        for (DailyTotalsPartition partition : plan) {
+            if (partition.getCompletedAt() != null) {
+                completed++;
+                transactions += partition.getTxCount();
+                accounts += partition.getAccountCount();
+            }
+        }
+        List<DailyBankTotal> totals = completed == plan.size() && !plan.isEmpty()
+            ? bankTotalRepo.findByBusinessDateOrderByType(day) : List.of();
+        return new EndOfDayResult(day, plan.size(), completed, aggregated, transactions, accounts, millis,
+            totals.stream().map(t -> new EndOfDayResult.TypeTotal(t.getType(), t.getAmount(), t.getTxCount())).toList());
+    }
+}
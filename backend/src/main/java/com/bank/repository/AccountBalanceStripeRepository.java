@@ -0,0 +1,41 @@
+package com.bank.repository;
+
+import com.bank.model.AccountBalanceStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceStripeRepository extends JpaRepository<AccountBalanceStripe, AccountBalanceStripe.Key> {
+
+    /** Locks the account's stripes and returns them as [stripe_no, balance], in stripe order. */
+    @Query(value = "SELECT stripe_no, balance FROM account_balance_stripes WHERE account_id = :accountId " +
+                   "ORDER BY stripe_no FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockStripes(@Param("accountId") Long accountId);
+
+    /** @return the number of rows updated (0 if the stripe does not exist). */
+    @Modifying
+    @Query(value = "UPDATE account_balance_stripes SET balance = balance + :amount " +
+                   "WHERE account_id = :accountId AND stripe_no = :stripeNo", nativeQuery = true)
+    int credit(@Param("accountId") Long accountId, @Param("stripeNo") int stripeNo, @Param("amount") BigDecimal amount);
+
+    /** @return the number of rows updated (0 if the stripe does not exist or does not cover the amount). */
+    @Modifying
+    @Query(value = "UPDATE account_balance_stripes SET balance = balance - :amount " +
+                   "WHERE account_id = :accountId AND stripe_no = :stripeNo AND balance >= :amount", nativeQuery = true)
+    int debit(@Param("accountId") Long accountId, @Param("stripeNo") int stripeNo, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "UPDATE account_balance_stripes SET balance = :balance " +
+                   "WHERE account_id = :accountId AND stripe_no = :stripeNo", nativeQuery = true)
+    int setBalance(@Param("accountId") Long accountId, @Param("stripeNo") int stripeNo, @Param("balance") BigDecimal balance);
+
+    @Modifying
+    @Query(value = "DELETE FROM account_balance_stripes WHERE account_id = :accountId", nativeQuery = true)
+    int deleteByAccount(@Param("accountId") Long accountId);
+}
@@ -1,9 +1,75 @@
 package com.bank.repository;
 
+import com.bank.dto.AccountSummary;
 import com.bank.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
-}
\ No newline at end of file
+
+    /** Every account as [id, balance], for loading in-memory ledger state. */
+    @Query("SELECT a.id, a.balance FROM Account a")
+    Stream<Object[]> streamAllBalances();
+
+    @Query("SELECT new com.bank.dto.AccountSummary(a.id, a.balance, " +
+           "(SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceStripe s WHERE s.accountId = a.id), " +
+           "a.creationDate) FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<AccountSummary> findSummaries(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT MAX(a.id) FROM Account a")
+    Long findMaxId();
+
+    /** The whole balance, including the stripes of a hot account. */
+    @Query(value = "SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_stripes s " +
+                   "WHERE s.account_id = a.id), 0) FROM accounts a WHERE a.id = :id", nativeQuery = true)
+    Optional<BigDecimal> findBalanceById(@Param("id") Long id);
+
+    /** Hot accounts as [id, stripe count]. */
+    @Query("SELECT a.id, a.balanceStripes FROM Account a WHERE a.balanceStripes IS NOT NULL")
+    List<Object[]> findStriped();
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balanceStripes = :stripes WHERE a.id = :id")
+    int setBalanceStripes(@Param("id") Long id, @Param("stripes") Integer stripes);
+
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = :balance WHERE id = :id", nativeQuery = true)
+    int setBalance(@Param("id") Long id, @Param("balance") BigDecimal balance);
+
+    /**
+     * Locks the account row and returns its balance, or empty if there is no such account.
+     * One row per statement: a multi-row SELECT ... FOR UPDATE locks in the order of its
+     * access path, not of its ORDER BY, so only separate statements lock in id order.
+     */
+    @Query(value = "SELECT balance FROM accounts WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<BigDecimal> lockBalance(@Param("id") Long id);
+
+    // The balance mutations are native so the amount is bound as-is; JPQL arithmetic on a
+    // BigDecimal parameter makes Hibernate emit a cast that some dialects reject.
+
+    /**
+     * Adds {@code amount} to the balance in a single statement, taking the row lock.
+     * @return the number of rows updated (0 if the account does not exist).
+     */
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance + :amount WHERE id = :id", nativeQuery = true)
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Subtracts {@code amount} from the balance only if the balance covers it.
+     * @return the number of rows updated (0 if the account does not exist or has insufficient funds).
+     */
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance - :amount WHERE id = :id AND balance >= :amount", nativeQuery = true)
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+}
@@ -0,0 +1,20 @@
+package com.bank.repository;
+
+import com.bank.model.BalanceCheckpointCursor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointCursorRepository extends JpaRepository<BalanceCheckpointCursor, Integer> {
+
+    /** Locks the cursor row until the transaction ends, so one job instance writes at a time. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM BalanceCheckpointCursor c WHERE c.id = :id")
+    Optional<BalanceCheckpointCursor> findForUpdate(@Param("id") Integer id);
+}
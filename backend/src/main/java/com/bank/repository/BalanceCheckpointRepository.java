@@ -0,0 +1,60 @@
+package com.bank.repository;
+
+import com.bank.model.BalanceCheckpoint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+
+    /** The account's checkpoints of a period type starting before {@code before}, newest first. */
+    @Query("SELECT c FROM BalanceCheckpoint c " +
+           "WHERE c.accountId = :accountId AND c.period = :period AND c.periodStart < :before " +
+           "ORDER BY c.periodStart DESC")
+    List<BalanceCheckpoint> findLatestBefore(@Param("accountId") Long accountId,
+                                             @Param("period") BalanceCheckpoint.Period period,
+                                             @Param("before") LocalDate before,
+                                             Pageable limit);
+
+    /**
+     * For each account in the id range that has one, its latest checkpoint of a period type
+     * starting before {@code before}. One unique-index probe per account.
+     */
+    @Query("SELECT c FROM BalanceCheckpoint c " +
+           "WHERE c.accountId BETWEEN :firstAccountId AND :lastAccountId AND c.period = :period " +
+           "AND c.periodStart = (SELECT MAX(p.periodStart) FROM BalanceCheckpoint p " +
+           "WHERE p.accountId = c.accountId AND p.period = :period AND p.periodStart < :before)")
+    List<BalanceCheckpoint> findLatestBefore(@Param("firstAccountId") Long firstAccountId,
+                                             @Param("lastAccountId") Long lastAccountId,
+                                             @Param("period") BalanceCheckpoint.Period period,
+                                             @Param("before") LocalDate before);
+
+    /** Same as above for a list of accounts; at most 1000 ids (Oracle's IN limit). */
+    @Query("SELECT c FROM BalanceCheckpoint c " +
+           "WHERE c.accountId IN :accountIds AND c.period = :period " +
+           "AND c.periodStart = (SELECT MAX(p.periodStart) FROM BalanceCheckpoint p " +
+           "WHERE p.accountId = c.accountId AND p.period = :period AND p.periodStart < :before)")
+    List<BalanceCheckpoint> findLatestBefore(@Param("accountIds") Collection<Long> accountIds,
+                                             @Param("period") BalanceCheckpoint.Period period,
+                                             @Param("before") LocalDate before);
+
+    /** At most 1000 ids. */
+    List<BalanceCheckpoint> findByPeriodAndPeriodStartAndAccountIdIn(BalanceCheckpoint.Period period,
+                                                                     LocalDate periodStart,
+                                                                     Collection<Long> accountIds);
+
+    @Query("SELECT c FROM BalanceCheckpoint c " +
+           "WHERE c.accountId = :accountId AND c.period = :period " +
+           "AND c.periodStart >= :from AND c.periodStart <= :to")
+    List<BalanceCheckpoint> findInRange(@Param("accountId") Long accountId,
+                                        @Param("period") BalanceCheckpoint.Period period,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+}
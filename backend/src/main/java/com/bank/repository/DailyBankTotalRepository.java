@@ -0,0 +1,14 @@
+package com.bank.repository;
+
+import com.bank.model.DailyBankTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyBankTotalRepository extends JpaRepository<DailyBankTotal, DailyBankTotal.Key> {
+
+    List<DailyBankTotal> findByBusinessDateOrderByType(LocalDate businessDate);
+}
@@ -0,0 +1,30 @@
+package com.bank.repository;
+
+import com.bank.model.DailyTotalsPartition;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyTotalsPartitionRepository extends JpaRepository<DailyTotalsPartition, DailyTotalsPartition.Key> {
+
+    List<DailyTotalsPartition> findByBusinessDateOrderByPartitionNo(LocalDate businessDate);
+
+    /** Locks the partition until the transaction ends, so one worker aggregates it at a time. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM DailyTotalsPartition p WHERE p.businessDate = :date AND p.partitionNo = :partitionNo")
+    Optional<DailyTotalsPartition> findForUpdate(@Param("date") LocalDate businessDate,
+                                                 @Param("partitionNo") Integer partitionNo);
+
+    @Modifying
+    @Query("DELETE FROM DailyTotalsPartition p WHERE p.businessDate = :date")
+    int deleteByDate(@Param("date") LocalDate businessDate);
+}
@@ -0,0 +1,38 @@
+package com.bank.repository;
+
+import com.bank.model.LedgerSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LedgerSegmentRepository extends JpaRepository<LedgerSegment, Long> {
+
+    /**
+     * Segments holding rows of accounts in the id range dated in [from, to), oldest month
+     * first. The catalog is small: one row per account range and month.
+     */
+    @Query("SELECT s FROM LedgerSegment s " +
+           "WHERE s.firstAccountId <= :lastAccountId AND s.lastAccountId >= :firstAccountId " +
+           "AND s.lastTransactionDate >= :from AND s.firstTransactionDate < :to " +
+           "ORDER BY s.month, s.id")
+    List<LedgerSegment> findOverlapping(@Param("firstAccountId") Long firstAccountId,
+                                        @Param("lastAccountId") Long lastAccountId,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+
+    boolean existsByFileName(String fileName);
+
+    /** One row: {segments, rows, bytes} of the whole archive. */
+    @Query("SELECT COUNT(s), COALESCE(SUM(s.rowCount), 0), COALESCE(SUM(s.fileSize), 0) FROM LedgerSegment s")
+    List<Object[]> summarize();
+
+    /** The first day of the newest archived month, or null if nothing is archived. */
+    @Query("SELECT MAX(s.month) FROM LedgerSegment s")
+    LocalDate findLatestMonth();
+}
@@ -1,12 +1,99 @@
 package com.bank.repository;
 
+import com.bank.dto.TransactionView;
 import com.bank.model.TransactionEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<TransactionEntity, Long> {
-    List<TransactionEntity> findByAccount_Id(Long accountId);
+    /** One row: the account's highest transaction id (0 if none) and its number of transactions. */
+    @Query("SELECT COALESCE(MAX(t.id), 0), COUNT(t) FROM TransactionEntity t WHERE t.account.id = :accountId")
+    List<Object[]> findVersion(@Param("accountId") Long accountId);
+
+    /**
+     * Rows strictly older than the (cursorDate, cursorId) position, newest first.
+     * Walks idx_tx_account_date_id backwards, so the cost depends only on the page size.
+     */
+    @Query("SELECT new com.bank.dto.TransactionView(t.id, t.type, t.amount, t.transactionDate, t.balanceAfterTransaction) " +
+           "FROM TransactionEntity t " +
+           "WHERE t.account.id = :accountId " +
+           "AND t.transactionDate >= :from AND t.transactionDate < :to " +
+           "AND (:type IS NULL OR t.type = :type) " +
+           "AND (t.transactionDate < :cursorDate OR (t.transactionDate = :cursorDate AND t.id < :cursorId)) " +
+           "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionView> findOlderThan(@Param("accountId") Long accountId,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to,
+                                        @Param("type") String type,
+                                        @Param("cursorDate") LocalDateTime cursorDate,
+                                        @Param("cursorId") Long cursorId,
+                                        Pageable limit);
+
+    /**
+     * Rows strictly newer than the (cursorDate, cursorId) position, oldest first.
+     */
+    @Query("SELECT new com.bank.dto.TransactionView(t.id, t.type, t.amount, t.transactionDate, t.balanceAfterTransaction) " +
+           "FROM TransactionEntity t " +
+           "WHERE t.account.id = :accountId " +
+           "AND t.transactionDate >= :from AND t.transactionDate < :to " +
+           "AND (:type IS NULL OR t.type = :type) " +
+           "AND (t.transactionDate > :cursorDate OR (t.transactionDate = :cursorDate AND t.id > :cursorId)) " +
+           "ORDER BY t.transactionDate ASC, t.id ASC")
+    List<TransactionView> findNewerThan(@Param("accountId") Long accountId,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to,
+                                        @Param("type") String type,
+                                        @Param("cursorDate") LocalDateTime cursorDate,
+                                        @Param("cursorId") Long cursorId,
+                                        Pageable limit);
+
+    /**
+     * Full history of an account, oldest first, as a forward-only cursor.
+     * The caller must consume the stream inside a transaction and close it.
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.bank.dto.TransactionView(t.id, t.type, t.amount, t.transactionDate, t.balanceAfterTransaction) " +
+           "FROM TransactionEntity t " +
+           "WHERE t.account.id = :accountId " +
+           "ORDER BY t.transactionDate ASC, t.id ASC")
+    Stream<TransactionView> streamByAccountId(@Param("accountId") Long accountId);
+
+    /**
+     * Money in, money out and row count per account, for rows dated in [from, to) of the
+     * accounts in the id range. Each row is {accountId, credits, debits, count}; the sums are
+     * plain decimals.
+     */
+    @Query("SELECT t.account.id, " +
+           "COALESCE(SUM(CASE WHEN t.type IN ('DEPOSIT', 'TRANSFER_IN') THEN t.amount END), 0), " +
+           "COALESCE(SUM(CASE WHEN t.type IN ('WITHDRAW', 'TRANSFER_OUT') THEN t.amount END), 0), " +
+           "COUNT(t) " +
+           "FROM TransactionEntity t " +
+           "WHERE t.transactionDate >= :from AND t.transactionDate < :to " +
+           "AND t.account.id BETWEEN :firstAccountId AND :lastAccountId " +
+           "GROUP BY t.account.id")
+    List<Object[]> sumByAccount(@Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to,
+                                @Param("firstAccountId") Long firstAccountId,
+                                @Param("lastAccountId") Long lastAccountId);
+
+    /** Date of the oldest row dated at or after {@code from}, or null. */
+    @Query("SELECT MIN(t.transactionDate) FROM TransactionEntity t WHERE t.transactionDate >= :from")
+    LocalDateTime findFirstTransactionDateFrom(@Param("from") LocalDateTime from);
 }
@@ -1,12 +1,47 @@
 package com.bank.repository;
 
+import com.bank.dto.DashboardRow;
 import com.bank.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
+
+    /**
+     * One row per account of the user as [userId, accountId]; a user without
+     * accounts yields a single row with a null accountId.
+     */
+    @Query("SELECT u.id, a.id FROM User u LEFT JOIN u.accounts a WHERE u.email = :email")
+    List<Object[]> findAccountIdsByEmail(@Param("email") String email);
+
+    /**
+     * Dashboard data for one user in a single round trip: each account with its
+     * last transaction date and money in/out since {@code since}. Only rows newer than
+     * {@code since} are joined; the last date is an index lookup per account.
+     */
+    @Query("SELECT new com.bank.dto.DashboardRow(u.name, a.id, a.balance, " +
+           "(SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceStripe s WHERE s.accountId = a.id), a.creationDate, " +
+           "(SELECT MAX(t2.transactionDate) FROM TransactionEntity t2 WHERE t2.account = a), " +
+           "COALESCE(SUM(CASE WHEN t.type IN ('DEPOSIT', 'TRANSFER_IN') THEN t.amount END), 0), " +
+           "COALESCE(SUM(CASE WHEN t.type IN ('WITHDRAW', 'TRANSFER_OUT') THEN t.amount END), 0)) " +
+           "FROM User u " +
+           "LEFT JOIN u.accounts a " +
+           "LEFT JOIN TransactionEntity t ON t.account = a AND t.transactionDate >= :since " +
+           "WHERE u.email = :email " +
+           "GROUP BY u.name, a.id, a.balance, a.creationDate " +
+           "ORDER BY a.id")
+    List<DashboardRow> findDashboardRows(@Param("email") String email, @Param("since") LocalDateTime since);
 }
@@ -0,0 +1,253 @@
+package com.bank.schema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the schema up to date from versioned scripts before JPA or JDBC use it, in place
+ * of Hibernate's schema diffing. Scripts are {@code V<version>__<description>.sql} under
+ * bank.schema.locations, applied in version order and recorded with their checksum in
+ * {@code schema_history}; a script changed after it was applied fails the startup.
+ *
+ * <p>Instances starting together take turns: each holds a row lock on the history table's
+ * version 0 row on a second connection while it migrates, and the lock goes with the
+ * connection if the instance dies. A database that already has the tables but no history
+ * (created with ddl-auto=update) is recorded at version 1 without running it. That is
+ * decided under the lock, from the history's rows, so it holds whoever created the history
+ * table and however far an earlier start got.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.schema.migrate", havingValue = "true", matchIfMissing = true)
+public class SchemaMigrations implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String HISTORY_TABLE = "SCHEMA_HISTORY";
+    // A table of the baseline; its presence without a history means a pre-migrations database.
+    private static final String BASELINE_TABLE = "USERS";
+    private static final int BASELINE_VERSION = 1;
+    private static final int LOCK_VERSION = 0;
+
+    private record Migration(int version, String description, long checksum, Resource script) { }
+
+    private final DataSource dataSource;
+    private final String locations;
+    private int currentVersion;
+    private int applied;
+
+    public SchemaMigrations(DataSource dataSource,
+                            @Value("${bank.schema.locations:classpath:db/migration}") String locations) {
+        this.dataSource = dataSource;
+        this.locations = locations;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException, IOException {
+        long started = System.nanoTime();
+        List<Migration> migrations = load();
+        try (Connection lock = dataSource.getConnection(); Connection work = dataSource.getConnection()) {
+            work.setAutoCommit(true);
+            createHistoryTable(work);
+
+            lock.setAutoCommit(false);
+            try {
+                lock(lock);
+                baselineIfNeeded(work, migrations);
+                migrate(work, migrations);
+                lock.commit();
+            } catch (SQLException | RuntimeException e) {
+                lock.rollback();
+                throw e;
+            }
+        }
+        log.info("Schema at version {}, {} migration(s) applied in {} ms", currentVersion, applied,
+            (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** @return the version the schema is at. */
+    public int getCurrentVersion() {
+        return currentVersion;
+    }
+
+    private void migrate(Connection work, List<Migration> migrations) throws SQLException {
+        TreeMap<Integer, Long> history = new TreeMap<>();
+        try (Statement statement = work.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT version, checksum FROM schema_history WHERE version > " + LOCK_VERSION)) {
+            while (rs.next()) {
+                history.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        Map<Integer, Migration> byVersion = new TreeMap<>();
+        migrations.forEach(m -> byVersion.put(m.version(), m));
+        for (Map.Entry<Integer, Long> entry : history.entrySet()) {
+            Migration migration = byVersion.get(entry.getKey());
+            if (migration == null) {
+                throw new IllegalStateException("Schema version " + entry.getKey() + " was applied but its script is missing.");
+            }
+            if (migration.checksum() != entry.getValue()) {
+                throw new IllegalStateException("Migration " + migration.script().getFilename()
+                    + " was changed after it was applied.");
+            }
+        }
+        int latest = history.isEmpty() ? 0 : history.lastKey();
+        for (Migration migration : migrations) {
+            if (history.containsKey(migration.version())) {
+                continue;
+            }
+            if (migration.version() < latest) {
+                throw new IllegalStateException("Migration " + migration.script().getFilename()
+                    + " is older than the applied version " + latest + ".");
+            }
+            long started = System.nanoTime();
+            // On Oracle each DDL statement commits, so a failed script is not rolled back;
+            // it has to be repaired by hand before the next start.
+            ScriptUtils.executeSqlScript(work, migration.script());
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            record(work, migration, migration.description(), millis);
+            log.info("Applied {} in {} ms", migration.script().getFilename(), millis);
+            latest = migration.version();
+            applied++;
+        }
+        currentVersion = latest;
+    }
+
+    /** Records the baseline for a schema that has tables but nothing applied; called under the lock. */
+    private void baselineIfNeeded(Connection work, List<Migration> migrations) throws SQLException {
+        try (Statement statement = work.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT COUNT(*) FROM schema_history WHERE version > " + LOCK_VERSION)) {
+            rs.next();
+            if (rs.getLong(1) > 0 || !tableExists(work, BASELINE_TABLE)) {
+                return;
+            }
+        }
+        Migration baseline = migrations.stream()
+            .filter(m -> m.version() == BASELINE_VERSION)
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No V" + BASELINE_VERSION + " migration to baseline at."));
+        record(work, baseline, "<< baseline >>", 0);
+        log.info("Existing schema without history recorded at version {}", BASELINE_VERSION);
+    }
+
+    private void createHistoryTable(Connection work) throws SQLException {
+        if (tableExists(work, HISTORY_TABLE)) {
+            return;
+        }
+        try (Statement statement = work.createStatement()) {
+            statement.execute("CREATE TABLE schema_history ("
+                + "version NUMBER(10,0) NOT NULL, "
+                + "description VARCHAR2(200 CHAR) NOT NULL, "
+                + "checksum NUMBER(19,0) NOT NULL, "
+                + "installed_at TIMESTAMP(6) NOT NULL, "
+                + "execution_ms NUMBER(19,0) NOT NULL, "
+                + "PRIMARY KEY (version))");
+        } catch (SQLException e) {
+            if (tableExists(work, HISTORY_TABLE)) {
+                return; // Another instance created it first.
+            }
+            throw e;
+        }
+    }
+
+    /** Waits for, then holds until the lock connection's transaction ends, the version 0 row. */
+    private static void lock(Connection lock) throws SQLException {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try (Statement statement = lock.createStatement();
+                 ResultSet rs = statement.executeQuery(
+                     "SELECT version FROM schema_history WHERE version = " + LOCK_VERSION + " FOR UPDATE")) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+            try (PreparedStatement insert = lock.prepareStatement(
+                    "INSERT INTO schema_history (version, description, checksum, installed_at, execution_ms) "
+                    + "VALUES (?, '<< lock >>', 0, ?, 0)")) {
+                insert.setInt(1, LOCK_VERSION);
+                insert.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                insert.executeUpdate();
+                return;
+            } catch (SQLException e) {
+                // Another instance inserted it first; wait for its lock.
+                lock.rollback();
+            }
+        }
+        throw new IllegalStateException("Could not lock schema_history.");
+    }
+
+    private static void record(Connection work, Migration migration, String description, long millis)
+            throws SQLException {
+        try (PreparedStatement insert = work.prepareStatement(
+                "INSERT INTO schema_history (version, description, checksum, installed_at, execution_ms) "
+                + "VALUES (?, ?, ?, ?, ?)")) {
+            insert.setInt(1, migration.version());
+            insert.setString(2, description);
+            insert.setLong(3, migration.checksum());
+            insert.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            insert.setLong(5, millis);
+            insert.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getTables(connection.getCatalog(), connection.getSchema(), table,
+                new String[] { "TABLE" })) {
+            return rs.next();
+        }
+    }
+
+    private List<Migration> load() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        for (String location : locations.split(",")) {
+            for (Resource script : new PathMatchingResourcePatternResolver().getResources(location.trim() + "/*.sql")) {
+                Matcher matcher = FILE_NAME.matcher(script.getFilename());
+                if (!matcher.matches()) {
+                    throw new IllegalStateException("Migration " + script.getFilename()
+                        + " is not named V<version>__<description>.sql.");
+                }
+                CRC32 crc = new CRC32();
+                try (InputStream in = script.getInputStream()) {
+                    crc.update(in.readAllBytes());
+                }
+                migrations.add(new Migration(Integer.parseInt(matcher.group(1)),
+                    matcher.group(2).replace('_', ' '), crc.getValue(), script));
+            }
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Two migrations have version " + migrations.get(i).version() + ".");
+            }
+        }
+        return migrations;
+    }
+}
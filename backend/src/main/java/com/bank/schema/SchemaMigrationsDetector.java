@@ -0,0 +1,18 @@
+package com.bank.schema;
+
+import org.springframework.boot.sql.init.dependency.AbstractBeansOfTypeDatabaseInitializerDetector;
+
+import java.util.Set;
+
+/**
+ * Tells Spring Boot that {@link SchemaMigrations} initializes the database, so the entity
+ * manager factory, JdbcTemplate and other database users are created after it.
+ * Registered in META-INF/spring.factories.
+ */
+public class SchemaMigrationsDetector extends AbstractBeansOfTypeDatabaseInitializerDetector {
+
+    @Override
+    protected Set<Class<?>> getDatabaseInitializerBeanTypes() {
+        return Set.of(SchemaMigrations.class);
+    }
+}
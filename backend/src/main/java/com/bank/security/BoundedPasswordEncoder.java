@@ -0,0 +1,190 @@
+package com.bank.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs an adaptive password encoder on a dedicated pool of {@code threads} threads with a
+ * queue of {@code queueCapacity}, so a burst of logins uses at most those cores however
+ * many request threads it arrives on. A caller that finds the queue full, or waits longer
+ * than {@code maxWait}, gets a {@link PasswordHashingBusyException} instead of a thread.
+ *
+ * <p>Successful checks are remembered for {@code verifiedTtl} as a keyed MAC of the stored
+ * hash and the presented password, so HTTP Basic clients, which send their password on
+ * every request, pay for the hash once per TTL. A changed hash or password does not match
+ * a remembered entry. A TTL of zero turns this off.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final Timer matchesTimer;
+    private final Timer encodeTimer;
+    private final Counter rejected;
+
+    private final long verifiedTtlNanos;
+    private final int verifiedMaxSize;
+    // Key of the remembered MACs; random per process, so entries mean nothing outside it.
+    private final SecretKeySpec macKey;
+    private final ThreadLocal<Mac> macs;
+    private final Map<String, Long> verified;
+    private final LongAdder verifiedHits = new LongAdder();
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration maxWait,
+                                  Duration verifiedTtl, int verifiedMaxSize, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.maxWaitNanos = maxWait.toNanos();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), task -> {
+                Thread thread = new Thread(task, "password-hash-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        this.verifiedTtlNanos = verifiedTtl.toNanos();
+        this.verifiedMaxSize = verifiedMaxSize;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.macKey = new SecretKeySpec(key, MAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > BoundedPasswordEncoder.this.verifiedMaxSize;
+            }
+        };
+
+        this.matchesTimer = timer("matches", registry);
+        this.encodeTimer = timer("encode", registry);
+        this.rejected = Counter.builder("bank.password.hashing.rejected").register(registry);
+        Gauge.builder("bank.password.hashing.queue", executor, e -> e.getQueue().size()).register(registry);
+        FunctionCounter.builder("bank.password.verified.hits", verifiedHits, LongAdder::sum).register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        String key = verifiedTtlNanos > 0 && rawPassword != null && encodedPassword != null
+            ? verifiedKey(rawPassword, encodedPassword) : null;
+        if (key != null && isVerified(key)) {
+            verifiedHits.increment();
+            return true;
+        }
+        boolean matches = run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+        if (matches && key != null) {
+            synchronized (verified) {
+                verified.put(key, System.nanoTime() + verifiedTtlNanos);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Timer timer, Callable<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(work));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many sign-ins in progress; try again shortly.");
+        }
+        try {
+            return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many sign-ins in progress; try again shortly.");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while checking the password.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private boolean isVerified(String key) {
+        synchronized (verified) {
+            Long expiresAt = verified.get(key);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (System.nanoTime() - expiresAt < 0) {
+                return true;
+            }
+            verified.remove(key);
+            return false;
+        }
+    }
+
+    private String verifiedKey(CharSequence rawPassword, String encodedPassword) {
+        Mac mac = macs.get();
+        mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return Base64.getEncoder().encodeToString(
+            mac.doFinal(rawPassword.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(macKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Timer timer(String operation, MeterRegistry registry) {
+        return Timer.builder("bank.password.hashing")
+            .tag("operation", operation)
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .register(registry);
+    }
+}
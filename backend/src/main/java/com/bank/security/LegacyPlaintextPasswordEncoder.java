@@ -0,0 +1,37 @@
+package com.bank.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Matches the plain passwords stored before hashing was introduced, so those users can still
+ * sign in and have their password re-encoded. It only matches values without an
+ * {@code {id}} prefix, compares in constant time, and never encodes.
+ */
+public final class LegacyPlaintextPasswordEncoder implements PasswordEncoder {
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        throw new UnsupportedOperationException("Plain passwords are no longer stored.");
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null || hasPrefix(storedPassword)) {
+            return false;
+        }
+        return MessageDigest.isEqual(rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+            storedPassword.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String storedPassword) {
+        return true;
+    }
+
+    private static boolean hasPrefix(String storedPassword) {
+        return storedPassword.startsWith("{") && storedPassword.indexOf('}') > 0;
+    }
+}
@@ -0,0 +1,15 @@
+package com.bank.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown when a password could not be hashed or checked because the hashing pool is
+ * saturated. Like a busy database, this is not the client's fault: it is answered with
+ * 503 and Retry-After on the API and a "try again" message on the login page.
+ */
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
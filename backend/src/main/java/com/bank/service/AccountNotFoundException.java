@@ -0,0 +1,11 @@
+package com.bank.service;
+
+/**
+ * Thrown when an operation names an account that does not exist.
+ */
+public class AccountNotFoundException extends RuntimeException {
+
+    public AccountNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,154 @@
+package com.bank.service;
+
+import com.bank.metrics.BankMetrics;
+import com.bank.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers "does this principal own this account?" without loading the User graph.
+ * Ownership is cached per principal email as (userId, accountIds) in a bounded,
+ * least-recently-used map whose entries expire after a fixed TTL. A miss costs one
+ * id-only query. Entries are invalidated when the user opens an account or logs out.
+ */
+@Service
+public class AccountOwnershipService {
+
+    /** Cached ownership of one principal. */
+    public static final class Ownership {
+        private final Long userId;
+        private final Set<Long> accountIds;
+        private final long expiresAtNanos;
+
+        Ownership(Long userId, Set<Long> accountIds, long expiresAtNanos) {
+            this.userId = userId;
+            this.accountIds = accountIds;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        public Long getUserId() { return userId; }
+        public Set<Long> getAccountIds() { return accountIds; }
+    }
+
+    private final UserRepository userRepo;
+    private final BankMetrics metrics;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<String, Ownership> cache;
+    // Bumped on every invalidation so a load that raced with one is not cached.
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AccountOwnershipService(UserRepository userRepo,
+                                   MeterRegistry meterRegistry,
+                                   BankMetrics metrics,
+                                   @Value("${bank.ownership-cache.max-size:10000}") int maxSize,
+                                   @Value("${bank.ownership-cache.ttl:5m}") Duration ttl) {
+        this.userRepo = userRepo;
+        this.metrics = metrics;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ownership> eldest) {
+                if (size() > AccountOwnershipService.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("bank.ownership.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("bank.ownership.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("bank.ownership.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("bank.ownership.cache.size", this, AccountOwnershipService::size).register(meterRegistry);
+    }
+
+    /**
+     * @return true if the account belongs to the user with this email; a false answer
+     * is counted as an access-denied failure of the "authorize" operation.
+     */
+    public boolean isOwner(String email, Long accountId) {
+        boolean owner = metrics.record("authorize", () -> {
+            Ownership ownership = getOwnership(email);
+            return ownership != null && ownership.getAccountIds().contains(accountId);
+        });
+        if (!owner) {
+            metrics.failure("authorize", BankMetrics.ACCESS_DENIED);
+        }
+        return owner;
+    }
+
+    /**
+     * @return the cached ownership of the user, or null if no such user exists.
+     */
+    public Ownership getOwnership(String email) {
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (cache) {
+            Ownership cached = cache.get(email);
+            if (cached != null && now - cached.expiresAtNanos < 0) {
+                hits.increment();
+                return cached;
+            }
+            if (cached != null) {
+                cache.remove(email);
+                evictions.increment();
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        List<Object[]> rows = userRepo.findAccountIdsByEmail(email);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Long userId = (Long) rows.get(0)[0];
+        Set<Long> accountIds = new HashSet<>();
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                accountIds.add((Long) row[1]);
+            }
+        }
+        Ownership loaded = new Ownership(userId, Set.copyOf(accountIds), now + ttlNanos);
+        if (maxSize > 0) {
+            synchronized (cache) {
+                if (generation == loadGeneration) {
+                    cache.put(email, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(String email) {
+        synchronized (cache) {
+            cache.remove(email);
+            generation++;
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+}
@@ -0,0 +1,112 @@
+package com.bank.service;
+
+import com.bank.repository.TransactionRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the version of each account that the JSON API's ETags are built from: the highest
+ * transaction id and the number of transactions. An account's balance and history change
+ * only when a transaction is written, and every commit changes the count, including one
+ * whose id is lower than a row already committed (ids are handed out in blocks, per
+ * instance, and the ledger flusher commits in batches).
+ *
+ * <p>Versions are read from the database and cached. Writers report committed transactions,
+ * which drops the account's entry, so a conditional GET between writes is answered from
+ * memory and the first one after a write costs one index lookup. The TTL bounds how long a
+ * write made by another instance can go unseen.
+ */
+@Service
+public class AccountVersionService {
+
+    public record Version(long latestTransactionId, long transactionCount) { }
+
+    private static final class Entry {
+        final Version version;
+        final long expiresAtNanos;
+
+        Entry(Version version, long expiresAtNanos) {
+            this.version = version;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final TransactionRepository txRepo;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, Entry> versions = new HashMap<>();
+    // Bumped on every recorded write so a load that raced with one is not cached.
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AccountVersionService(TransactionRepository txRepo,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${bank.account-versions.max-size:100000}") int maxSize,
+                                 @Value("${bank.account-versions.ttl:30s}") Duration ttl) {
+        this.txRepo = txRepo;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        FunctionCounter.builder("bank.account.versions.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("bank.account.versions.misses", misses, LongAdder::sum).register(meterRegistry);
+    }
+
+    public Version getVersion(Long accountId) {
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (versions) {
+            Entry cached = versions.get(accountId);
+            if (cached != null && now - cached.expiresAtNanos < 0) {
+                hits.increment();
+                return cached.version;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        Object[] row = txRepo.findVersion(accountId).get(0);
+        Version version = new Version(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        store(accountId, version, now, loadGeneration);
+        return version;
+    }
+
+    /**
+     * Records that a transaction of the account committed. The entry is dropped rather than
+     * advanced: a load running at the same time may or may not have counted the row.
+     */
+    public void recordTransaction(Long accountId) {
+        synchronized (versions) {
+            generation++;
+            versions.remove(accountId);
+        }
+    }
+
+    /**
+     * @return a strong ETag for a representation of the account.
+     */
+    public String etag(Long accountId) {
+        Version version = getVersion(accountId);
+        return "\"" + accountId + "-" + version.latestTransactionId() + "-" + version.transactionCount() + "\"";
+    }
+
+    private void store(Long accountId, Version version, long now, long loadGeneration) {
+        synchronized (versions) {
+            if (generation != loadGeneration) {
+                return;
+            }
+            if (versions.size() >= maxSize && !versions.containsKey(accountId)) {
+                // Rare, and every entry can be reloaded; cheaper than tracking recency.
+                versions.clear();
+            }
+            versions.put(accountId, new Entry(version, now + ttlNanos));
+        }
+    }
+}
@@ -1,116 +1,523 @@
 package com.bank.service;
 
+import com.bank.archive.LedgerArchive;
+import com.bank.datasource.ReadYourWrites;
+import com.bank.dto.AccountSummary;
+import com.bank.dto.DashboardAccount;
+import com.bank.dto.DashboardRow;
+import com.bank.dto.DashboardView;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionPage;
+import com.bank.dto.TransactionView;
+import com.bank.dto.TransferRequest;
+import com.bank.feed.LedgerEvent;
+import com.bank.feed.LedgerEventBus;
+import com.bank.ledger.LedgerEngine;
+import com.bank.metrics.BankMetrics;
 import com.bank.model.Account;
+import com.bank.model.Money;
 import com.bank.model.TransactionEntity;
+import com.bank.outbox.OutboxWriter;
 import com.bank.model.User;
 import com.bank.repository.AccountRepository;
 import com.bank.repository.TransactionRepository;
 import com.bank.repository.UserRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class BankService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Open-ended date filters are replaced by these bounds so the keyset queries keep a single shape.
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final UserRepository userRepo;
     private final AccountRepository accountRepo;
     private final TransactionRepository txRepo;
+    private final AccountOwnershipService ownershipService;
+    private final AccountVersionService versionService;
+    private final HotAccountBalances hotAccounts;
+    private final LedgerArchive archive;
+    private final OutboxWriter outbox;
+    private final LedgerEventBus eventBus;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadYourWrites readYourWrites;
+    private final BankMetrics metrics;
+    private final PasswordEncoder passwordEncoder;
+    // Present only when bank.ledger.mode=engine; balance mutations then bypass JPA.
+    private final LedgerEngine ledgerEngine;
 
     public BankService(UserRepository userRepo,
                        AccountRepository accountRepo,
-                       TransactionRepository txRepo) {
+                       TransactionRepository txRepo,
+                       AccountOwnershipService ownershipService,
+                       AccountVersionService versionService,
+                       HotAccountBalances hotAccounts,
+                       LedgerArchive archive,
+                       OutboxWriter outbox,
+                       LedgerEventBus eventBus,
+                       TransactionTemplate transactionTemplate,
+                       JdbcTemplate jdbcTemplate,
+                       ReadYourWrites readYourWrites,
+                       BankMetrics metrics,
+                       PasswordEncoder passwordEncoder,
+                       ObjectProvider<LedgerEngine> ledgerEngine) {
         this.userRepo = userRepo;
         this.accountRepo = accountRepo;
         this.txRepo = txRepo;
+        this.ownershipService = ownershipService;
+        this.versionService = versionService;
+        this.hotAccounts = hotAccounts;
+        this.archive = archive;
+        this.outbox = outbox;
+        this.eventBus = eventBus;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readYourWrites = readYourWrites;
+        this.metrics = metrics;
+        this.passwordEncoder = passwordEncoder;
+        this.ledgerEngine = ledgerEngine.getIfAvailable();
     }
 
+    /** Stores the user with their password hashed. */
     public User registerUser(User user) {
+        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        readYourWrites.recordWrite(user.getEmail());
         return userRepo.save(user);
     }
 
+    /** Replaces the stored password hash, e.g. when a login upgrades its encoding. */
+    @Transactional
+    public void updatePassword(String email, String encodedPassword) {
+        readYourWrites.recordWrite(email);
+        userRepo.updatePassword(email, encodedPassword);
+    }
+
+    // Read-only service transactions are served by a replica when any are configured
+    // (see ReplicaRoutingDataSource); mutations record the user for read-your-writes.
+
+    @Transactional(readOnly = true)
     public User getUserByEmail(String email) {
         return userRepo.findByEmail(email).orElse(null);
     }
 
+    /**
+     * Loads the dashboard as immutable projections in one read-only query.
+     * @return the view, or null if no user has this email.
+     */
+    @Transactional(readOnly = true)
+    public DashboardView getDashboard(String email) {
+        List<DashboardRow> rows = metrics.record("dashboard",
+            () -> userRepo.findDashboardRows(email, LocalDateTime.now().minusDays(30)));
+        if (rows.isEmpty()) {
+            return null;
+        }
+        List<DashboardAccount> accounts = new ArrayList<>(rows.size());
+        for (DashboardRow row : rows) {
+            if (row.accountId() != null) {
+                LocalDateTime lastTransactionDate = row.lastTransactionDate();
+                if (lastTransactionDate == null) {
+                    // Every row of an account idle for longer than bank.archive.after may be archived.
+                    lastTransactionDate = archive.read(row.accountId(), archived -> archived.findLastTransactionDate(row.accountId()));
+                }
+                accounts.add(new DashboardAccount(row.accountId(),
+                    row.balance().plus(Money.of(row.stripedBalance())), row.creationDate(),
+                    lastTransactionDate, Money.of(row.moneyIn30Days()), Money.of(row.moneyOut30Days())));
+            }
+        }
+        return new DashboardView(rows.get(0).userName(), List.copyOf(accounts));
+    }
+
     public Account createAccount(User user) {
-        Account acc = new Account();
-        acc.setBalance(BigDecimal.ZERO);
-        acc.setUser(user);
-        return accountRepo.save(acc);
+        return metrics.record("createAccount", () -> {
+            Account acc = new Account();
+            acc.setBalance(Money.ZERO);
+            acc.setUser(user);
+            readYourWrites.recordWrite(user.getEmail());
+            Account saved = accountRepo.save(acc);
+            if (ledgerEngine != null) {
+                ledgerEngine.registerAccount(saved.getId());
+            }
+            ownershipService.invalidate(user.getEmail());
+            return saved;
+        });
     }
 
-    @Transactional
-    public void deposit(Long accountId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Deposit amount must be positive.");
+    public Account getAccount(Long accountId) {
+        return accountRepo.findById(accountId)
+            .orElseThrow(() -> new AccountNotFoundException("Account not found with id: " + accountId));
+    }
+
+    // The mutations below are not @Transactional: in engine mode they must not hold a
+    // DB connection, so the JPA path opens its transaction through the template instead.
+
+    /** @return the new balance. */
+    public Money deposit(Long accountId, Money amount) {
+        return metrics.record("deposit", () -> {
+            if (!amount.isPositive()) {
+                throw new IllegalArgumentException("Deposit amount must be positive.");
+            }
+            readYourWrites.recordWrite();
+            if (ledgerEngine != null) {
+                return ledgerEngine.deposit(accountId, amount);
+            }
+            return transactionTemplate.execute(status -> {
+                Money newBalance = credit(accountId, amount, "Account not found with id: " + accountId);
+                saveTransaction(accountId, "DEPOSIT", amount, newBalance);
+                return newBalance;
+            });
+        });
+    }
+
+    /** @return the new balance. */
+    public Money withdraw(Long accountId, Money amount) {
+        return metrics.record("withdraw", () -> {
+            if (!amount.isPositive()) {
+                throw new IllegalArgumentException("Withdrawal amount must be positive.");
+            }
+            readYourWrites.recordWrite();
+            if (ledgerEngine != null) {
+                return ledgerEngine.withdraw(accountId, amount);
+            }
+            return transactionTemplate.execute(status -> {
+                Money newBalance = debit(accountId, amount,
+                    "Account not found with id: " + accountId, "Insufficient funds for withdrawal.");
+                saveTransaction(accountId, "WITHDRAW", amount, newBalance);
+                return newBalance;
+            });
+        });
+    }
+
+    /** @return the new balance of the source account. */
+    public Money transfer(Long fromId, Long toId, Money amount) {
+        return metrics.record("transfer", () -> {
+            if (!amount.isPositive()) {
+                throw new IllegalArgumentException("Transfer amount must be positive.");
+            }
+            if (fromId.equals(toId)) {
+                throw new IllegalArgumentException("Cannot transfer to the same account.");
+            }
+            readYourWrites.recordWrite();
+            if (ledgerEngine != null) {
+                return ledgerEngine.transfer(fromId, toId, amount);
+            }
+            return transactionTemplate.execute(status -> transferInTransaction(fromId, toId, amount));
+        });
+    }
+
+    private Money transferInTransaction(Long fromId, Long toId, Money amount) {
+
+        // Row locks are taken by the UPDATEs themselves, always lowest account id first,
+        // so two opposite transfers queue behind each other instead of deadlocking.
+        // A failed debit throws and rolls back a credit that was already applied.
+        Money fromBalance;
+        Money toBalance;
+        if (fromId < toId) {
+            fromBalance = debit(fromId, amount,
+                "Source account not found with id: " + fromId, "Insufficient funds for transfer.");
+            toBalance = credit(toId, amount, "Destination account not found with id: " + toId);
+        } else {
+            toBalance = credit(toId, amount, "Destination account not found with id: " + toId);
+            fromBalance = debit(fromId, amount,
+                "Source account not found with id: " + fromId, "Insufficient funds for transfer.");
         }
-        Account acc = accountRepo.findById(accountId)
-            .orElseThrow(() -> new RuntimeException("Account not found with id: " + accountId));
-        acc.setBalance(acc.getBalance().add(amount));
-        accountRepo.save(acc);
-        saveTransaction(acc, "DEPOSIT", amount);
+
+        // Both ledger rows go out as one batch when the transaction flushes.
+        List<TransactionEntity> saved = txRepo.saveAll(List.of(
+            newTransaction(fromId, "TRANSFER_OUT", amount, fromBalance),
+            newTransaction(toId, "TRANSFER_IN", amount, toBalance)));
+        outbox.append(saved);
+        saved.forEach(this::publishAfterCommit);
+        return fromBalance;
     }
 
-    @Transactional
-    public void withdraw(Long accountId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Withdrawal amount must be positive.");
+    /**
+     * Applies a chunk of transfers, in order, as one database transaction. A transfer that
+     * is invalid or not covered by the source balance is rejected on its own; the rest of
+     * the chunk still commits. Ownership must already have been checked by the caller.
+     * @return one outcome per transfer, in the same order.
+     */
+    public List<TransferOutcome> transferChunk(List<TransferRequest> transfers) {
+        return metrics.record("transferChunk", () -> {
+            if (transfers.isEmpty()) {
+                return List.of();
+            }
+            if (ledgerEngine != null) {
+                return transferChunkInEngine(transfers);
+            }
+            return transactionTemplate.execute(status -> transferChunkInTransaction(transfers));
+        });
+    }
+
+    private List<TransferOutcome> transferChunkInTransaction(List<TransferRequest> transfers) {
+        // Every account of the chunk is locked, one statement each in id order, and the chunk
+        // is then applied to the locked balances in memory.
+        Set<Long> ids = new TreeSet<>();
+        for (TransferRequest t : transfers) {
+            if (invalidTransfer(t) == null) {
+                ids.add(t.fromAccountId());
+                ids.add(t.toAccountId());
+            }
+        }
+        HotAccountBalances.LockedBalances balances = hotAccounts.lock(ids);
+
+        List<TransferOutcome> outcomes = new ArrayList<>(transfers.size());
+        List<TransactionEntity> rows = new ArrayList<>(transfers.size() * 2);
+        Set<Long> changed = new LinkedHashSet<>();
+        for (TransferRequest t : transfers) {
+            TransferOutcome outcome = invalidTransfer(t);
+            if (outcome == null) {
+                Money fromBalance = balances.get(t.fromAccountId());
+                Money toBalance = balances.get(t.toAccountId());
+                if (fromBalance == null) {
+                    outcome = TransferOutcome.rejected(BankMetrics.NOT_FOUND,
+                        "Source account not found with id: " + t.fromAccountId());
+                } else if (toBalance == null) {
+                    outcome = TransferOutcome.rejected(BankMetrics.NOT_FOUND,
+                        "Destination account not found with id: " + t.toAccountId());
+                } else if (fromBalance.isLessThan(t.amount())) {
+                    outcome = TransferOutcome.rejected(BankMetrics.INSUFFICIENT_FUNDS, "Insufficient funds for transfer.");
+                } else {
+                    fromBalance = fromBalance.minus(t.amount());
+                    toBalance = toBalance.plus(t.amount());
+                    balances.put(t.fromAccountId(), fromBalance);
+                    balances.put(t.toAccountId(), toBalance);
+                    changed.add(t.fromAccountId());
+                    changed.add(t.toAccountId());
+                    rows.add(newTransaction(t.fromAccountId(), "TRANSFER_OUT", t.amount(), fromBalance));
+                    rows.add(newTransaction(t.toAccountId(), "TRANSFER_IN", t.amount(), toBalance));
+                    outcome = TransferOutcome.completed(fromBalance);
+                }
+            }
+            if (!outcome.isCompleted()) {
+                metrics.failure("transferChunk", outcome.cause());
+            }
+            outcomes.add(outcome);
         }
-        Account acc = accountRepo.findById(accountId)
-            .orElseThrow(() -> new RuntimeException("Account not found with id: " + accountId));
-        if (acc.getBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient funds for withdrawal.");
+
+        if (!changed.isEmpty()) {
+            hotAccounts.write(balances, changed);
+            List<TransactionEntity> saved = txRepo.saveAll(rows);
+            outbox.append(saved);
+            saved.forEach(this::publishAfterCommit);
         }
-        acc.setBalance(acc.getBalance().subtract(amount));
-        accountRepo.save(acc);
-        saveTransaction(acc, "WITHDRAW", amount);
+        return outcomes;
     }
 
-    @Transactional
-    public void transfer(Long fromId, Long toId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Transfer amount must be positive.");
+    private List<TransferOutcome> transferChunkInEngine(List<TransferRequest> transfers) {
+        // Submitted before any is awaited, so the shards journal the chunk in a few forces.
+        List<CompletableFuture<Money>> pending = new ArrayList<>(transfers.size());
+        for (TransferRequest t : transfers) {
+            pending.add(invalidTransfer(t) == null
+                ? ledgerEngine.transferAsync(t.fromAccountId(), t.toAccountId(), t.amount())
+                : null);
+        }
+        List<TransferOutcome> outcomes = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferOutcome outcome = invalidTransfer(transfers.get(i));
+            if (outcome == null) {
+                try {
+                    outcome = TransferOutcome.completed(pending.get(i).join());
+                } catch (CompletionException e) {
+                    if (!(e.getCause() instanceof RuntimeException cause)) {
+                        throw e;
+                    }
+                    outcome = TransferOutcome.rejected(BankMetrics.causeOf(cause), cause.getMessage());
+                }
+            }
+            if (!outcome.isCompleted()) {
+                metrics.failure("transferChunk", outcome.cause());
+            }
+            outcomes.add(outcome);
         }
-        Account fromAcc = accountRepo.findById(fromId)
-            .orElseThrow(() -> new RuntimeException("Source account not found with id: " + fromId));
-        Account toAcc = accountRepo.findById(toId)
-            .orElseThrow(() -> new RuntimeException("Destination account not found with id: " + toId));
+        return outcomes;
+    }
 
-        if (fromAcc.getBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient funds for transfer.");
+    private static TransferOutcome invalidTransfer(TransferRequest t) {
+        if (t.fromAccountId() == null || t.toAccountId() == null || t.amount() == null) {
+            return TransferOutcome.rejected(BankMetrics.INVALID_REQUEST, "fromAccountId, toAccountId and amount are required.");
+        }
+        if (!t.amount().isPositive()) {
+            return TransferOutcome.rejected(BankMetrics.INVALID_REQUEST, "Transfer amount must be positive.");
+        }
+        if (t.fromAccountId().equals(t.toAccountId())) {
+            return TransferOutcome.rejected(BankMetrics.INVALID_REQUEST, "Cannot transfer to the same account.");
         }
+        return null;
+    }
 
-        fromAcc.setBalance(fromAcc.getBalance().subtract(amount));
-        toAcc.setBalance(toAcc.getBalance().add(amount));
+    @Transactional(readOnly = true)
+    public Money getBalance(Long accountId) {
+        return metrics.record("balance", () -> {
+            if (ledgerEngine != null) {
+                return ledgerEngine.getBalance(accountId);
+            }
+            return accountRepo.findBalanceById(accountId).map(Money::of)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found with id: " + accountId));
+        });
+    }
 
-        accountRepo.save(fromAcc);
-        accountRepo.save(toAcc);
+    /**
+     * Accounts as stored in the database, for the JSON API. In engine mode the balances
+     * lag the engine by up to one flush interval, like every other database read.
+     */
+    @Transactional(readOnly = true)
+    public List<AccountSummary> getAccountSummaries(Collection<Long> accountIds) {
+        if (accountIds.isEmpty()) {
+            return List.of();
+        }
+        return metrics.record("accountSummaries", () -> accountRepo.findSummaries(accountIds));
+    }
 
-        saveTransaction(fromAcc, "TRANSFER_OUT", amount);
-        saveTransaction(toAcc, "TRANSFER_IN", amount);
+    /**
+     * Returns one window of an account's history, newest first.
+     * Pass {@code before} to move to older rows, {@code after} to move to newer rows,
+     * or neither for the most recent window. Date bounds are inclusive and may be null.
+     */
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactionPage(Long accountId, LocalDate from, LocalDate to, String type,
+                                              TransactionCursor before, TransactionCursor after, int size) {
+        return metrics.record("transactionPage", () -> findTransactionPage(accountId, from, to, type, before, after, size));
     }
 
-    public BigDecimal getBalance(Long accountId) {
-        return accountRepo.findById(accountId)
-            .orElseThrow(() -> new RuntimeException("Account not found with id: " + accountId))
-            .getBalance();
+    private TransactionPage findTransactionPage(Long accountId, LocalDate from, LocalDate to, String type,
+                                                TransactionCursor before, TransactionCursor after, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : EARLIEST;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : LATEST;
+        String typeFilter = (type == null || type.isBlank()) ? null : type.trim().toUpperCase();
+        // One extra row tells us whether another window exists in the direction of travel.
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        if (after != null) {
+            List<TransactionView> rows = archive.read(accountId, accountId, fromTime, toTime, archived -> firstRows(
+                txRepo.findNewerThan(accountId, fromTime, toTime, typeFilter, after.getTransactionDate(), after.getId(), limit),
+                archived.findNewerThan(accountId, fromTime, toTime, typeFilter, after.getTransactionDate(), after.getId(),
+                    limit.getPageSize()),
+                LedgerArchive.OLDEST_FIRST, limit.getPageSize()));
+            boolean hasNewer = rows.size() > pageSize;
+            if (hasNewer) {
+                rows = rows.subList(0, pageSize);
+            }
+            rows = new ArrayList<>(rows);
+            Collections.reverse(rows);
+            if (rows.isEmpty()) {
+                return new TransactionPage(rows, after, null);
+            }
+            return new TransactionPage(rows,
+                    TransactionCursor.of(rows.get(rows.size() - 1)),
+                    hasNewer ? TransactionCursor.of(rows.get(0)) : null);
+        }
+
+        LocalDateTime cursorDate = before != null ? before.getTransactionDate() : LATEST;
+        Long cursorId = before != null ? before.getId() : Long.MAX_VALUE;
+        List<TransactionView> rows = archive.read(accountId, accountId, fromTime, toTime, archived -> firstRows(
+            txRepo.findOlderThan(accountId, fromTime, toTime, typeFilter, cursorDate, cursorId, limit),
+            archived.findOlderThan(accountId, fromTime, toTime, typeFilter, cursorDate, cursorId, limit.getPageSize()),
+            LedgerArchive.OLDEST_FIRST.reversed(), limit.getPageSize()));
+        boolean hasOlder = rows.size() > pageSize;
+        if (hasOlder) {
+            rows = rows.subList(0, pageSize);
+        }
+        return new TransactionPage(rows,
+                hasOlder ? TransactionCursor.of(rows.get(rows.size() - 1)) : null,
+                before != null && !rows.isEmpty() ? TransactionCursor.of(rows.get(0)) : null);
+    }
+
+    // The first rows of two lists that are each sorted by order: a page of table and archived rows.
+    private static List<TransactionView> firstRows(List<TransactionView> table, List<TransactionView> archived,
+                                                   Comparator<TransactionView> order, int limit) {
+        if (archived.isEmpty()) {
+            return table;
+        }
+        List<TransactionView> rows = new ArrayList<>(table);
+        rows.addAll(archived);
+        rows.sort(order);
+        return rows.size() > limit ? rows.subList(0, limit) : rows;
+    }
+
+    /**
+     * Applies a credit as one UPDATE and returns the resulting balance. The row stays
+     * locked until commit, so the balance read back is the one this update produced; for
+     * a hot account only one stripe is locked, so it also includes other committed credits.
+     */
+    private Money credit(Long accountId, Money amount, String notFoundMessage) {
+        if (!hotAccounts.credit(accountId, amount)) {
+            throw new AccountNotFoundException(notFoundMessage);
+        }
+        return Money.of(accountRepo.findBalanceById(accountId).orElseThrow());
+    }
+
+    /**
+     * Applies a guarded debit, as one UPDATE unless a hot account needs its stripes
+     * rebalanced, and returns the resulting balance.
+     */
+    private Money debit(Long accountId, Money amount, String notFoundMessage, String insufficientMessage) {
+        if (!hotAccounts.debit(accountId, amount)) {
+            if (accountRepo.existsById(accountId)) {
+                throw new InsufficientFundsException(insufficientMessage);
+            }
+            throw new AccountNotFoundException(notFoundMessage);
+        }
+        return Money.of(accountRepo.findBalanceById(accountId).orElseThrow());
+    }
+
+    private void saveTransaction(Long accountId, String type, Money amount, Money balanceAfter) {
+        TransactionEntity saved = txRepo.save(newTransaction(accountId, type, amount, balanceAfter));
+        outbox.append(List.of(saved));
+        publishAfterCommit(saved);
     }
 
-    public List<TransactionEntity> getTransactions(Long accountId) {
-        return txRepo.findByAccount_Id(accountId);
+    /**
+     * Marks the account's version as changed and pushes the transaction to the live feed
+     * once, and only if, it commits. The id is already assigned here because ids come from
+     * a pooled sequence.
+     */
+    private void publishAfterCommit(TransactionEntity tx) {
+        LedgerEvent event = LedgerEvent.of(tx);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versionService.recordTransaction(event.accountId());
+                eventBus.publish(event);
+            }
+        });
     }
 
-    private void saveTransaction(Account acc, String type, BigDecimal amount) {
+    private TransactionEntity newTransaction(Long accountId, String type, Money amount, Money balanceAfter) {
         TransactionEntity tx = new TransactionEntity();
-        tx.setAccount(acc);
+        tx.setAccount(accountRepo.getReferenceById(accountId));
         tx.setType(type);
         tx.setAmount(amount);
         tx.setTransactionDate(LocalDateTime.now()); // UPDATED
-        tx.setBalanceAfterTransaction(acc.getBalance());
-        txRepo.save(tx);
+        tx.setBalanceAfterTransaction(balanceAfter);
+        return tx;
     }
 }
\ No newline at end of file
@@ -1,19 +1,79 @@
 package com.bank.service;
 
+import com.bank.datasource.ReadYourWrites;
 import com.bank.model.User;
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Loads users for Spring Security. Found users are cached by email for
+ * bank.security.user-cache.ttl in a bounded least-recently-used map, so repeated logins
+ * and HTTP Basic requests do not query the database each time; unknown emails are not
+ * cached. Also stores the re-encoded password when a login upgrades its hash.
+ *
+ * <p>The users listed in bank.security.operators get {@code ROLE_OPERATOR}, which the
+ * actuator requires; everyone else has no role.
+ */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
-    @Autowired
-    private BankService bankService;
+    // Spring Security erases the password of the UserDetails it is given, so the cache
+    // holds the fields and every lookup builds a new instance.
+    private record CachedUser(String email, String password, long expiresAtNanos) { }
+
+    private static final List<GrantedAuthority> OPERATOR = List.of(new SimpleGrantedAuthority("ROLE_OPERATOR"));
+
+    private final BankService bankService;
+    private final ReadYourWrites readYourWrites;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<String, CachedUser> cache;
+    private final Set<String> operators;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CustomUserDetailsService(BankService bankService,
+                                    ReadYourWrites readYourWrites,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${bank.security.user-cache.max-size:10000}") int maxSize,
+                                    @Value("${bank.security.user-cache.ttl:30s}") Duration ttl,
+                                    @Value("${bank.security.operators:}") String operators) {
+        this.bankService = bankService;
+        this.readYourWrites = readYourWrites;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.operators = StringUtils.commaDelimitedListToSet(operators).stream()
+            .map(String::strip)
+            .filter(email -> !email.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                return size() > CustomUserDetailsService.this.maxSize;
+            }
+        };
+
+        FunctionCounter.builder("bank.userdetails.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("bank.userdetails.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+    }
 
     /**
      * This method is called by Spring Security to authenticate a user.
@@ -23,21 +83,48 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        // 1. Find the user in our database using the BankService
-        User appUser = bankService.getUserByEmail(email);
+        long now = System.nanoTime();
+        synchronized (cache) {
+            CachedUser cached = cache.get(email);
+            if (cached != null && now - cached.expiresAtNanos() < 0) {
+                hits.increment();
+                return userDetails(cached.email(), cached.password());
+            }
+        }
+        misses.increment();
+
+        // 1. Find the user in our database using the BankService. There is no principal yet,
+        //    so name the user for read-your-writes: a login right after registering reads the primary.
+        User appUser = readYourWrites.as(email, () -> bankService.getUserByEmail(email));
 
         // 2. If the user is not found, throw an exception
         if (appUser == null) {
             throw new UsernameNotFoundException("User not found with email: " + email);
         }
 
+        synchronized (cache) {
+            cache.put(email, new CachedUser(appUser.getEmail(), appUser.getPassword(), now + ttlNanos));
+        }
         // 3. If the user is found, convert our User object into a Spring Security UserDetails object
-        // The constructor takes: username (which is email), password, and authorities (roles).
-        // Since we don't use roles, we can provide an empty list.
-        return new org.springframework.security.core.userdetails.User(
-            appUser.getEmail(),
-            appUser.getPassword(),
-            Collections.emptyList()
-        );
+        return userDetails(appUser.getEmail(), appUser.getPassword());
+    }
+
+    /** Stores a password re-encoded with the current hashing settings, after a successful login. */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        bankService.updatePassword(user.getUsername(), newPassword);
+        synchronized (cache) {
+            cache.remove(user.getUsername());
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+            .password(newPassword)
+            .build();
+    }
+
+    // The constructor takes: username (which is email), password, and authorities (roles).
+    // Customers have no role; operators have ROLE_OPERATOR.
+    private UserDetails userDetails(String email, String password) {
+        return new org.springframework.security.core.userdetails.User(email, password,
+            operators.contains(email) ? OPERATOR : List.of());
     }
 }
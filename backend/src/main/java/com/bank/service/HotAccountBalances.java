@@ -0,0 +1,267 @@
+package com.bank.service;
+
+import com.bank.model.AccountBalanceStripe;
+import com.bank.model.Money;
+import com.bank.repository.AccountBalanceStripeRepository;
+import com.bank.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Balance updates of the jpa ledger mode, with opt-in striping for hot accounts such as
+ * merchant collection or payroll funding accounts, which sit on one side of many transfers.
+ * <p>
+ * A striped account spreads its balance over N rows of account_balance_stripes; its balance
+ * is always its balance column plus the sum of its stripes. A credit goes to the stripe
+ * picked by a hash of the calling thread, so concurrent credits lock different rows. A debit
+ * locks the account row, tries that stripe, then the others; if no single stripe covers it,
+ * it locks all the stripes, checks the whole balance and spreads what is left evenly again.
+ * Debits of one hot account therefore run one at a time, but never hold up its credits.
+ * <p>
+ * Locks on an account, its row or its stripes, are only taken while a transfer is at that
+ * account in id order, and the row always before the stripes, so the deadlock rule of
+ * unstriped transfers still holds. The set of
+ * striped accounts is cached per instance; an account striped on another instance is still
+ * handled correctly, only its credits keep landing on the account row until restart.
+ * <p>
+ * Methods other than {@link #stripe} must run in the caller's transaction.
+ */
+@Service
+public class HotAccountBalances {
+
+    public static final int MAX_STRIPES = 64;
+
+    private final AccountRepository accountRepo;
+    private final AccountBalanceStripeRepository stripeRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean engineMode;
+    private final Counter rebalances;
+    // Account id -> stripe count of the striped accounts.
+    private final Map<Long, Integer> stripeCounts = new ConcurrentHashMap<>();
+
+    public HotAccountBalances(AccountRepository accountRepo,
+                              AccountBalanceStripeRepository stripeRepo,
+                              TransactionTemplate transactionTemplate,
+                              JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${bank.ledger.mode:jpa}") String ledgerMode) {
+        this.accountRepo = accountRepo;
+        this.stripeRepo = stripeRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.engineMode = "engine".equals(ledgerMode);
+        this.rebalances = Counter.builder("bank.hotaccounts.rebalances")
+            .description("Debits of striped accounts that had to lock and respread every stripe")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        for (Object[] row : accountRepo.findStriped()) {
+            stripeCounts.put((Long) row[0], (Integer) row[1]);
+        }
+    }
+
+    /** @return the striped accounts and their stripe counts. */
+    public Map<Long, Integer> striped() {
+        return new TreeMap<>(stripeCounts);
+    }
+
+    /** @return false if the account does not exist. */
+    public boolean credit(Long accountId, Money amount) {
+        Integer stripes = stripeCounts.get(accountId);
+        if (stripes != null && stripeRepo.credit(accountId, stripeFor(stripes), amount.toBigDecimal()) == 1) {
+            return true;
+        }
+        return accountRepo.credit(accountId, amount.toBigDecimal()) == 1;
+    }
+
+    /** @return false if the account does not exist or its balance does not cover the amount. */
+    public boolean debit(Long accountId, Money amount) {
+        Integer stripes = stripeCounts.get(accountId);
+        if (stripes == null) {
+            // Covers accounts striped on another instance: the fallback sees their stripes.
+            return accountRepo.debit(accountId, amount.toBigDecimal()) == 1 || debitWholeBalance(accountId, amount);
+        }
+        // Debits of a hot account queue on its row, so a stripe that a failed guarded UPDATE
+        // left locked can only be contended by credits, which never wait for the row.
+        Optional<BigDecimal> account = accountRepo.lockBalance(accountId);
+        if (account.isEmpty()) {
+            return false;
+        }
+        int first = stripeFor(stripes);
+        for (int i = 0; i < stripes; i++) {
+            if (stripeRepo.debit(accountId, (first + i) % stripes, amount.toBigDecimal()) == 1) {
+                return true;
+            }
+        }
+        return debitLocked(accountId, Money.of(account.get()), amount);
+    }
+
+    private boolean debitWholeBalance(Long accountId, Money amount) {
+        Optional<BigDecimal> account = accountRepo.lockBalance(accountId);
+        return account.isPresent() && debitLocked(accountId, Money.of(account.get()), amount);
+    }
+
+    /** Debits the whole balance of an account whose row is locked and holds {@code rowBalance}. */
+    private boolean debitLocked(Long accountId, Money rowBalance, Money amount) {
+        Money balance = rowBalance;
+        List<Object[]> stripes = stripeRepo.lockStripes(accountId);
+        for (Object[] stripe : stripes) {
+            balance = balance.plus(Money.of((BigDecimal) stripe[1]));
+        }
+        if (balance.isLessThan(amount)) {
+            return false;
+        }
+        if (stripes.isEmpty()) {
+            accountRepo.setBalance(accountId, balance.minus(amount).toBigDecimal());
+        } else {
+            spread(accountId, balance.minus(amount), stripes.size());
+            rebalances.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Locks the accounts, one statement each with ids ascending, and returns their whole
+     * balances; missing accounts are left out. A striped account's row and stripes are locked
+     * together, in its turn.
+     */
+    public LockedBalances lock(Collection<Long> sortedIds) {
+        LockedBalances locked = new LockedBalances();
+        for (Long id : sortedIds) {
+            Optional<BigDecimal> account = accountRepo.lockBalance(id);
+            if (account.isEmpty()) {
+                continue;
+            }
+            Money balance = Money.of(account.get());
+            if (stripeCounts.containsKey(id)) {
+                List<Object[]> stripes = stripeRepo.lockStripes(id);
+                for (Object[] stripe : stripes) {
+                    balance = balance.plus(Money.of((BigDecimal) stripe[1]));
+                }
+                if (!stripes.isEmpty()) {
+                    locked.stripes.put(id, stripes.size());
+                }
+            }
+            locked.balances.put(id, balance);
+        }
+        return locked;
+    }
+
+    /** Writes the new balances of accounts locked by {@link #lock}. */
+    public void write(LockedBalances locked, Collection<Long> ids) {
+        List<Object[]> updates = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Money balance = locked.balances.get(id);
+            Integer stripes = locked.stripes.get(id);
+            if (stripes != null) {
+                spread(id, balance, stripes);
+            } else {
+                updates.add(new Object[] { balance.toBigDecimal(), id });
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE accounts SET balance = ? WHERE id = ?", updates);
+        }
+    }
+
+    /** Moves the whole balance into the stripes, evenly; the caller holds every lock. */
+    private void spread(Long accountId, Money balance, int stripes) {
+        accountRepo.setBalance(accountId, BigDecimal.ZERO);
+        for (int i = 0; i < stripes; i++) {
+            stripeRepo.setBalance(accountId, i, share(balance, stripes, i).toBigDecimal());
+        }
+    }
+
+    private static Money share(Money balance, int stripes, int stripe) {
+        long minor = balance.getMinorUnits();
+        return Money.ofMinor(minor / stripes + (stripe < minor % stripes ? 1 : 0));
+    }
+
+    /**
+     * Spreads the account over {@code stripes} stripe rows, or folds it back into the account
+     * row when {@code stripes} is 0 or 1. Only in the jpa ledger mode: the engine keeps
+     * balances in memory and has no row to contend on.
+     * @return the whole balance, which does not change.
+     */
+    public Money stripe(Long accountId, int stripes) {
+        if (engineMode) {
+            throw new IllegalStateException("Hot accounts can only be striped in the jpa ledger mode.");
+        }
+        if (stripes < 0 || stripes > MAX_STRIPES) {
+            throw new IllegalArgumentException("Stripes must be between 0 and " + MAX_STRIPES + ".");
+        }
+        return transactionTemplate.execute(status -> {
+            Optional<BigDecimal> account = accountRepo.lockBalance(accountId);
+            if (account.isEmpty()) {
+                throw new AccountNotFoundException("Account not found with id: " + accountId);
+            }
+            Money balance = Money.of(account.get());
+            for (Object[] stripe : stripeRepo.lockStripes(accountId)) {
+                balance = balance.plus(Money.of((BigDecimal) stripe[1]));
+            }
+            stripeRepo.deleteByAccount(accountId);
+            Integer count = stripes > 1 ? stripes : null;
+            if (count == null) {
+                accountRepo.setBalance(accountId, balance.toBigDecimal());
+            } else {
+                accountRepo.setBalance(accountId, BigDecimal.ZERO);
+                List<AccountBalanceStripe> rows = new ArrayList<>(stripes);
+                for (int i = 0; i < stripes; i++) {
+                    rows.add(new AccountBalanceStripe(accountId, i, share(balance, stripes, i)));
+                }
+                stripeRepo.saveAll(rows);
+            }
+            accountRepo.setBalanceStripes(accountId, count);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    if (count == null) {
+                        stripeCounts.remove(accountId);
+                    } else {
+                        stripeCounts.put(accountId, count);
+                    }
+                }
+            });
+            return balance;
+        });
+    }
+
+    private static int stripeFor(int stripes) {
+        return Math.floorMod(Long.hashCode(Thread.currentThread().getId() * 0x9E3779B97F4A7C15L), stripes);
+    }
+
+    /** Whole balances of locked accounts, updated in place by the caller before {@link #write}. */
+    public static final class LockedBalances {
+        private final Map<Long, Money> balances = new HashMap<>();
+        private final Map<Long, Integer> stripes = new HashMap<>();
+
+        /** @return the balance, or null if the account does not exist. */
+        public Money get(Long accountId) {
+            return balances.get(accountId);
+        }
+
+        public void put(Long accountId, Money balance) {
+            balances.put(accountId, balance);
+        }
+    }
+}
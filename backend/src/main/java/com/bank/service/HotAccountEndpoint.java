@@ -0,0 +1,47 @@
+package com.bank.service;
+
+import com.bank.model.Money;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operator commands for hot accounts: list the striped accounts, or stripe one over
+ * {@code stripes} rows ({@code 0} folds it back into its account row). Not exposed over
+ * HTTP by default, like the other operator endpoints.
+ */
+@Component
+@Endpoint(id = "hotaccounts")
+public class HotAccountEndpoint {
+
+    private final HotAccountBalances hotAccounts;
+
+    public HotAccountEndpoint(HotAccountBalances hotAccounts) {
+        this.hotAccounts = hotAccounts;
+    }
+
+    @ReadOperation
+    public Map<Long, Integer> striped() {
+        return hotAccounts.striped();
+    }
+
+    @WriteOperation
+    public Map<String, Object> stripe(long accountId, int stripes) {
+        Money balance;
+        try {
+            balance = hotAccounts.stripe(accountId, stripes);
+        } catch (IllegalArgumentException | IllegalStateException | AccountNotFoundException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("accountId", accountId);
+        result.put("stripes", stripes > 1 ? stripes : 0);
+        result.put("balance", balance.format());
+        return result;
+    }
+}
@@ -0,0 +1,11 @@
+package com.bank.service;
+
+/**
+ * Thrown when a withdrawal or transfer would take a balance below zero.
+ */
+public class InsufficientFundsException extends RuntimeException {
+
+    public InsufficientFundsException(String message) {
+        super(message);
+    }
+}
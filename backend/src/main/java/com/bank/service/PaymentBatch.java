@@ -0,0 +1,163 @@
+package com.bank.service;
+
+import com.bank.dto.BatchLineResult;
+import com.bank.dto.BatchStatusView;
+import com.bank.dto.TransferRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A submitted payment batch and its results so far. Results are appended a chunk at a time
+ * and never change afterwards, so readers can follow a running batch by position.
+ * Listeners are told after each chunk and when the batch finishes, outside the lock, and
+ * read the new results themselves.
+ */
+public class PaymentBatch {
+
+    public enum State { QUEUED, RUNNING, FINISHED }
+
+    private final String id;
+    private final String owner;
+    private final int lines;
+    private final Instant submittedAt = Instant.now();
+    private final List<BatchLineResult> results;
+    // Released once the batch has run.
+    private List<TransferRequest> transfers;
+    private State state = State.QUEUED;
+    private int completed;
+    private int rejected;
+    private Instant finishedAt;
+    private final List<Runnable> listeners = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    PaymentBatch(String id, String owner, List<TransferRequest> transfers) {
+        this.id = id;
+        this.owner = owner;
+        this.lines = transfers.size();
+        this.transfers = transfers;
+        this.results = new ArrayList<>(transfers.size());
+    }
+
+    public String getId() { return id; }
+    public String getOwner() { return owner; }
+    public int getLines() { return lines; }
+
+    List<TransferRequest> start() {
+        lock.lock();
+        try {
+            state = State.RUNNING;
+            return transfers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void append(List<BatchLineResult> chunk) {
+        lock.lock();
+        try {
+            for (BatchLineResult result : chunk) {
+                if (BatchLineResult.COMPLETED.equals(result.status())) {
+                    completed++;
+                } else {
+                    rejected++;
+                }
+            }
+            results.addAll(chunk);
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners();
+    }
+
+    void finish() {
+        lock.lock();
+        try {
+            state = State.FINISHED;
+            finishedAt = Instant.now();
+            transfers = null;
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners();
+    }
+
+    public boolean isFinished() {
+        lock.lock();
+        try {
+            return state == State.FINISHED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isExpired(Instant cutoff) {
+        lock.lock();
+        try {
+            return finishedAt != null && finishedAt.isBefore(cutoff);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public BatchStatusView status() {
+        lock.lock();
+        try {
+            return new BatchStatusView(id, state.name(), lines, results.size(), completed, rejected, submittedAt, finishedAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the results from position {@code from} on, possibly none. */
+    public List<BatchLineResult> resultsFrom(int from) {
+        lock.lock();
+        try {
+            return from < results.size() ? new ArrayList<>(results.subList(from, results.size())) : List.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return true if there are results past position {@code from}, or the batch has finished. */
+    public boolean hasNews(int from) {
+        lock.lock();
+        try {
+            return results.size() > from || state == State.FINISHED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Calls {@code listener} after every chunk and once the batch finishes, until it is removed. */
+    public void addListener(Runnable listener) {
+        lock.lock();
+        try {
+            listeners.add(listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void removeListener(Runnable listener) {
+        lock.lock();
+        try {
+            listeners.remove(listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void notifyListeners() {
+        List<Runnable> targets;
+        lock.lock();
+        try {
+            targets = new ArrayList<>(listeners);
+        } finally {
+            lock.unlock();
+        }
+        targets.forEach(Runnable::run);
+    }
+}
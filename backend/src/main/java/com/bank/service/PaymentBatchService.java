@@ -0,0 +1,231 @@
+package com.bank.service;
+
+import com.bank.datasource.ReadYourWrites;
+import com.bank.dto.BatchLineResult;
+import com.bank.dto.TransferRequest;
+import com.bank.metrics.BankMetrics;
+import com.bank.model.Money;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs payment batches: many transfers submitted at once and applied in the background in
+ * chunks of {@code bank.batch.chunk-size}, each chunk one database transaction (see
+ * {@link BankService#transferChunk}). Ownership is resolved once per batch. Batches and
+ * their results are kept in memory for {@code bank.batch.retention} after they finish.
+ * Workers are virtual threads when {@code spring.threads.virtual.enabled} is in effect.
+ */
+@Service
+public class PaymentBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentBatchService.class);
+
+    // Two accounts per transfer must fit in one IN list, which Oracle caps at 1000 entries.
+    private static final int MAX_CHUNK_SIZE = 500;
+
+    private final BankService bankService;
+    private final AccountOwnershipService ownershipService;
+    private final ReadYourWrites readYourWrites;
+    private final BankMetrics metrics;
+    private final int chunkSize;
+    private final int maxLines;
+    private final Duration retention;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, PaymentBatch> batches = new ConcurrentHashMap<>();
+
+    public PaymentBatchService(BankService bankService,
+                               AccountOwnershipService ownershipService,
+                               ReadYourWrites readYourWrites,
+                               BankMetrics metrics,
+                               Environment environment,
+                               @Value("${bank.batch.chunk-size:250}") int chunkSize,
+                               @Value("${bank.batch.max-lines:100000}") int maxLines,
+                               @Value("${bank.batch.retention:1h}") Duration retention,
+                               @Value("${bank.batch.workers:2}") int workers,
+                               @Value("${bank.batch.queue-capacity:16}") int queueCapacity) {
+        this.bankService = bankService;
+        this.ownershipService = ownershipService;
+        this.readYourWrites = readYourWrites;
+        this.metrics = metrics;
+        this.chunkSize = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        this.maxLines = maxLines;
+        this.retention = retention;
+        ThreadFactory threadFactory;
+        if (Threading.VIRTUAL.isActive(environment)) {
+            threadFactory = new VirtualThreadTaskExecutor("payment-batch-").getVirtualThreadFactory();
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            threadFactory = task -> {
+                Thread thread = new Thread(task, "payment-batch-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        // The pool bounds how many batches run at once, virtual threads or not.
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a batch for the given user.
+     *
+     * @throws IllegalArgumentException if the batch is empty or too large.
+     * @throws IllegalStateException if too many batches are already queued.
+     */
+    public PaymentBatch submit(String email, List<TransferRequest> transfers) {
+        if (transfers.isEmpty()) {
+            throw new IllegalArgumentException("A batch must contain at least one transfer.");
+        }
+        if (transfers.size() > maxLines) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxLines + " transfers.");
+        }
+        evictExpired();
+
+        AccountOwnershipService.Ownership ownership = ownershipService.getOwnership(email);
+        Set<Long> owned = ownership != null ? ownership.getAccountIds() : Set.of();
+        PaymentBatch batch = new PaymentBatch(UUID.randomUUID().toString(), email, List.copyOf(transfers));
+        batches.put(batch.getId(), batch);
+        try {
+            executor.execute(() -> run(batch, owned));
+        } catch (RejectedExecutionException e) {
+            batches.remove(batch.getId());
+            throw new IllegalStateException("Too many payment batches are queued; try again later.");
+        }
+        return batch;
+    }
+
+    /**
+     * @return the batch, or null if it does not exist, has expired or belongs to someone else.
+     */
+    public PaymentBatch getBatch(String email, String id) {
+        PaymentBatch batch = batches.get(id);
+        return batch != null && batch.getOwner().equals(email) ? batch : null;
+    }
+
+    /**
+     * Reads {@code fromAccountId,toAccountId,amount} lines; a first line that does not
+     * start with a digit is taken as a header, and blank lines are skipped.
+     *
+     * @throws IllegalArgumentException naming the first malformed line.
+     */
+    public List<TransferRequest> parseCsv(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        List<TransferRequest> transfers = new ArrayList<>();
+        String line;
+        int number = 0;
+        while ((line = in.readLine()) != null) {
+            number++;
+            line = line.strip();
+            if (line.isEmpty() || (number == 1 && !Character.isDigit(line.charAt(0)))) {
+                continue;
+            }
+            if (transfers.size() == maxLines) {
+                throw new IllegalArgumentException("A batch may contain at most " + maxLines + " transfers.");
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Line " + number + ": expected fromAccountId,toAccountId,amount.");
+            }
+            try {
+                transfers.add(new TransferRequest(Long.valueOf(fields[0].strip()), Long.valueOf(fields[1].strip()),
+                    Money.valueOf(fields[2].strip())));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + number + ": " + e.getMessage());
+            }
+        }
+        return transfers;
+    }
+
+    private void run(PaymentBatch batch, Set<Long> owned) {
+        List<TransferRequest> transfers = batch.start();
+        long started = System.nanoTime();
+        try {
+            for (int start = 0; start < transfers.size(); start += chunkSize) {
+                // Workers have no principal; the owner's reads stay on the primary while the batch runs.
+                readYourWrites.recordWrite(batch.getOwner());
+                batch.append(runChunk(transfers, start, Math.min(start + chunkSize, transfers.size()), owned));
+            }
+        } finally {
+            batch.finish();
+        }
+        log.info("Payment batch {} of {} transfers finished in {} ms: {}", batch.getId(), transfers.size(),
+            (System.nanoTime() - started) / 1_000_000, batch.status());
+    }
+
+    private List<BatchLineResult> runChunk(List<TransferRequest> transfers, int start, int end, Set<Long> owned) {
+        TransferOutcome[] outcomes = new TransferOutcome[end - start];
+        List<TransferRequest> allowed = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            Long fromId = transfers.get(i).fromAccountId();
+            if (fromId != null && !owned.contains(fromId)) {
+                metrics.failure("transferChunk", BankMetrics.ACCESS_DENIED);
+                outcomes[i - start] = TransferOutcome.rejected(BankMetrics.ACCESS_DENIED, "Access Denied");
+            } else {
+                allowed.add(transfers.get(i));
+            }
+        }
+
+        List<TransferOutcome> applied;
+        try {
+            applied = bankService.transferChunk(allowed);
+        } catch (RuntimeException e) {
+            // The chunk rolled back as a whole; later chunks are still attempted.
+            log.error("Payment batch chunk of lines {}-{} failed", start + 1, end, e);
+            applied = new ArrayList<>(allowed.size());
+            for (int i = 0; i < allowed.size(); i++) {
+                applied.add(TransferOutcome.rejected(BankMetrics.ERROR, "The transfer could not be processed."));
+            }
+        }
+        int next = 0;
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == null) {
+                outcomes[i] = applied.get(next++);
+            }
+        }
+
+        List<BatchLineResult> results = new ArrayList<>(outcomes.length);
+        for (int i = 0; i < outcomes.length; i++) {
+            TransferRequest t = transfers.get(start + i);
+            TransferOutcome outcome = outcomes[i];
+            results.add(new BatchLineResult(start + i + 1,
+                outcome.isCompleted() ? BatchLineResult.COMPLETED : BatchLineResult.REJECTED,
+                t.fromAccountId(), t.toAccountId(), t.amount(),
+                outcome.balanceAfter(), outcome.cause(), outcome.message()));
+        }
+        return results;
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        batches.values().removeIf(batch -> batch.isExpired(cutoff));
+    }
+}
@@ -0,0 +1,137 @@
+package com.bank.service;
+
+import com.bank.archive.LedgerArchive;
+import com.bank.dto.TransactionView;
+import com.bank.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes an account's full ledger as CSV or NDJSON straight from a database cursor, merged
+ * with its archived rows (see {@link LedgerArchive}). Rows are projections, never managed
+ * entities, and each one is written and dropped before the next is fetched, so memory use
+ * does not depend on the account's history.
+ */
+@Service
+public class StatementExporter {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format parse(String value) {
+            for (Format f : values()) {
+                if (f.name().equalsIgnoreCase(value)) {
+                    return f;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported statement format: " + value);
+        }
+    }
+
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    private final TransactionRepository txRepo;
+    private final LedgerArchive archive;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public StatementExporter(TransactionRepository txRepo, LedgerArchive archive) {
+        this.txRepo = txRepo;
+        this.archive = archive;
+    }
+
+    /**
+     * Streams every ledger row of the account to {@code out}, oldest first.
+     * The stream is flushed but not closed.
+     */
+    @Transactional(readOnly = true)
+    public void export(Long accountId, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        // Archived rows are read from their segments a block at a time, alongside the cursor.
+        LedgerArchive.Snapshot[] archived = new LedgerArchive.Snapshot[1];
+        try (Stream<TransactionView> rows = archive.read(accountId, snapshot -> {
+                archived[0] = snapshot;
+                return txRepo.streamByAccountId(accountId);
+            })) {
+            Iterator<TransactionView> merged = archived[0].isEmpty() ? rows.iterator()
+                : LedgerArchive.merge(List.of(archived[0].iterate(accountId), rows.iterator()), LedgerArchive.OLDEST_FIRST);
+            if (format == Format.CSV) {
+                writeCsv(merged, writer);
+            } else {
+                writeNdjson(merged, writer);
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(Iterator<TransactionView> rows, Writer writer) throws IOException {
+        writer.write("id,transaction_date,type,amount,balance_after\n");
+        while (rows.hasNext()) {
+            TransactionView tx = rows.next();
+            writer.write(String.valueOf(tx.getId()));
+            writer.write(',');
+            writer.write(tx.getTransactionDate().toString());
+            writer.write(',');
+            writer.write(tx.getType());
+            writer.write(',');
+            writer.write(tx.getAmount().toString());
+            writer.write(',');
+            if (tx.getBalanceAfterTransaction() != null) {
+                writer.write(tx.getBalanceAfterTransaction().toString());
+            }
+            writer.write('\n');
+        }
+    }
+
+    private void writeNdjson(Iterator<TransactionView> rows, Writer writer) throws IOException {
+        JsonGenerator json = jsonFactory.createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        boolean any = false;
+        while (rows.hasNext()) {
+            TransactionView tx = rows.next();
+            json.writeStartObject();
+            json.writeNumberField("id", tx.getId());
+            json.writeStringField("transactionDate", tx.getTransactionDate().toString());
+            json.writeStringField("type", tx.getType());
+            json.writeFieldName("amount");
+            json.writeNumber(tx.getAmount().toString());
+            if (tx.getBalanceAfterTransaction() != null) {
+                json.writeFieldName("balanceAfterTransaction");
+                json.writeNumber(tx.getBalanceAfterTransaction().toString());
+            } else {
+                json.writeNullField("balanceAfterTransaction");
+            }
+            json.writeEndObject();
+            any = true;
+        }
+        if (any) {
+            json.writeRaw('\n');
+        }
+        json.flush();
+    }
+}
@@ -0,0 +1,22 @@
+package com.bank.service;
+
+import com.bank.model.Money;
+
+/**
+ * Result of one transfer applied as part of a chunk: either the new balance of the source
+ * account or the reason it was rejected.
+ */
+public record TransferOutcome(Money balanceAfter, String cause, String message) {
+
+    public static TransferOutcome completed(Money balanceAfter) {
+        return new TransferOutcome(balanceAfter, null, null);
+    }
+
+    public static TransferOutcome rejected(String cause, String message) {
+        return new TransferOutcome(null, cause, message);
+    }
+
+    public boolean isCompleted() {
+        return cause == null;
+    }
+}
@@ -0,0 +1,40 @@
+-- Baseline: the schema as Hibernate mapped it before versioned migrations, with one id per
+-- sequence call. Databases created earlier with ddl-auto=update are recorded at this
+-- version without running it (see SchemaMigrations) and then take the later scripts.
+-- Written for Oracle; H2 runs it in MODE=Oracle.
+
+create sequence account_sequence start with 1 increment by 1;
+
+create sequence transaction_sequence start with 1 increment by 1;
+
+create sequence user_sequence start with 1 increment by 1;
+
+create table accounts (
+    balance number(38,2) not null,
+    creation_date timestamp(6),
+    id number(19,0) not null,
+    user_id number(19,0) not null,
+    primary key (id)
+);
+
+create table transactions (
+    amount number(38,2) not null,
+    balance_after_transaction number(38,2),
+    account_id number(19,0) not null,
+    id number(19,0) not null,
+    transaction_date timestamp(6) not null,
+    type varchar2(255 char) not null,
+    primary key (id)
+);
+
+create table users (
+    id number(19,0) not null,
+    email varchar2(255 char) unique,
+    name varchar2(255 char),
+    password varchar2(255 char),
+    primary key (id)
+);
+
+alter table accounts add constraint fk_accounts_user foreign key (user_id) references users (id);
+
+alter table transactions add constraint fk_transactions_account foreign key (account_id) references accounts (id);
@@ -0,0 +1,3 @@
+-- Keyset pagination of an account's history: (transaction_date, id) within the account.
+
+create index idx_tx_account_date_id on transactions (account_id, transaction_date, id);
@@ -0,0 +1,8 @@
+-- Ids are allocated 50 at a time (allocationSize = 50, pooled-lo optimizer): each sequence
+-- value is the first id of a block, so the sequences must step by 50.
+
+alter sequence account_sequence increment by 50;
+
+alter sequence transaction_sequence increment by 50;
+
+alter sequence user_sequence increment by 50;
@@ -0,0 +1,8 @@
+-- Ledger engine (bank.ledger.mode=engine): how far each shard's journal is in the tables.
+
+create table ledger_checkpoints (
+    shard number(10,0) not null,
+    flushed_sequence number(19,0) not null,
+    applied_sources varchar2(4000 char),
+    primary key (shard)
+);
@@ -0,0 +1,25 @@
+-- Daily and monthly closing balances per account, and the last day they were written for.
+
+create sequence balance_checkpoint_sequence start with 1 increment by 50;
+
+create table balance_checkpoint_cursor (
+    completed_through date not null,
+    id number(10,0) not null,
+    primary key (id)
+);
+
+create table balance_checkpoints (
+    closing_balance number(38,2) not null,
+    credits number(38,2) not null,
+    debits number(38,2) not null,
+    opening_balance number(38,2) not null,
+    period_start date not null,
+    period varchar2(5 char) not null check (period in ('DAY','MONTH')),
+    account_id number(19,0) not null,
+    id number(19,0) not null,
+    transaction_count number(19,0) not null,
+    primary key (id),
+    constraint uk_balance_checkpoint unique (account_id, period, period_start)
+);
+
+create index idx_tx_date on transactions (transaction_date);
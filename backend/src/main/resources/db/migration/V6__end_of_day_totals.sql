@@ -0,0 +1,38 @@
+-- End-of-day totals per account, partition and bank, and the progress of each partition.
+
+create table daily_account_totals (
+    amount number(38,2) not null,
+    business_date date not null,
+    account_id number(19,0) not null,
+    tx_count number(19,0) not null,
+    type varchar2(20 char) not null,
+    primary key (business_date, account_id, type)
+);
+
+create table daily_bank_totals (
+    amount number(38,2) not null,
+    business_date date not null,
+    tx_count number(19,0) not null,
+    type varchar2(20 char) not null,
+    primary key (business_date, type)
+);
+
+create table daily_partition_totals (
+    amount number(38,2) not null,
+    business_date date not null,
+    partition_no number(10,0) not null,
+    tx_count number(19,0) not null,
+    type varchar2(20 char) not null,
+    primary key (business_date, partition_no, type)
+);
+
+create table daily_totals_partitions (
+    business_date date not null,
+    partition_no number(10,0) not null,
+    account_count number(19,0),
+    completed_at timestamp(6),
+    first_account_id number(19,0) not null,
+    last_account_id number(19,0) not null,
+    tx_count number(19,0),
+    primary key (business_date, partition_no)
+);
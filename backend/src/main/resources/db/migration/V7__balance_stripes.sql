@@ -0,0 +1,10 @@
+-- Hot accounts: a striped account's balance is the sum of its stripe rows.
+
+alter table accounts add balance_stripes number(10,0);
+
+create table account_balance_stripes (
+    balance number(38,2) not null,
+    stripe_no number(10,0) not null,
+    account_id number(19,0) not null,
+    primary key (stripe_no, account_id)
+);
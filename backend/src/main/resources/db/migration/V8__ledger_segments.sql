@@ -0,0 +1,19 @@
+-- Ledger archive: the catalog of segment files that hold archived ledger rows.
+
+create sequence ledger_segment_sequence start with 1 increment by 1;
+
+create table ledger_segments (
+    segment_month date not null,
+    created_at timestamp(6) not null,
+    file_size number(19,0) not null,
+    first_account_id number(19,0) not null,
+    first_transaction_date timestamp(6) not null,
+    id number(19,0) not null,
+    last_account_id number(19,0) not null,
+    last_transaction_date timestamp(6) not null,
+    row_count number(19,0) not null,
+    file_name varchar2(255 char) not null unique,
+    primary key (id)
+);
+
+create index idx_ledger_segment_accounts on ledger_segments (first_account_id, last_account_id);
@@ -0,0 +1,26 @@
+-- Ledger outbox: every ledger row for delivery to the sinks, and the progress per partition.
+
+create sequence ledger_outbox_sequence start with 1 increment by 1;
+
+create table ledger_outbox (
+    amount number(38,2) not null,
+    balance_after_transaction number(38,2),
+    partition_no number(10,0) not null,
+    account_id number(19,0) not null,
+    created_at timestamp(6) not null,
+    id number(19,0) not null,
+    transaction_date timestamp(6) not null,
+    transaction_id number(19,0) not null,
+    type varchar2(20 char) not null,
+    primary key (id)
+);
+
+create table outbox_partitions (
+    partition_no number(10,0) not null,
+    delivered_count number(19,0) not null,
+    delivered_through number(19,0) not null,
+    updated_at timestamp(6),
+    primary key (partition_no)
+);
+
+create index idx_ledger_outbox_partition on ledger_outbox (partition_no, id);
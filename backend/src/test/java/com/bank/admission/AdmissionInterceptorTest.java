@@ -0,0 +1,80 @@
+package com.bank.admission;
+
+import com.bank.service.AccountOwnershipService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The interceptor in front of a deposit handler, with per-account buckets of one token that
+ * never refill during the test.
+ */
+class AdmissionInterceptorTest {
+
+    private static final String OWNER = "owner@example.com";
+    private static final String OTHER = "other@example.com";
+    private static final long ACCOUNT = 7;
+
+    private final AccountOwnershipService ownership = mock(AccountOwnershipService.class);
+    private AdmissionControl admissionControl;
+    private AdmissionInterceptor interceptor;
+
+    static class Handler {
+        @Admission(value = "deposit", account = "id")
+        public void deposit() {
+        }
+    }
+
+    private void setUp(String userRate, String userBurst) {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("bank.admission.default.per-user.rate", userRate)
+            .withProperty("bank.admission.default.per-user.burst", userBurst)
+            .withProperty("bank.admission.default.per-account.rate", "1e-6")
+            .withProperty("bank.admission.default.per-account.burst", "1");
+        admissionControl = new AdmissionControl(new SimpleMeterRegistry(), environment);
+        interceptor = new AdmissionInterceptor(admissionControl, ownership);
+        when(ownership.isOwner(OWNER, ACCOUNT)).thenReturn(true);
+        when(ownership.isOwner(OTHER, ACCOUNT)).thenReturn(false);
+    }
+
+    @Test
+    void requestsAgainstAnotherUsersAccountDoNotSpendItsTokens() throws Exception {
+        setUp("1000", "1000");
+        for (int i = 0; i < 10; i++) {
+            preHandle(OTHER);
+        }
+        assertThatCode(() -> preHandle(OWNER)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> preHandle(OWNER)).isInstanceOf(AdmissionRejectedException.class)
+            .hasMessageContaining("account");
+    }
+
+    @Test
+    void rejectionByTheAccountGivesTheUserTokenBack() throws Exception {
+        // Two user tokens: one for the admitted request, one left after the account rejection.
+        setUp("1e-6", "2");
+        preHandle(OWNER);
+        assertThatThrownBy(() -> preHandle(OWNER)).hasMessageContaining("account");
+        assertThatCode(() -> admissionControl.admitUser("deposit", OWNER)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> admissionControl.admitUser("deposit", OWNER))
+            .isInstanceOf(AdmissionRejectedException.class);
+    }
+
+    private void preHandle(String principal) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/accounts/" + ACCOUNT + "/deposit");
+        request.setUserPrincipal(() -> principal);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", Long.toString(ACCOUNT)));
+        interceptor.preHandle(request, new MockHttpServletResponse(),
+            new HandlerMethod(new Handler(), Handler.class.getMethod("deposit")));
+    }
+}
@@ -0,0 +1,147 @@
+package com.bank.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * The bucket arithmetic of the limiter on a clock the test controls: 10 tokens a second
+ * (one per 100 ms) with a burst of 3.
+ */
+class KeyedRateLimiterTest {
+
+    private static final long MS = 1_000_000;
+    private static final long INTERVAL = 100 * MS;
+    private static final int BURST = 3;
+    // Away from 0, so that the arithmetic is checked on a clock like System.nanoTime.
+    private static final long T0 = Long.MAX_VALUE - 3_600_000 * MS;
+
+    private final KeyedRateLimiter limiter = new KeyedRateLimiter(10, BURST);
+
+    @Test
+    void allowsABurstThenReportsTheWait() {
+        for (int i = 0; i < BURST; i++) {
+            assertThat(limiter.acquire("k", T0)).isZero();
+        }
+        assertThat(limiter.acquire("k", T0)).isEqualTo(INTERVAL);
+        assertThat(limiter.acquire("k", T0 + 40 * MS)).isEqualTo(60 * MS);
+        // Refusals take nothing, so retrying does not push the wait out.
+        assertThat(limiter.acquire("k", T0 + 40 * MS)).isEqualTo(60 * MS);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        for (int i = 0; i < BURST; i++) {
+            limiter.acquire("k", T0);
+        }
+        assertThat(limiter.acquire("k", T0 + INTERVAL)).isZero();
+        assertThat(limiter.acquire("k", T0 + INTERVAL)).isEqualTo(INTERVAL);
+        assertThat(limiter.acquire("k", T0 + 3 * INTERVAL)).isZero();
+        assertThat(limiter.acquire("k", T0 + 3 * INTERVAL)).isZero();
+        assertThat(limiter.acquire("k", T0 + 3 * INTERVAL)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void idleTimeNeverBanksMoreThanTheBurst() {
+        limiter.acquire("k", T0);
+        long later = T0 + 60_000 * MS;
+        for (int i = 0; i < BURST; i++) {
+            assertThat(limiter.acquire("k", later)).isZero();
+        }
+        assertThat(limiter.acquire("k", later)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        for (int i = 0; i < BURST; i++) {
+            limiter.acquire("a", T0);
+        }
+        assertThat(limiter.acquire("a", T0)).isPositive();
+        assertThat(limiter.acquire("b", T0)).isZero();
+        assertThat(limiter.acquire(42L, T0)).isZero();
+    }
+
+    @Test
+    void releaseGivesOneTokenBackButNeverOverfills() {
+        for (int i = 0; i < BURST; i++) {
+            limiter.acquire("k", T0);
+        }
+        limiter.release("k", T0);
+        assertThat(limiter.acquire("k", T0)).isZero();
+        assertThat(limiter.acquire("k", T0)).isEqualTo(INTERVAL);
+
+        // The bucket is full again by now, and a release cannot add to it.
+        long later = T0 + 10 * INTERVAL;
+        limiter.release("k", later);
+        limiter.release("missing", later);
+        for (int i = 0; i < BURST; i++) {
+            assertThat(limiter.acquire("k", later)).isZero();
+        }
+        assertThat(limiter.acquire("k", later)).isEqualTo(INTERVAL);
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void sweepDropsOnlyFullBuckets() {
+        limiter.acquire("idle", T0);
+        for (int i = 0; i < BURST; i++) {
+            limiter.acquire("busy", T0 + 50 * MS);
+        }
+        assertThat(limiter.sweep(T0 + INTERVAL)).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(limiter.acquire("busy", T0 + INTERVAL)).isEqualTo(50 * MS);
+
+        // A dropped bucket comes back full.
+        for (int i = 0; i < BURST; i++) {
+            assertThat(limiter.acquire("idle", T0 + INTERVAL)).isZero();
+        }
+        assertThat(limiter.sweep(T0 + 10 * INTERVAL)).isEqualTo(2);
+        assertThat(limiter.size()).isZero();
+    }
+
+    @Test
+    void concurrentAcquirersShareTheBurstExactly() throws Exception {
+        KeyedRateLimiter shared = new KeyedRateLimiter(1, 100);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> granted = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                granted.add(pool.submit(() -> {
+                    start.await();
+                    int taken = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        if (shared.acquire("k", T0) == 0) {
+                            taken++;
+                        }
+                    }
+                    return taken;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : granted) {
+                total += future.get(30, TimeUnit.SECONDS);
+            }
+            assertThat(total).isEqualTo(100);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveRatesAndBursts() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new KeyedRateLimiter(0, 1));
+        assertThatIllegalArgumentException().isThrownBy(() -> new KeyedRateLimiter(1, 0));
+    }
+}
@@ -0,0 +1,172 @@
+package com.bank.archive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Segments written by {@link SegmentWriter} and read back by {@link SegmentReader}, with
+ * small blocks so that accounts span blocks and seeks land on block boundaries.
+ */
+class SegmentRoundTripTest {
+
+    private static final int BLOCK_ROWS = 8;
+    private static final LocalDateTime START = LocalDateTime.of(2019, 12, 31, 23, 59, 59, 123_456_000);
+
+    @TempDir
+    Path dir;
+
+    private final List<ArchivedRow> written = new ArrayList<>();
+    private Path segment;
+
+    @BeforeEach
+    void writeSegment() throws IOException {
+        long id = 1;
+        // Account 3 spans six blocks; some of its rows share a date and differ only by id.
+        for (long account : new long[] { 1, 3, 7 }) {
+            int count = account == 1 ? 5 : account == 3 ? 37 : 1;
+            for (int i = 0; i < count; i++) {
+                long micros = ArchivedRow.toMicros(START.plusSeconds(i / 2 * 90));
+                byte type = (byte) (i % ArchivedRow.TYPES.length);
+                boolean hasBalance = i % 5 != 0;
+                written.add(new ArchivedRow(account, id++, micros, type, 100 + i, hasBalance, hasBalance ? 1000 * i : 0));
+            }
+        }
+        segment = dir.resolve("segment-1.seg");
+        try (SegmentWriter writer = new SegmentWriter(segment, BLOCK_ROWS)) {
+            for (ArchivedRow row : written) {
+                writer.append(row);
+            }
+            assertThat(writer.rows()).isEqualTo(written.size());
+            assertThat(writer.firstMicros()).isEqualTo(written.get(0).epochMicros);
+            assertThat(writer.lastMicros()).isEqualTo(ArchivedRow.toMicros(START.plusSeconds(18 * 90)));
+            writer.finish();
+        }
+    }
+
+    @Test
+    void readsEveryRowBackInBothDirections() throws IOException {
+        SegmentReader reader = new SegmentReader(segment);
+
+        assertThat(list(reader.after(Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE)))
+            .usingRecursiveFieldByFieldElementComparator()
+            .containsExactlyElementsOf(written);
+        assertThat(list(reader.before(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE)))
+            .usingRecursiveFieldByFieldElementComparator()
+            .containsExactlyElementsOf(reversed(written));
+    }
+
+    @Test
+    void seeksStrictlyPastEveryKey() throws IOException {
+        SegmentReader reader = new SegmentReader(segment);
+        for (int k = 0; k < written.size(); k++) {
+            ArchivedRow key = written.get(k);
+            assertThat(list(reader.after(key.accountId, key.epochMicros, key.id)))
+                .as("after row %d", k)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(written.subList(k + 1, written.size()));
+            assertThat(list(reader.before(key.accountId, key.epochMicros, key.id)))
+                .as("before row %d", k)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(reversed(written.subList(0, k)));
+        }
+        // A key between two accounts, as a history query of account 2 would use.
+        assertThat(reader.after(2, Long.MIN_VALUE, Long.MIN_VALUE).next().accountId).isEqualTo(3);
+        assertThat(reader.before(2, Long.MAX_VALUE, Long.MAX_VALUE).next().accountId).isEqualTo(1);
+    }
+
+    @Test
+    void directoryTotalsEachAccount() throws IOException {
+        SegmentReader reader = new SegmentReader(segment);
+        List<ArchivedRow> rows = written.stream().filter(r -> r.accountId == 3).toList();
+        SegmentReader.AccountEntry entry = reader.account(3);
+
+        assertThat(entry.firstBlock()).isZero();
+        assertThat(entry.rows()).isEqualTo(rows.size());
+        assertThat(entry.credits()).isEqualTo(rows.stream().filter(ArchivedRow::isCredit).mapToLong(r -> r.amount).sum());
+        assertThat(entry.debits()).isEqualTo(rows.stream().filter(r -> !r.isCredit()).mapToLong(r -> r.amount).sum());
+        assertThat(entry.firstMicros()).isEqualTo(rows.get(0).epochMicros);
+        assertThat(entry.lastMicros()).isEqualTo(rows.get(rows.size() - 1).epochMicros);
+        // Account 7's only row follows account 3's 37 rows and account 1's 5.
+        assertThat(reader.account(7).firstBlock()).isEqualTo(42 / BLOCK_ROWS);
+
+        assertThat(reader.account(2)).isNull();
+        assertThat(reader.accounts(2, 7)).extracting(SegmentReader.AccountEntry::accountId).containsExactly(3L, 7L);
+        assertThat(reader.accounts(0, Long.MAX_VALUE)).extracting(SegmentReader.AccountEntry::accountId)
+            .containsExactly(1L, 3L, 7L);
+    }
+
+    @Test
+    void keepsDatesToTheMicrosecond() {
+        for (LocalDateTime date : new LocalDateTime[] { START, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000) }) {
+            assertThat(ArchivedRow.toDate(ArchivedRow.toMicros(date))).isEqualTo(date);
+            assertThat(ArchivedRow.toDate(ArchivedRow.toMicros(date.plusNanos(999)))).isEqualTo(date);
+        }
+        ArchivedRow row = written.get(1);
+        assertThat(row.toView().getTransactionDate()).isEqualTo(START);
+        assertThat(row.toView().getType()).isEqualTo("WITHDRAW");
+    }
+
+    @Test
+    void refusesRowsOutOfOrder() throws IOException {
+        try (SegmentWriter writer = new SegmentWriter(dir.resolve("segment-2.seg"), BLOCK_ROWS)) {
+            writer.append(new ArchivedRow(5, 10, 1000, (byte) 0, 1, false, 0));
+            assertThatThrownBy(() -> writer.append(new ArchivedRow(5, 9, 1000, (byte) 0, 1, false, 0)))
+                .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> writer.append(new ArchivedRow(4, 11, 2000, (byte) 0, 1, false, 0)))
+                .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void detectsCorruption() throws IOException {
+        // The first block starts right after the header.
+        flipByte(SegmentWriter.HEADER_SIZE + 3);
+        SegmentReader reader = new SegmentReader(segment);
+        assertThatThrownBy(() -> reader.after(Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("block 0");
+
+        // The last byte of the account directory, which the footer's checksum covers.
+        flipByte(-SegmentWriter.FOOTER_SIZE - 1);
+        assertThatThrownBy(() -> new SegmentReader(segment))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("index checksum");
+    }
+
+    private void flipByte(long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = offset >= 0 ? offset : channel.size() + offset;
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            b.put(0, (byte) (b.get(0) ^ 0x40)).rewind();
+            channel.write(b, position);
+        }
+    }
+
+    private static List<ArchivedRow> reversed(List<ArchivedRow> rows) {
+        List<ArchivedRow> list = new ArrayList<>(rows);
+        Collections.reverse(list);
+        return list;
+    }
+
+    private static List<ArchivedRow> list(Iterator<ArchivedRow> rows) {
+        List<ArchivedRow> list = new ArrayList<>();
+        rows.forEachRemaining(list::add);
+        return list;
+    }
+}
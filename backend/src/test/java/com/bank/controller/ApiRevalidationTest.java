@@ -0,0 +1,118 @@
+package com.bank.controller;
+
+import com.bank.model.Money;
+import com.bank.model.User;
+import com.bank.service.BankService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GETs of the JSON API: a matching {@code If-None-Match} is answered 304 until
+ * a transaction of the account commits, and then the new state comes back under a new ETag.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+class ApiRevalidationTest {
+
+    private static final String EMAIL = "etag@example.com";
+    private static final String PASSWORD = "etag";
+
+    // Opened once and shared by the tests, like the context.
+    private static Long accountId;
+    private static Long otherAccountId;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private BankService bankService;
+
+    @BeforeEach
+    void openAccounts() {
+        if (accountId != null) {
+            return;
+        }
+        User user = new User();
+        user.setName("Etag");
+        user.setEmail(EMAIL);
+        user.setPassword(PASSWORD);
+        user = bankService.registerUser(user);
+        accountId = bankService.createAccount(user).getId();
+        otherAccountId = bankService.createAccount(user).getId();
+        bankService.deposit(accountId, Money.valueOf("100.00"));
+    }
+
+    @Test
+    void answersNotModifiedUntilTheAccountChanges() throws Exception {
+        String path = "/api/v1/accounts/" + accountId + "/balance";
+        MvcResult first = mvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, basic()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+            .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"" + accountId + "-");
+
+        mvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, basic()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""));
+
+        // A transaction of another account leaves this one's ETag alone.
+        bankService.deposit(otherAccountId, Money.valueOf("1.00"));
+        mvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, basic()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+
+        bankService.withdraw(accountId, Money.valueOf("30.00"));
+        MvcResult changed = mvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, basic())
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andReturn();
+        String newEtag = changed.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newEtag).isNotEqualTo(etag);
+        assertThat(changed.getResponse().getContentAsString()).contains("70.0");
+
+        // Every read of the account shares its version, so the history revalidates the same way.
+        mvc.perform(get("/api/v1/accounts/" + accountId + "/transactions")
+                .header(HttpHeaders.AUTHORIZATION, basic()).header(HttpHeaders.IF_NONE_MATCH, newEtag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void accountListChangesWithAnyOfItsAccounts() throws Exception {
+        MvcResult first = mvc.perform(get("/api/v1/accounts").header(HttpHeaders.AUTHORIZATION, basic()))
+            .andExpect(status().isOk())
+            .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/v1/accounts").header(HttpHeaders.AUTHORIZATION, basic())
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+
+        bankService.deposit(otherAccountId, Money.valueOf("5.00"));
+        mvc.perform(get("/api/v1/accounts").header(HttpHeaders.AUTHORIZATION, basic())
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    private static String basic() {
+        return "Basic " + Base64.getEncoder().encodeToString((EMAIL + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+    }
+}
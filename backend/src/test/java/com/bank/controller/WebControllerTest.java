@@ -0,0 +1,45 @@
+package com.bank.controller;
+
+import com.bank.dto.DashboardAccount;
+import com.bank.dto.DashboardView;
+import com.bank.service.BankService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The dashboard page for a signed-in session, with the service mocked.
+ */
+class WebControllerTest {
+
+    private final BankService bankService = mock(BankService.class);
+    private final WebController controller = new WebController();
+
+    WebControllerTest() {
+        ReflectionTestUtils.setField(controller, "bankService", bankService);
+    }
+
+    @Test
+    void rendersTheUsersDashboard() {
+        List<DashboardAccount> accounts = List.of();
+        when(bankService.getDashboard("a@example.com")).thenReturn(new DashboardView("A", accounts));
+        ExtendedModelMap model = new ExtendedModelMap();
+
+        assertThat(controller.dashboard(model, () -> "a@example.com")).isEqualTo("dashboard");
+        assertThat(model).containsEntry("userName", "A").containsEntry("accounts", accounts);
+    }
+
+    @Test
+    void sendsASessionWhoseUserIsGoneBackToLogin() {
+        ExtendedModelMap model = new ExtendedModelMap();
+
+        assertThat(controller.dashboard(model, () -> "gone@example.com")).isEqualTo("redirect:/login");
+        assertThat(model).isEmpty();
+    }
+}
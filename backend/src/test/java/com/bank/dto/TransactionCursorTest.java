@@ -0,0 +1,53 @@
+package com.bank.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Cursors as they travel through query strings and the API's JSON: whatever
+ * {@link TransactionCursor#encode()} produces must parse back to the same position.
+ */
+class TransactionCursorTest {
+
+    @Test
+    void roundTripsEveryTimestampPrecision() {
+        LocalDateTime[] dates = {
+            LocalDateTime.of(2024, 3, 1, 10, 0),                  // encodes without seconds
+            LocalDateTime.of(2024, 3, 1, 10, 0, 5),
+            LocalDateTime.of(2024, 3, 1, 10, 0, 5, 120_000_000),
+            LocalDateTime.of(2024, 12, 31, 23, 59, 59, 999_999_999),
+        };
+        for (LocalDateTime date : dates) {
+            for (long id : new long[] { 1, 1_000_000_007L, Long.MAX_VALUE }) {
+                TransactionCursor parsed = TransactionCursor.parse(new TransactionCursor(date, id).encode());
+                assertThat(parsed.getTransactionDate()).isEqualTo(date);
+                assertThat(parsed.getId()).isEqualTo(id);
+            }
+        }
+    }
+
+    @Test
+    void encodingIsSafeInAQueryString() {
+        String encoded = new TransactionCursor(LocalDateTime.of(2024, 3, 1, 10, 0, 5, 120_000_000), 42L).encode();
+        assertThat(encoded).isEqualTo("2024-03-01T10:00:05.120_42").matches("[0-9A-Za-z:._-]+");
+    }
+
+    @Test
+    void blankMeansNoCursor() {
+        assertThat(TransactionCursor.parse(null)).isNull();
+        assertThat(TransactionCursor.parse("")).isNull();
+        assertThat(TransactionCursor.parse("  ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedValues() {
+        for (String value : new String[] { "42", "_42", "2024-03-01T10:00_", "2024-03-01T10:00_x",
+                                           "2024-03-01_42", "yesterday_42", "2024-03-01T10:00:05" }) {
+            assertThatIllegalArgumentException().as(value).isThrownBy(() -> TransactionCursor.parse(value));
+        }
+    }
+}
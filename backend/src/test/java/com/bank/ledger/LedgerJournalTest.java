@@ -0,0 +1,95 @@
+package com.bank.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LedgerJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayStopsAtRecordWithBadChecksumAndNextAppendOverwritesIt() throws IOException {
+        write(1024, 3);
+        // A flipped bit in the amount of the last record.
+        corrupt(segments().get(0), 2 * LedgerJournal.RECORD_SIZE + 32, new byte[] { 0x7F });
+
+        LedgerJournal journal = new LedgerJournal(dir, 0, 1024);
+        List<JournalRecord> replayed = replay(journal);
+        assertThat(replayed).extracting(r -> r.sequence).containsExactly(1L, 2L);
+        assertThat(journal.lastSequence()).isEqualTo(2);
+
+        journal.append(deposit(3, 999));
+        journal.close();
+
+        List<JournalRecord> again = replay(new LedgerJournal(dir, 0, 1024));
+        assertThat(again).extracting(r -> r.sequence).containsExactly(1L, 2L, 3L);
+        assertThat(again.get(2).amount).isEqualTo(999);
+    }
+
+    @Test
+    void replayStopsAtTornRecord() throws IOException {
+        write(1024, 3);
+        // Only the first half of the last record reached the disk.
+        corrupt(segments().get(0), 2 * LedgerJournal.RECORD_SIZE + 32, new byte[LedgerJournal.RECORD_SIZE - 32]);
+
+        LedgerJournal journal = new LedgerJournal(dir, 0, 1024);
+        assertThat(replay(journal)).extracting(r -> r.sequence).containsExactly(1L, 2L);
+        journal.close();
+    }
+
+    @Test
+    void replayRejectsCorruptRecordBeforeTheLastSegment() throws IOException {
+        write(2, 5);
+        corrupt(segments().get(0), LedgerJournal.RECORD_SIZE + 32, new byte[] { 0x7F });
+
+        LedgerJournal journal = new LedgerJournal(dir, 0, 2);
+        assertThatThrownBy(() -> replay(journal))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Corrupt journal record");
+    }
+
+    private void write(int recordsPerSegment, int records) throws IOException {
+        LedgerJournal journal = new LedgerJournal(dir, 0, recordsPerSegment);
+        journal.replay(r -> { });
+        for (long sequence = 1; sequence <= records; sequence++) {
+            journal.append(deposit(sequence, 100 * sequence));
+        }
+        journal.close();
+    }
+
+    private static JournalRecord deposit(long sequence, long amount) {
+        return new JournalRecord(sequence, JournalRecord.DEPOSIT, 7, 0, amount, -1, 0, sequence);
+    }
+
+    private static List<JournalRecord> replay(LedgerJournal journal) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void corrupt(Path segment, long offset, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.bank.ledger;
+
+import com.bank.model.LedgerCheckpoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Restarts of the ledger shards over the same journal directory, with the database side
+ * (loaded balances and checkpoints) supplied by the test.
+ */
+class LedgerRecoveryTest {
+
+    private static final int SEGMENT_RECORDS = 1024;
+    // With two shards, account 2 lives in shard 0 and account 1 in shard 1.
+    private static final long A = 2;
+    private static final long B = 1;
+
+    @TempDir
+    Path dir;
+
+    private final LedgerEngine engine = mock(LedgerEngine.class);
+    private final List<LedgerEntry> flushed = new ArrayList<>();
+    private LedgerShard[] shards;
+
+    @AfterEach
+    void stopShards() throws Exception {
+        stop();
+    }
+
+    @Test
+    void replaysJournalAfterCheckpointOnTopOfFlushedBalances() throws Exception {
+        open(1);
+        shards[0].loadBalance(A, 0);
+        replay(new LedgerCheckpoint[1]);
+        start();
+        shards[0].submit(JournalRecord.DEPOSIT, A, 0, 100).join();
+        shards[0].submit(JournalRecord.WITHDRAW, A, 0, 30).join();
+        shards[0].submit(JournalRecord.DEPOSIT, A, 0, 5).join();
+        stop();
+
+        // The flusher got as far as sequence 2 before the crash.
+        flushed.clear();
+        open(1);
+        shards[0].loadBalance(A, 70);
+        replay(new LedgerCheckpoint[] { checkpoint(0, 2, "0") });
+
+        assertThat(flushed).singleElement().satisfies(entry -> {
+            assertThat(entry.sequence).isEqualTo(3);
+            assertThat(entry.type).isEqualTo("DEPOSIT");
+            assertThat(entry.balanceAfter).isEqualTo(75);
+        });
+        start();
+        assertThat(balance(A)).isEqualTo(75);
+        assertThat(shards[0].submit(JournalRecord.DEPOSIT, A, 0, 1).join()).isEqualTo(76);
+    }
+
+    @Test
+    void creditsLostTransferInExactlyOnce() throws Exception {
+        // The source shard journaled the debit; the process died before the credit.
+        LedgerJournal source = new LedgerJournal(dir, 0, SEGMENT_RECORDS);
+        source.replay(r -> { });
+        source.append(new JournalRecord(1, JournalRecord.TRANSFER_OUT, A, B, 40, -1, 0, 1));
+        source.close();
+
+        open(2);
+        loadOpeningBalances();
+        assertThat(replay(new LedgerCheckpoint[2])).isEqualTo(1);
+        start();
+        assertThat(balance(A)).isEqualTo(60);
+        assertThat(balance(B)).isEqualTo(40);
+        stop();
+
+        // Restart before anything was flushed: the credit is in shard 1's journal now.
+        flushed.clear();
+        open(2);
+        loadOpeningBalances();
+        assertThat(replay(new LedgerCheckpoint[2])).isZero();
+        assertThat(flushed).filteredOn(e -> e.type.equals("TRANSFER_IN")).hasSize(1);
+        start();
+        assertThat(balance(B)).isEqualTo(40);
+        stop();
+
+        // Restart after the flusher wrote everything, with its checkpoints.
+        flushed.clear();
+        open(2);
+        shards[0].loadBalance(A, 60);
+        shards[1].loadBalance(B, 40);
+        assertThat(replay(new LedgerCheckpoint[] { checkpoint(0, 1, "0,0"), checkpoint(1, 1, "1,0") })).isZero();
+        assertThat(flushed).isEmpty();
+        start();
+        assertThat(balance(A)).isEqualTo(60);
+        assertThat(balance(B)).isEqualTo(40);
+    }
+
+    private void open(int shardCount) throws IOException {
+        LedgerShard[] opened = new LedgerShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            opened[i] = new LedgerShard(i, shardCount, engine, new LedgerJournal(dir, i, SEGMENT_RECORDS), 1024);
+        }
+        when(engine.shardFor(anyLong())).thenAnswer(inv ->
+            opened[LedgerEngine.shardIndex(inv.getArgument(0), shardCount)]);
+        doAnswer(inv -> flushed.add(inv.getArgument(0))).when(engine).enqueueFlush(any());
+        shards = opened;
+    }
+
+    private void loadOpeningBalances() {
+        shards[0].loadBalance(A, 100);
+        shards[1].loadBalance(B, 0);
+    }
+
+    /**
+     * Replays every shard from its checkpoint (none means nothing was flushed) the way
+     * LedgerEngine.start does.
+     * @return the number of interrupted transfers completed.
+     */
+    private int replay(LedgerCheckpoint[] checkpoints) throws IOException {
+        for (LedgerShard shard : shards) {
+            LedgerCheckpoint checkpoint = checkpoints[shard.index];
+            long sequence = checkpoint == null ? 0 : checkpoint.getFlushedSequence();
+            String applied = checkpoint == null ? null : checkpoint.getAppliedSources();
+            shard.replay(sequence, LedgerFlusher.decode(applied, shards.length));
+        }
+        return LedgerEngine.recoverInterruptedTransfers(shards);
+    }
+
+    private void start() {
+        for (LedgerShard shard : shards) {
+            shard.start();
+        }
+    }
+
+    private void stop() throws Exception {
+        if (shards == null) {
+            return;
+        }
+        for (LedgerShard shard : shards) {
+            shard.stop();
+        }
+        shards = null;
+    }
+
+    private long balance(long account) {
+        return engine.shardFor(account).submit(LedgerShard.BALANCE, account, 0, 0).join();
+    }
+
+    private static LedgerCheckpoint checkpoint(int shard, long flushedSequence, String appliedSources) {
+        LedgerCheckpoint checkpoint = new LedgerCheckpoint();
+        checkpoint.setShard(shard);
+        checkpoint.setFlushedSequence(flushedSequence);
+        checkpoint.setAppliedSources(appliedSources);
+        return checkpoint;
+    }
+}
@@ -0,0 +1,73 @@
+package com.bank.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Parsing of request amounts and conversion from the decimal columns, which must never
+ * round: an amount with a fraction of a cent is refused rather than changed.
+ */
+class MoneyTest {
+
+    @Test
+    void parsesPlainDecimals() {
+        assertThat(Money.valueOf("12").getMinorUnits()).isEqualTo(1200);
+        assertThat(Money.valueOf("12.5").getMinorUnits()).isEqualTo(1250);
+        assertThat(Money.valueOf("1234.56").getMinorUnits()).isEqualTo(123456);
+        assertThat(Money.valueOf("-0.5").getMinorUnits()).isEqualTo(-50);
+        assertThat(Money.valueOf("+.05").getMinorUnits()).isEqualTo(5);
+        assertThat(Money.valueOf("7.").getMinorUnits()).isEqualTo(700);
+        assertThat(Money.valueOf(" 0012.30 ").getMinorUnits()).isEqualTo(1230);
+        assertThat(Money.valueOf("-0")).isSameAs(Money.ZERO);
+    }
+
+    @Test
+    void agreesWithBigDecimal() {
+        for (String text : new String[] { "0", "0.01", "-0.99", "100", "92233720368547758.07", "-92233720368547758.08" }) {
+            assertThat(Money.valueOf(text)).as(text).isEqualTo(Money.of(new BigDecimal(text)));
+            assertThat(Money.valueOf(text).toBigDecimal()).as(text).isEqualByComparingTo(text);
+        }
+    }
+
+    @Test
+    void refusesFractionsOfACentInsteadOfRounding() {
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.valueOf("0.005"));
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.valueOf("1.999"));
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.of(new BigDecimal("0.005")));
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.of(new BigDecimal("-1.999")));
+        // Extra zeros change nothing, so a decimal column's scale may be wider.
+        assertThat(Money.of(new BigDecimal("1.5000"))).isEqualTo(Money.valueOf("1.50"));
+    }
+
+    @Test
+    void refusesMalformedAndOversizedText() {
+        for (String text : new String[] { "", " ", "-", ".", "1.2.3", "1,000", "1e3", "12a", "--1", "0x10" }) {
+            assertThatIllegalArgumentException().as("'%s'", text).isThrownBy(() -> Money.valueOf(text));
+        }
+        assertThatThrownBy(() -> Money.valueOf("92233720368547758.08"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("too large");
+        assertThatIllegalArgumentException().isThrownBy(() -> Money.of(new BigDecimal("92233720368547758.08")));
+    }
+
+    @Test
+    void formatsWithAndWithoutGrouping() {
+        assertThat(Money.valueOf("-1234.5").format()).isEqualTo("-1,234.50");
+        assertThat(Money.valueOf("-1234.5").toString()).isEqualTo("-1234.50");
+        assertThat(Money.valueOf("1000000").format()).isEqualTo("1,000,000.00");
+        assertThat(Money.ofMinor(Long.MIN_VALUE).toString()).isEqualTo("-92233720368547758.08");
+    }
+
+    @Test
+    void arithmeticIsExactAndOverflowChecked() {
+        assertThat(Money.valueOf("0.1").plus(Money.valueOf("0.2"))).isEqualTo(Money.valueOf("0.3"));
+        assertThat(Money.valueOf("1").minus(Money.valueOf("1.01")).isNegative()).isTrue();
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)))
+            .isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,129 @@
+package com.bank.service;
+
+import com.bank.model.Money;
+import com.bank.repository.AccountBalanceStripeRepository;
+import com.bank.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Debits in the jpa ledger mode against repositories that stand in for the rows: when no
+ * single guarded UPDATE covers the amount, the debit must fall back to the whole balance,
+ * row plus stripes, under lock.
+ */
+class HotAccountBalancesTest {
+
+    private static final Long ID = 7L;
+
+    private final AccountRepository accountRepo = mock(AccountRepository.class);
+    private final AccountBalanceStripeRepository stripeRepo = mock(AccountBalanceStripeRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HotAccountBalances balances = new HotAccountBalances(accountRepo, stripeRepo,
+        mock(TransactionTemplate.class), mock(JdbcTemplate.class), meterRegistry, "jpa");
+
+    @Test
+    void plainDebitNeedsNoLock() {
+        when(accountRepo.debit(ID, amount("30.00"))).thenReturn(1);
+
+        assertThat(balances.debit(ID, Money.valueOf("30"))).isTrue();
+        verify(accountRepo, never()).lockBalance(anyLong());
+    }
+
+    @Test
+    void debitOfAccountStripedElsewhereFallsBackToTheWholeBalance() {
+        // Not striped on this instance: the row holds 10.00, its stripes 50.00 and 50.01.
+        when(accountRepo.debit(ID, amount("30.00"))).thenReturn(0);
+        when(accountRepo.lockBalance(ID)).thenReturn(Optional.of(amount("10.00")));
+        when(stripeRepo.lockStripes(ID)).thenReturn(stripes("50.00", "50.01"));
+
+        assertThat(balances.debit(ID, Money.valueOf("30"))).isTrue();
+        // 80.01 is left, spread evenly with the odd cent on stripe 0.
+        verify(accountRepo).setBalance(ID, BigDecimal.ZERO);
+        verify(stripeRepo).setBalance(ID, 0, amount("40.01"));
+        verify(stripeRepo).setBalance(ID, 1, amount("40.00"));
+        assertThat(meterRegistry.counter("bank.hotaccounts.rebalances").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fallbackRefusesWhatTheWholeBalanceDoesNotCover() {
+        when(accountRepo.lockBalance(ID)).thenReturn(Optional.of(amount("10.00")));
+        when(stripeRepo.lockStripes(ID)).thenReturn(stripes("50.00", "50.01"));
+
+        assertThat(balances.debit(ID, Money.valueOf("110.02"))).isFalse();
+        verify(accountRepo, never()).setBalance(any(), any());
+        verify(stripeRepo, never()).setBalance(any(), anyInt(), any());
+    }
+
+    @Test
+    void fallbackOfAPlainAccountRechecksItsRow() {
+        // The guarded UPDATE lost to a concurrent debit; the row is read again under lock.
+        when(accountRepo.lockBalance(ID)).thenReturn(Optional.of(amount("20.00")));
+        when(stripeRepo.lockStripes(ID)).thenReturn(List.of());
+
+        assertThat(balances.debit(ID, Money.valueOf("30"))).isFalse();
+        assertThat(balances.debit(ID, Money.valueOf("20"))).isTrue();
+        verify(accountRepo).setBalance(ID, amount("0.00"));
+        assertThat(meterRegistry.counter("bank.hotaccounts.rebalances").count()).isZero();
+    }
+
+    @Test
+    void missingAccountIsNotDebited() {
+        when(accountRepo.lockBalance(ID)).thenReturn(Optional.empty());
+
+        assertThat(balances.debit(ID, Money.valueOf("1"))).isFalse();
+        verify(stripeRepo, never()).lockStripes(any());
+    }
+
+    @Test
+    void stripedDebitTriesEveryStripeBeforeTheWholeBalance() {
+        when(accountRepo.findStriped()).thenReturn(List.<Object[]>of(new Object[] { ID, 3 }));
+        balances.load();
+        when(accountRepo.lockBalance(ID)).thenReturn(Optional.of(amount("0.00")));
+        when(stripeRepo.lockStripes(ID)).thenReturn(stripes("20.00", "20.00", "20.00"));
+
+        assertThat(balances.debit(ID, Money.valueOf("45"))).isTrue();
+        for (int stripe = 0; stripe < 3; stripe++) {
+            verify(stripeRepo).debit(ID, stripe, amount("45.00"));
+            verify(stripeRepo).setBalance(ID, stripe, amount("5.00"));
+        }
+        verify(accountRepo, never()).debit(any(), any());
+    }
+
+    @Test
+    void stripedDebitStopsAtTheFirstStripeThatCoversIt() {
+        when(accountRepo.findStriped()).thenReturn(List.<Object[]>of(new Object[] { ID, 3 }));
+        balances.load();
+        when(accountRepo.lockBalance(ID)).thenReturn(Optional.of(amount("0.00")));
+        when(stripeRepo.debit(any(), anyInt(), any())).thenReturn(1);
+
+        assertThat(balances.debit(ID, Money.valueOf("5"))).isTrue();
+        verify(stripeRepo, never()).lockStripes(any());
+    }
+
+    private static BigDecimal amount(String value) {
+        return Money.valueOf(value).toBigDecimal();
+    }
+
+    private static List<Object[]> stripes(String... values) {
+        Object[][] rows = new Object[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            rows[i] = new Object[] { i, amount(values[i]) };
+        }
+        return List.of(rows);
+    }
+}
@@ -0,0 +1,117 @@
+package com.bank.service;
+
+import com.bank.model.Money;
+import com.bank.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Single transfers in the jpa ledger mode running into and out of one shared account at the
+ * same time, so opposite transfers keep meeting on the same two rows. Every transfer must
+ * commit, without deadlocking, and the money must be conserved.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("embedded")
+class OppositeTransfersTest {
+
+    private static final int PARTNERS = 4;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 150;
+    private static final Money OPENING_BALANCE = Money.valueOf("1000.00");
+    private static final Money AMOUNT = Money.valueOf("1.25");
+
+    @Autowired
+    private BankService bankService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void oppositeTransfersAllCommitAndConserveMoney() throws Exception {
+        User user = new User();
+        user.setName("Opposite");
+        user.setEmail("opposite@example.com");
+        user.setPassword("opposite");
+        user = bankService.registerUser(user);
+        Long hot = bankService.createAccount(user).getId();
+        bankService.deposit(hot, OPENING_BALANCE);
+        List<Long> ids = new ArrayList<>(List.of(hot));
+        for (int i = 0; i < PARTNERS; i++) {
+            Long id = bankService.createAccount(user).getId();
+            bankService.deposit(id, OPENING_BALANCE);
+            ids.add(id);
+        }
+
+        // Each thread alternates directions against every partner, so each one moves as much
+        // into the hot account as out of it and every balance ends where it started.
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> runs = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                runs.add(pool.submit(() -> {
+                    start.await();
+                    int done = 0;
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        Long partner = ids.get(1 + (offset + i / 2) % PARTNERS);
+                        if ((offset + i) % 2 == 0) {
+                            bankService.transfer(partner, hot, AMOUNT);
+                        } else {
+                            bankService.transfer(hot, partner, AMOUNT);
+                        }
+                        done++;
+                    }
+                    return done;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> run : runs) {
+                assertThat(run.get(120, TimeUnit.SECONDS)).isEqualTo(TRANSFERS_PER_THREAD);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Money total = Money.ZERO;
+        for (Long id : ids) {
+            assertThat(bankService.getBalance(id)).isEqualTo(OPENING_BALANCE);
+            total = total.plus(bankService.getBalance(id));
+        }
+        assertThat(total).isEqualTo(Money.ofMinor(OPENING_BALANCE.getMinorUnits() * (PARTNERS + 1)));
+
+        // The ledger rows agree with the balances, and every transfer wrote both of its halves.
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        MapSqlParameterSource accounts = new MapSqlParameterSource("ids", ids);
+        Integer mismatched = named.queryForObject(
+            "SELECT COUNT(*) FROM accounts a WHERE a.id IN (:ids) AND a.balance <> (" +
+            "SELECT COALESCE(SUM(CASE WHEN t.type IN ('DEPOSIT', 'TRANSFER_IN') THEN t.amount ELSE -t.amount END), 0) " +
+            "FROM transactions t WHERE t.account_id = a.id)", accounts, Integer.class);
+        assertThat(mismatched).isZero();
+        BigDecimal transfersOut = named.queryForObject(
+            "SELECT SUM(amount) FROM transactions WHERE account_id IN (:ids) AND type = 'TRANSFER_OUT'",
+            accounts, BigDecimal.class);
+        BigDecimal transfersIn = named.queryForObject(
+            "SELECT SUM(amount) FROM transactions WHERE account_id IN (:ids) AND type = 'TRANSFER_IN'",
+            accounts, BigDecimal.class);
+        Money moved = Money.ofMinor(AMOUNT.getMinorUnits() * THREADS * TRANSFERS_PER_THREAD);
+        assertThat(Money.of(transfersOut)).isEqualTo(moved);
+        assertThat(Money.of(transfersIn)).isEqualTo(moved);
+    }
+}
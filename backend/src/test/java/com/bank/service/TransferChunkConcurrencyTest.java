@@ -0,0 +1,84 @@
+package com.bank.service;
+
+import com.bank.dto.TransferRequest;
+import com.bank.model.Money;
+import com.bank.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payment batch chunks in the jpa ledger mode that share accounts, run at the same time.
+ * Each chunk locks all of its accounts before applying the transfers, so two chunks that
+ * lock in different orders would deadlock.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("embedded")
+class TransferChunkConcurrencyTest {
+
+    private static final int ACCOUNTS = 20;
+    private static final int ROUNDS = 30;
+    private static final Money OPENING_BALANCE = Money.valueOf("1000.00");
+
+    @Autowired
+    private BankService bankService;
+
+    @Test
+    void overlappingChunksInOppositeDirectionsAllCommit() throws Exception {
+        User user = new User();
+        user.setName("Chunks");
+        user.setEmail("chunks@example.com");
+        user.setPassword("chunks");
+        user = bankService.registerUser(user);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Long id = bankService.createAccount(user).getId();
+            bankService.deposit(id, OPENING_BALANCE);
+            ids.add(id);
+        }
+
+        // One chunk walks the accounts upwards and the other downwards; both touch every account.
+        List<TransferRequest> upwards = new ArrayList<>();
+        List<TransferRequest> downwards = new ArrayList<>();
+        for (int i = 0; i + 1 < ACCOUNTS; i++) {
+            upwards.add(new TransferRequest(ids.get(i), ids.get(i + 1), Money.valueOf("1.00")));
+            downwards.add(new TransferRequest(ids.get(ACCOUNTS - 1 - i), ids.get(ACCOUNTS - 2 - i), Money.valueOf("1.00")));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<List<List<TransferOutcome>>>> runs = new ArrayList<>();
+            for (List<TransferRequest> chunk : List.of(upwards, downwards)) {
+                runs.add(pool.submit(() -> {
+                    List<List<TransferOutcome>> outcomes = new ArrayList<>();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        outcomes.add(bankService.transferChunk(chunk));
+                    }
+                    return outcomes;
+                }));
+            }
+            for (Future<List<List<TransferOutcome>>> run : runs) {
+                for (List<TransferOutcome> outcomes : run.get(60, TimeUnit.SECONDS)) {
+                    assertThat(outcomes).allMatch(TransferOutcome::isCompleted);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // The two directions cancel out account by account.
+        for (Long id : ids) {
+            assertThat(bankService.getBalance(id)).isEqualTo(OPENING_BALANCE);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.bank.benchmark;
+
+import com.bank.admission.AdmissionControl;
+import com.bank.admission.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request cost of admission control from many threads, without the web stack:
+ * one principal and one account bucket taken per call over {@code keys} distinct keys
+ * (1 puts every thread on the same buckets). {@code admitted} never hits the limit;
+ * {@code rejected} is always over it and measures the 429 path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class AdmissionControlBenchmark {
+
+    @Param({ "1", "1024", "100000" })
+    public int keys;
+
+    private AdmissionControl admissionControl;
+    private String[] principals;
+
+    @Setup(Level.Trial)
+    public void start() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+            "bank.admission.limits.unlimited.per-user.rate", "1e12",
+            "bank.admission.limits.unlimited.per-account.rate", "1e12",
+            "bank.admission.limits.exhausted.per-user.rate", "1e-6",
+            "bank.admission.limits.exhausted.per-user.burst", "1",
+            "bank.admission.limits.exhausted.per-account.rate", "1e-6",
+            "bank.admission.limits.exhausted.per-account.burst", "1")));
+        admissionControl = new AdmissionControl(new SimpleMeterRegistry(), environment);
+        principals = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            principals[i] = "user" + i + "@example.com";
+        }
+    }
+
+    @Benchmark
+    public void admitted() {
+        int key = ThreadLocalRandom.current().nextInt(keys);
+        admissionControl.admitUser("unlimited", principals[key]);
+        admissionControl.admitAccount("unlimited", principals[key], (long) key);
+    }
+
+    @Benchmark
+    public boolean rejected() {
+        int key = ThreadLocalRandom.current().nextInt(keys);
+        try {
+            admissionControl.admitAccount("exhausted", null, (long) key);
+            return true;
+        } catch (AdmissionRejectedException e) {
+            return false;
+        }
+    }
+}
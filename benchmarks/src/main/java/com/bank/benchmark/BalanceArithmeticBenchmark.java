@@ -0,0 +1,96 @@
+package com.bank.benchmark;
+
+import com.bank.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The arithmetic done per balance change, without any I/O around it: the original
+ * {@code BigDecimal} path next to the {@link Money} equivalent. Run with {@code -prof gc}
+ * to compare allocation per operation as well as time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BalanceArithmeticBenchmark {
+
+    public BigDecimal balance = new BigDecimal("15234.50");
+    public BigDecimal amount = new BigDecimal("125.75");
+    public Money moneyBalance = Money.valueOf("15234.50");
+    public Money moneyAmount = Money.valueOf("125.75");
+
+    // What #numbers.formatDecimal(x, 1, 'COMMA', 2, 'POINT') does for every cell.
+    private final DecimalFormat decimalFormat = new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(Locale.US));
+
+    @Benchmark
+    public BigDecimal deposit() {
+        return balance.add(amount);
+    }
+
+    @Benchmark
+    public BigDecimal withdraw() {
+        if (balance.compareTo(amount) < 0) {
+            throw new IllegalStateException("Insufficient funds.");
+        }
+        return balance.subtract(amount);
+    }
+
+    @Benchmark
+    public boolean validatePositive() {
+        return amount.compareTo(BigDecimal.ZERO) > 0;
+    }
+
+    @Benchmark
+    public BigDecimal parseFormInput() {
+        return new BigDecimal("125.75");
+    }
+
+    @Benchmark
+    public String format() {
+        return decimalFormat.format(balance);
+    }
+
+    @Benchmark
+    public Money moneyDeposit() {
+        return moneyBalance.plus(moneyAmount);
+    }
+
+    @Benchmark
+    public Money moneyWithdraw() {
+        if (moneyBalance.isLessThan(moneyAmount)) {
+            throw new IllegalStateException("Insufficient funds.");
+        }
+        return moneyBalance.minus(moneyAmount);
+    }
+
+    @Benchmark
+    public boolean moneyValidatePositive() {
+        return moneyAmount.isPositive();
+    }
+
+    @Benchmark
+    public Money moneyParseFormInput() {
+        return Money.valueOf("125.75");
+    }
+
+    @Benchmark
+    public String moneyFormat() {
+        return moneyBalance.format();
+    }
+}
@@ -0,0 +1,42 @@
+package com.bank.benchmark;
+
+import com.bank.MainApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts the banking application against a private in-memory H2 database, so benchmarks
+ * exercise the real services, repositories and Hibernate settings. It runs as a servlet
+ * application on a random port because the security configuration needs Spring MVC.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("bank.schema.migrate", "false");
+        properties.put("bank.startup.report", "false");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("server.port", "0");
+        properties.putAll(overrides);
+        // Passed as arguments so they take precedence over the application's own properties.
+        String[] args = properties.entrySet().stream()
+            .map(e -> "--" + e.getKey() + "=" + e.getValue())
+            .toArray(String[]::new);
+        return new SpringApplicationBuilder(MainApplication.class)
+            .logStartupInfo(false)
+            .run(args);
+    }
+}
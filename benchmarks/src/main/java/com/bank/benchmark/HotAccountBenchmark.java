@@ -0,0 +1,89 @@
+package com.bank.benchmark;
+
+import com.bank.model.Account;
+import com.bank.model.Money;
+import com.bank.model.User;
+import com.bank.service.BankService;
+import com.bank.service.HotAccountBalances;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Credits to a single hot account from many threads, with the account split into
+ * {@code stripes} balance rows (1 leaves it unstriped). Credit throughput should grow with
+ * the stripe count until the threads no longer queue on a shared row; on a machine with
+ * fewer cores than threads the database work itself becomes the ceiling first.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class HotAccountBenchmark {
+
+    private static final int SOURCES = 64;
+    private static final Money OPENING_BALANCE = Money.valueOf("1000000000.00");
+    private static final Money AMOUNT = Money.valueOf("1.25");
+
+    @Param({ "1", "4", "16" })
+    public int stripes;
+
+    private ConfigurableApplicationContext context;
+    private BankService bankService;
+    private long hotAccountId;
+    private long[] sourceIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(Map.of("bank.ledger.mode", "jpa"));
+        bankService = context.getBean(BankService.class);
+
+        User user = new User();
+        user.setName("Bench");
+        user.setEmail("bench@example.com");
+        user.setPassword("bench");
+        user = bankService.registerUser(user);
+        hotAccountId = bankService.createAccount(user).getId();
+        sourceIds = new long[SOURCES];
+        for (int i = 0; i < SOURCES; i++) {
+            Account account = bankService.createAccount(user);
+            bankService.deposit(account.getId(), OPENING_BALANCE);
+            sourceIds[i] = account.getId();
+        }
+        context.getBean(HotAccountBalances.class).stripe(hotAccountId, stripes);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public void deposit() {
+        bankService.deposit(hotAccountId, AMOUNT);
+    }
+
+    @Benchmark
+    public void transferIn() {
+        bankService.transfer(sourceIds[ThreadLocalRandom.current().nextInt(SOURCES)], hotAccountId, AMOUNT);
+    }
+}
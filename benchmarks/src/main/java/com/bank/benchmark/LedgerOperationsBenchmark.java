@@ -0,0 +1,144 @@
+package com.bank.benchmark;
+
+import com.bank.model.Account;
+import com.bank.model.Money;
+import com.bank.model.User;
+import com.bank.service.BankService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit, withdraw and transfer through {@link BankService}, on both ledger modes.
+ *
+ * <p>The {@code jdbcStatements} counter is the number of JDBC statements Hibernate prepared
+ * during the iteration; divide it by the operation count for statements per operation. In
+ * engine mode the statements are issued by the background flusher, so the figure is the
+ * amortized cost of a batched flush rather than work done on the calling thread.
+ *
+ * <p>{@code writes=single-row} restores the write path from before pooled sequences: one
+ * sequence call per id and no JDBC batching. Compare it with {@code writes=batched} in jpa
+ * mode for the effect of the pooled ids and batched flushes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LedgerOperationsBenchmark {
+
+    private static final int ACCOUNTS = 64;
+    private static final Money OPENING_BALANCE = Money.valueOf("1000000000.00");
+    private static final Money AMOUNT = Money.valueOf("1.25");
+
+    @Param({ "jpa", "engine" })
+    public String ledgerMode;
+
+    @Param({ "batched", "single-row" })
+    public String writes;
+
+    private ConfigurableApplicationContext context;
+    private Path journalDir;
+    private BankService bankService;
+    private Statistics statistics;
+    private long[] accountIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+        public long jdbcStatements;
+    }
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        journalDir = Files.createTempDirectory("ledger-bench");
+        Map<String, Object> properties = new HashMap<>(Map.of(
+            "bank.ledger.mode", ledgerMode,
+            "bank.ledger.journal-dir", journalDir.toString(),
+            "bank.ledger.segment-records", "65536",
+            "spring.jpa.properties.hibernate.generate_statistics", "true",
+            // Scheduled jobs would add their statements to the counter.
+            "bank.checkpoints.cron", "-",
+            "bank.eod.cron", "-"));
+        if (writes.equals("single-row")) {
+            properties.put("spring.jpa.mapping-resources", "single-row-ids.orm.xml");
+            properties.put("spring.jpa.properties.hibernate.jdbc.batch_size", "1");
+            properties.put("spring.jpa.properties.hibernate.order_inserts", "false");
+            properties.put("spring.jpa.properties.hibernate.order_updates", "false");
+        }
+        context = BenchmarkApplication.start(properties);
+        bankService = context.getBean(BankService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setName("Bench");
+        user.setEmail("bench@example.com");
+        user.setPassword("bench");
+        user = bankService.registerUser(user);
+        accountIds = new long[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = bankService.createAccount(user);
+            bankService.deposit(account.getId(), OPENING_BALANCE);
+            accountIds[i] = account.getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(journalDir);
+    }
+
+    @Benchmark
+    public void deposit(Statements statements) {
+        long before = statistics.getPrepareStatementCount();
+        bankService.deposit(randomAccount(), AMOUNT);
+        statements.jdbcStatements += statistics.getPrepareStatementCount() - before;
+    }
+
+    @Benchmark
+    public void withdraw(Statements statements) {
+        long before = statistics.getPrepareStatementCount();
+        bankService.withdraw(randomAccount(), AMOUNT);
+        statements.jdbcStatements += statistics.getPrepareStatementCount() - before;
+    }
+
+    @Benchmark
+    public void transfer(Statements statements) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        long before = statistics.getPrepareStatementCount();
+        bankService.transfer(accountIds[from], accountIds[to], AMOUNT);
+        statements.jdbcStatements += statistics.getPrepareStatementCount() - before;
+    }
+
+    private Long randomAccount() {
+        return accountIds[ThreadLocalRandom.current().nextInt(ACCOUNTS)];
+    }
+}
@@ -0,0 +1,77 @@
+package com.bank.benchmark;
+
+import com.bank.model.User;
+import com.bank.service.BankService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.Authentication;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Form logins from many threads through Spring Security's authentication manager, at
+ * several bcrypt costs, with the remembered-check cache off so every login hashes. Each
+ * step of the cost doubles the CPU per login; with more logins than hashing threads the
+ * excess waits in the hashing queue, which shows up as latency (see the percentiles of
+ * the sample mode) while banking requests keep the remaining cores.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 4)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+    private static final String EMAIL = "bench@example.com";
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({ "4", "8", "10", "12" })
+    public int strength;
+
+    private ConfigurableApplicationContext context;
+    private AuthenticationManager authenticationManager;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        context = BenchmarkApplication.start(Map.of(
+            "bank.security.bcrypt-strength", strength,
+            "bank.security.verified-cache.ttl", "0s",
+            "bank.security.hashing.max-wait", "60s"));
+        authenticationManager = context.getBean(AuthenticationConfiguration.class).getAuthenticationManager();
+
+        User user = new User();
+        user.setName("Bench");
+        user.setEmail(EMAIL);
+        user.setPassword(PASSWORD);
+        context.getBean(BankService.class).registerUser(user);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication login() {
+        return authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(EMAIL, PASSWORD));
+    }
+}
@@ -0,0 +1,121 @@
+package com.bank.benchmark;
+
+import com.bank.model.Account;
+import com.bank.model.Money;
+import com.bank.model.User;
+import com.bank.service.BankService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stress test of the guarded balance updates: many threads transfer money into and out
+ * of one shared hot account at the same time, so transfers in opposite directions
+ * constantly meet on the same two rows. The score is transfers per second.
+ *
+ * <p>After the run the trial fails unless the money was conserved: the total of all
+ * balances is what was deposited, every account's balance equals the signed sum of its
+ * ledger rows, and transfers out equal transfers in.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class OppositeTransfersBenchmark {
+
+    private static final int PARTNERS = 8;
+    private static final Money OPENING_BALANCE = Money.valueOf("1000000.00");
+    private static final Money AMOUNT = Money.valueOf("1.25");
+
+    private ConfigurableApplicationContext context;
+    private BankService bankService;
+    private JdbcTemplate jdbc;
+    private long hotAccountId;
+    private long[] partnerIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(Map.of(
+            "bank.ledger.mode", "jpa",
+            "bank.checkpoints.cron", "-",
+            "bank.eod.cron", "-"));
+        bankService = context.getBean(BankService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        User user = new User();
+        user.setName("Bench");
+        user.setEmail("bench@example.com");
+        user.setPassword("bench");
+        user = bankService.registerUser(user);
+        hotAccountId = bankService.createAccount(user).getId();
+        bankService.deposit(hotAccountId, OPENING_BALANCE);
+        partnerIds = new long[PARTNERS];
+        for (int i = 0; i < PARTNERS; i++) {
+            Account account = bankService.createAccount(user);
+            bankService.deposit(account.getId(), OPENING_BALANCE);
+            partnerIds[i] = account.getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void verifyAndStop() {
+        try {
+            Money expected = Money.ofMinor(OPENING_BALANCE.getMinorUnits() * (PARTNERS + 1));
+            Money total = money(jdbc.queryForObject("SELECT COALESCE(SUM(balance), 0) FROM accounts", BigDecimal.class));
+            Integer mismatched = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM accounts a WHERE a.balance <> (" +
+                "SELECT COALESCE(SUM(CASE WHEN t.type IN ('DEPOSIT', 'TRANSFER_IN') THEN t.amount ELSE -t.amount END), 0) " +
+                "FROM transactions t WHERE t.account_id = a.id)", Integer.class);
+            Money transfersOut = money(jdbc.queryForObject(
+                "SELECT COALESCE(SUM(amount), 0) FROM transactions WHERE type = 'TRANSFER_OUT'", BigDecimal.class));
+            Money transfersIn = money(jdbc.queryForObject(
+                "SELECT COALESCE(SUM(amount), 0) FROM transactions WHERE type = 'TRANSFER_IN'", BigDecimal.class));
+            Long transfers = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE type = 'TRANSFER_OUT'", Long.class);
+
+            System.out.printf("%n%d transfers; total %s, expected %s; transfers out %s, in %s; %d accounts not matching their ledger rows%n",
+                transfers, total.format(), expected.format(), transfersOut.format(), transfersIn.format(), mismatched);
+            if (!total.equals(expected) || mismatched == null || mismatched != 0 || !transfersOut.equals(transfersIn)) {
+                throw new IllegalStateException("Money was not conserved.");
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    /** Half the transfers go into the hot account and half come out of it. */
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long partner = partnerIds[random.nextInt(PARTNERS)];
+        if (random.nextBoolean()) {
+            bankService.transfer(partner, hotAccountId, AMOUNT);
+        } else {
+            bankService.transfer(hotAccountId, partner, AMOUNT);
+        }
+    }
+
+    private static Money money(BigDecimal value) {
+        return value == null ? Money.ZERO : Money.of(value);
+    }
+}
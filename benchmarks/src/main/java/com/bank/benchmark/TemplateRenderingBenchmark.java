@@ -0,0 +1,140 @@
+package com.bank.benchmark;
+
+import com.bank.dto.DashboardAccount;
+import com.bank.dto.TransactionView;
+import com.bank.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.linkbuilder.StandardLinkBuilder;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the application's own {@code transactions.html} and {@code dashboard.html}
+ * templates with the Spring dialect, into a writer that only counts characters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateRenderingBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int rows;
+
+    private SpringTemplateEngine engine;
+    private Context transactions;
+    private Context dashboard;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+
+        engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        // Outside a servlet request there is no context path; render links as if deployed at "/".
+        engine.setLinkBuilder(new StandardLinkBuilder() {
+            @Override
+            protected String computeContextPath(IExpressionContext context, String base, Map<String, Object> parameters) {
+                return "";
+            }
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        List<TransactionView> history = new ArrayList<>(rows);
+        List<DashboardAccount> accounts = new ArrayList<>(rows);
+        Money balance = Money.valueOf("100000.00");
+        for (int i = 0; i < rows; i++) {
+            Money amount = Money.ofMinor(1000 + i % 5000);
+            balance = balance.plus(amount);
+            history.add(new TransactionView((long) (rows - i), i % 2 == 0 ? "DEPOSIT" : "TRANSFER_OUT",
+                amount, now.minusMinutes(i), balance));
+            accounts.add(new DashboardAccount((long) i + 1, balance, now.minusDays(365), now.minusMinutes(i),
+                amount, Money.ZERO));
+        }
+
+        transactions = new Context();
+        transactions.setVariable("transactions", history);
+        transactions.setVariable("accountId", 1L);
+        transactions.setVariable("nextCursor", "2024-01-01T00:00_1");
+        transactions.setVariable("previousCursor", null);
+        transactions.setVariable("from", null);
+        transactions.setVariable("to", null);
+        transactions.setVariable("type", "");
+        transactions.setVariable("size", rows);
+
+        dashboard = new Context();
+        dashboard.setVariable("userName", "Bench");
+        dashboard.setVariable("accounts", accounts);
+    }
+
+    @Benchmark
+    public long transactionsPage() {
+        return render("transactions", transactions);
+    }
+
+    @Benchmark
+    public long dashboardPage() {
+        return render("dashboard", dashboard);
+    }
+
+    private long render(String template, Context context) {
+        CountingWriter out = new CountingWriter();
+        engine.process(template, context, out);
+        return out.count;
+    }
+
+    private static final class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String str, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
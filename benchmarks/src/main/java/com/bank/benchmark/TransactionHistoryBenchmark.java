@@ -0,0 +1,85 @@
+package com.bank.benchmark;
+
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionPage;
+import com.bank.model.Account;
+import com.bank.model.Money;
+import com.bank.model.User;
+import com.bank.service.BankService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading an account's history one keyset page at a time, from the newest rows and from
+ * the middle of the history; the cost of a page should not grow with the history.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionHistoryBenchmark {
+
+    private static final int PAGE_SIZE = 25;
+
+    @Param({ "100", "10000" })
+    public int historyRows;
+
+    private ConfigurableApplicationContext context;
+    private BankService bankService;
+    private Long accountId;
+    private TransactionCursor middle;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(Map.of());
+        bankService = context.getBean(BankService.class);
+
+        User user = new User();
+        user.setName("Bench");
+        user.setEmail("bench@example.com");
+        user.setPassword("bench");
+        Account account = bankService.createAccount(bankService.registerUser(user));
+        accountId = account.getId();
+        for (int i = 0; i < historyRows; i++) {
+            bankService.deposit(accountId, Money.valueOf("10.00"));
+        }
+        // Walk back page by page to the one that starts halfway through the history.
+        TransactionPage page = bankService.getTransactionPage(accountId, null, null, null, null, null, PAGE_SIZE);
+        for (int seen = PAGE_SIZE; seen < historyRows / 2 && page.hasNext(); seen += PAGE_SIZE) {
+            page = bankService.getTransactionPage(accountId, null, null, null, page.getNextCursor(), null, PAGE_SIZE);
+        }
+        middle = page.getNextCursor();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionPage firstPage() {
+        return bankService.getTransactionPage(accountId, null, null, null, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TransactionPage middlePage() {
+        return bankService.getTransactionPage(accountId, null, null, null, middle, null, PAGE_SIZE);
+    }
+}
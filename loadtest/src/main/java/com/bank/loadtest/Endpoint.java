@@ -0,0 +1,87 @@
+package com.bank.loadtest;
+
+import com.bank.model.Money;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The pages driven by the load test and how a request to each is built.
+ */
+enum Endpoint {
+
+    DASHBOARD {
+        @Override
+        Call call(String base, VirtualUser user, List<Long> allAccounts, RandomGenerator random) {
+            return new Call(get(base + "/dashboard", user), null);
+        }
+    },
+    TRANSACTIONS {
+        @Override
+        Call call(String base, VirtualUser user, List<Long> allAccounts, RandomGenerator random) {
+            return new Call(get(base + "/transactions?accountId=" + user.randomAccount(random), user), null);
+        }
+    },
+    DEPOSIT {
+        @Override
+        Call call(String base, VirtualUser user, List<Long> allAccounts, RandomGenerator random) {
+            Money amount = randomAmount(random);
+            return new Call(post(base + "/deposit", user,
+                "accountId=" + user.randomAccount(random) + "&amount=" + amount), amount);
+        }
+    },
+    WITHDRAW {
+        @Override
+        Call call(String base, VirtualUser user, List<Long> allAccounts, RandomGenerator random) {
+            Money amount = randomAmount(random);
+            return new Call(post(base + "/withdraw", user,
+                "accountId=" + user.randomAccount(random) + "&amount=" + amount), amount);
+        }
+    },
+    TRANSFER {
+        @Override
+        Call call(String base, VirtualUser user, List<Long> allAccounts, RandomGenerator random) {
+            long from = user.randomAccount(random);
+            long to = allAccounts.get(random.nextInt(allAccounts.size()));
+            if (to == from) {
+                to = allAccounts.get((allAccounts.indexOf(to) + 1) % allAccounts.size());
+            }
+            return new Call(post(base + "/transfer", user,
+                "fromAccountId=" + from + "&toAccountId=" + to + "&amount=" + randomAmount(random)), null);
+        }
+    };
+
+    /** A request and, for deposits and withdrawals, the amount it moves in or out of the bank. */
+    record Call(HttpRequest request, Money amount) {
+    }
+
+    abstract Call call(String base, VirtualUser user, List<Long> allAccounts, RandomGenerator random);
+
+    // Between 1.00 and 100.00.
+    private static Money randomAmount(RandomGenerator random) {
+        return Money.ofMinor(100 + random.nextInt(9_901));
+    }
+
+    private static HttpRequest get(String uri, VirtualUser user) {
+        return HttpRequest.newBuilder(URI.create(uri))
+            .header("Cookie", user.sessionCookie())
+            .GET()
+            .build();
+    }
+
+    private static HttpRequest post(String uri, VirtualUser user, String form) {
+        return HttpRequest.newBuilder(URI.create(uri))
+            .header("Cookie", user.sessionCookie())
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build();
+    }
+
+    static String formEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package com.bank.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution and outcome counts of one endpoint. Latency is measured from the
+ * time a request was scheduled to be sent, not from when it was sent, so a stalled server
+ * shows up in the percentiles instead of only lowering the request rate.
+ */
+final class EndpointStats {
+
+    final Endpoint endpoint;
+    // Microseconds, up to ten minutes, three significant digits.
+    final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(10), 3);
+    final LongAdder ok = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder skipped = new LongAdder();
+
+    EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    enum Outcome { OK, REJECTED, ERROR }
+
+    Outcome record(long intendedNanos, long completedNanos, HttpResponse<String> response, Throwable error) {
+        latency.recordValue(Math.max(0, (completedNanos - intendedNanos) / 1_000));
+        Outcome outcome = classify(response, error);
+        switch (outcome) {
+            case OK -> ok.increment();
+            case REJECTED -> rejected.increment();
+            default -> errors.increment();
+        }
+        return outcome;
+    }
+
+    long count() {
+        return latency.getTotalCount();
+    }
+
+    /**
+     * The pages answer business failures (e.g. insufficient funds) with 200 and an error
+     * message, and an expired session with a redirect to the login page.
+     */
+    private static Outcome classify(HttpResponse<String> response, Throwable error) {
+        if (error != null || response == null) {
+            return Outcome.ERROR;
+        }
+        int status = response.statusCode();
+        if (status == 200) {
+            return response.body().contains(" failed: ") ? Outcome.REJECTED : Outcome.OK;
+        }
+        if (status >= 300 && status < 400) {
+            return response.headers().firstValue("Location").orElse("").contains("/login")
+                ? Outcome.ERROR : Outcome.OK;
+        }
+        return Outcome.ERROR;
+    }
+}
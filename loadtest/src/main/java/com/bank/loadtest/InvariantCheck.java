@@ -0,0 +1,88 @@
+package com.bank.loadtest;
+
+import com.bank.ledger.LedgerEngine;
+import com.bank.model.Money;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checks after a run that no money was created or lost:
+ * <ul>
+ *   <li>every account's balance equals the signed sum of its ledger rows;</li>
+ *   <li>transfers out equal transfers in;</li>
+ *   <li>the money in all accounts equals what was seeded plus the deposits and minus the
+ *       withdrawals that the clients saw succeed.</li>
+ * </ul>
+ */
+final class InvariantCheck {
+
+    private final ApplicationContext context;
+    private final JdbcTemplate jdbc;
+
+    InvariantCheck(ApplicationContext context) {
+        this.context = context;
+        this.jdbc = context.getBean(JdbcTemplate.class);
+    }
+
+    boolean verify(Money seeded, TrafficDriver driver, PrintStream out) throws InterruptedException {
+        awaitFlush();
+
+        // A hot account's balance is its account row plus its stripes.
+        Money total = money(jdbc.queryForObject("SELECT COALESCE(SUM(balance), 0) FROM accounts", BigDecimal.class))
+            .plus(money(jdbc.queryForObject("SELECT COALESCE(SUM(balance), 0) FROM account_balance_stripes", BigDecimal.class)));
+        Map<String, Money> byType = new HashMap<>();
+        jdbc.query("SELECT type, COALESCE(SUM(amount), 0) FROM transactions GROUP BY type",
+            rs -> { byType.put(rs.getString(1), money(rs.getBigDecimal(2))); });
+        Integer mismatched = jdbc.queryForObject(
+            "SELECT COUNT(*) FROM accounts a WHERE a.balance + " +
+            "COALESCE((SELECT SUM(s.balance) FROM account_balance_stripes s WHERE s.account_id = a.id), 0) <> (" +
+            "SELECT COALESCE(SUM(CASE WHEN t.type IN ('DEPOSIT', 'TRANSFER_IN') THEN t.amount ELSE -t.amount END), 0) " +
+            "FROM transactions t WHERE t.account_id = a.id)", Integer.class);
+
+        Money transfersOut = byType.getOrDefault("TRANSFER_OUT", Money.ZERO);
+        Money transfersIn = byType.getOrDefault("TRANSFER_IN", Money.ZERO);
+        Money expected = seeded.plus(Money.ofMinor(driver.depositedMinor.sum()))
+                               .minus(Money.ofMinor(driver.withdrawnMinor.sum()));
+
+        boolean ok = true;
+        out.printf("%nInvariants%n");
+        out.printf("  accounts not matching their ledger rows: %d%n", mismatched);
+        ok &= mismatched != null && mismatched == 0;
+        out.printf("  transfers out %s, transfers in %s%n", transfersOut.format(), transfersIn.format());
+        ok &= transfersOut.equals(transfersIn);
+        if (driver.uncertainMoneyCalls.sum() > 0) {
+            out.printf("  total %s; client-side expectation skipped, %d deposits/withdrawals had unknown outcomes%n",
+                total.format(), driver.uncertainMoneyCalls.sum());
+        } else {
+            out.printf("  total %s, expected %s (seeded %s + deposits - withdrawals)%n",
+                total.format(), expected.format(), seeded.format());
+            ok &= total.equals(expected);
+        }
+        out.println(ok ? "  CONSERVED" : "  VIOLATED");
+        return ok;
+    }
+
+    /** In engine mode the tables trail the engine; wait until everything is written. */
+    private void awaitFlush() throws InterruptedException {
+        LedgerEngine engine = context.getBeanProvider(LedgerEngine.class).getIfAvailable();
+        if (engine == null) {
+            return;
+        }
+        while (engine.getFlushBacklog() > 0) {
+            Thread.sleep(50);
+        }
+        // The last batch may have left the queue but not yet committed.
+        Thread.sleep(context.getEnvironment().getProperty("bank.ledger.flush-interval", Duration.class,
+            Duration.ofMillis(200)).toMillis() * 3);
+    }
+
+    private static Money money(BigDecimal value) {
+        return value == null ? Money.ZERO : Money.of(value);
+    }
+}
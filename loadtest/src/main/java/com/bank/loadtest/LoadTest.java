@@ -0,0 +1,71 @@
+package com.bank.loadtest;
+
+import com.bank.MainApplication;
+import com.bank.model.Money;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Boots the application on the embedded profile and a random port, seeds it, drives
+ * traffic through the web pages and reports latency, throughput and the money invariants.
+ * Arguments are Spring properties: {@code load.*} configure the run (see
+ * {@link LoadTestOptions}) and anything else configures the application, e.g.
+ * {@code --bank.ledger.mode=engine}. Exits with status 1 if an invariant is violated.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Defaults first so that the caller's arguments override them.
+        String[] arguments = Stream.concat(Stream.of("--server.port=0", "--logging.level.root=WARN",
+            "--logging.level.com.bank.metrics=ERROR"),
+            Arrays.stream(args)).toArray(String[]::new);
+        boolean conserved;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MainApplication.class)
+                .profiles("embedded")
+                .logStartupInfo(false)
+                .run(arguments)) {
+            LoadTestOptions options = LoadTestOptions.from(context.getEnvironment());
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+
+            System.out.printf("Seeding %d users with %d accounts of %s each%n",
+                options.users(), options.accountsPerUser(), options.initialBalance().format());
+            Seeder seeder = new Seeder(context, options);
+            List<List<Long>> accounts = seeder.seed();
+            Money seeded = Money.ofMinor(options.initialBalance().getMinorUnits()
+                * options.users() * options.accountsPerUser());
+
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+            List<VirtualUser> users = seeder.login(client, baseUrl, accounts);
+            List<Long> allAccounts = new ArrayList<>();
+            accounts.forEach(allAccounts::addAll);
+
+            System.out.printf("Driving %d req/s for %s after a %s warm-up, mix %s%n",
+                options.rate(), options.duration(), options.warmup(), options.mix());
+            TrafficDriver driver = new TrafficDriver(client, baseUrl, users, allAccounts, options);
+            Map<Endpoint, EndpointStats> stats = driver.run();
+
+            Report.print(stats, options.duration(), System.out);
+            Report.write(stats, options.outputDir());
+            System.out.printf("Latency distributions written to %s%n", options.outputDir().toAbsolutePath());
+            conserved = new InvariantCheck(context).verify(seeded, driver, System.out);
+        }
+        System.exit(conserved ? 0 : 1);
+    }
+}
@@ -0,0 +1,59 @@
+package com.bank.loadtest;
+
+import com.bank.model.Money;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of one run, read from {@code load.*} properties (usually command-line arguments).
+ */
+record LoadTestOptions(int users,
+                       int accountsPerUser,
+                       Money initialBalance,
+                       int rate,
+                       Duration warmup,
+                       Duration duration,
+                       Map<Endpoint, Integer> mix,
+                       int maxInFlight,
+                       long seed,
+                       Path outputDir) {
+
+    static final String DEFAULT_MIX = "dashboard=30,transactions=20,deposit=20,withdraw=15,transfer=15";
+
+    static LoadTestOptions from(Environment env) {
+        return new LoadTestOptions(
+            env.getProperty("load.users", Integer.class, 100),
+            env.getProperty("load.accounts-per-user", Integer.class, 2),
+            Money.valueOf(env.getProperty("load.initial-balance", "1000.00")),
+            env.getProperty("load.rate", Integer.class, 200),
+            env.getProperty("load.warmup", Duration.class, Duration.ofSeconds(10)),
+            env.getProperty("load.duration", Duration.class, Duration.ofSeconds(30)),
+            parseMix(env.getProperty("load.mix", DEFAULT_MIX)),
+            env.getProperty("load.max-in-flight", Integer.class, 2000),
+            env.getProperty("load.seed", Long.class, 42L),
+            Path.of(env.getProperty("load.output-dir", "target/loadtest")));
+    }
+
+    /** Parses {@code name=weight} pairs, e.g. {@code dashboard=50,transfer=50}. */
+    static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid load.mix entry: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no endpoint with a positive weight.");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,61 @@
+package com.bank.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Prints throughput and latency percentiles per endpoint and writes each endpoint's full
+ * distribution as an HdrHistogram percentile file ({@code <endpoint>.hgrm}, milliseconds),
+ * which HdrHistogram's plotter can chart.
+ */
+final class Report {
+
+    private Report() {
+    }
+
+    static void print(Map<Endpoint, EndpointStats> stats, Duration duration, PrintStream out) {
+        double seconds = duration.toNanos() / 1e9;
+        out.printf("%n%-13s %8s %8s %8s %8s %8s %9s %9s %9s %9s %9s %9s%n", "endpoint", "count", "ok", "rejected",
+            "errors", "skipped", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram all = new Histogram(3);
+        long ok = 0, rejected = 0, errors = 0, skipped = 0;
+        for (EndpointStats s : stats.values()) {
+            Histogram h = s.latency;
+            all.add(h);
+            ok += s.ok.sum();
+            rejected += s.rejected.sum();
+            errors += s.errors.sum();
+            skipped += s.skipped.sum();
+            row(out, s.endpoint.name().toLowerCase(), h, s.ok.sum(), s.rejected.sum(), s.errors.sum(),
+                s.skipped.sum(), seconds);
+        }
+        row(out, "all", all, ok, rejected, errors, skipped, seconds);
+    }
+
+    static void write(Map<Endpoint, EndpointStats> stats, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        for (EndpointStats s : stats.values()) {
+            try (PrintStream file = new PrintStream(Files.newOutputStream(dir.resolve(s.endpoint.name().toLowerCase() + ".hgrm")))) {
+                s.latency.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+    }
+
+    private static void row(PrintStream out, String name, Histogram h, long ok, long rejected, long errors,
+                            long skipped, double seconds) {
+        out.printf("%-13s %8d %8d %8d %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, h.getTotalCount(),
+            ok, rejected, errors, skipped, h.getTotalCount() / seconds,
+            ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+            ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.bank.loadtest;
+
+import com.bank.model.Account;
+import com.bank.model.User;
+import com.bank.service.BankService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the users and accounts through {@link BankService}, so seeding works the same in
+ * every ledger mode, then logs every user in through the login form.
+ */
+final class Seeder {
+
+    static final String PASSWORD = "load-test";
+
+    private final ApplicationContext context;
+    private final LoadTestOptions options;
+
+    Seeder(ApplicationContext context, LoadTestOptions options) {
+        this.context = context;
+        this.options = options;
+    }
+
+    /** @return the account ids of each user, in user order. */
+    List<List<Long>> seed() {
+        BankService bankService = context.getBean(BankService.class);
+        PasswordEncoder encoder = context.getBean(PasswordEncoder.class);
+        List<List<Long>> accounts = new ArrayList<>(options.users());
+        for (int u = 0; u < options.users(); u++) {
+            User user = new User();
+            user.setName("Load " + u);
+            user.setEmail(email(u));
+            user.setPassword(encoder.encode(PASSWORD));
+            user = bankService.registerUser(user);
+            List<Long> ids = new ArrayList<>(options.accountsPerUser());
+            for (int a = 0; a < options.accountsPerUser(); a++) {
+                Account account = bankService.createAccount(user);
+                if (options.initialBalance().isPositive()) {
+                    bankService.deposit(account.getId(), options.initialBalance());
+                }
+                ids.add(account.getId());
+            }
+            accounts.add(ids);
+        }
+        return accounts;
+    }
+
+    List<VirtualUser> login(HttpClient client, String baseUrl, List<List<Long>> accounts)
+            throws IOException, InterruptedException {
+        List<VirtualUser> users = new ArrayList<>(accounts.size());
+        for (int u = 0; u < accounts.size(); u++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "email=" + Endpoint.formEncode(email(u)) + "&password=" + Endpoint.formEncode(PASSWORD)))
+                .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            String location = response.headers().firstValue("Location").orElse("");
+            String cookie = response.headers().allValues("Set-Cookie").stream()
+                .filter(c -> c.startsWith("JSESSIONID="))
+                .map(c -> c.substring(0, c.indexOf(';') > 0 ? c.indexOf(';') : c.length()))
+                .findFirst()
+                .orElse(null);
+            if (response.statusCode() != 302 || location.contains("error") || cookie == null) {
+                throw new IllegalStateException("Login failed for " + email(u) + ": " + response.statusCode() + " " + location);
+            }
+            users.add(new VirtualUser(email(u), cookie, accounts.get(u)));
+        }
+        return users;
+    }
+
+    private static String email(int user) {
+        return "load" + user + "@loadtest.local";
+    }
+}
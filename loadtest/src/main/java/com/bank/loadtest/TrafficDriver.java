@@ -0,0 +1,128 @@
+package com.bank.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed rate (an open workload): the schedule does not slow down when
+ * the server does. At most {@code maxInFlight} requests are outstanding; a request due
+ * while that many are open is skipped and counted.
+ */
+final class TrafficDriver {
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<VirtualUser> users;
+    private final List<Long> allAccounts;
+    private final LoadTestOptions options;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Money moved into and out of the bank by requests known to have succeeded, warm-up included.
+    final LongAdder depositedMinor = new LongAdder();
+    final LongAdder withdrawnMinor = new LongAdder();
+    // Deposits and withdrawals whose outcome is unknown (transport errors).
+    final LongAdder uncertainMoneyCalls = new LongAdder();
+
+    TrafficDriver(HttpClient client, String baseUrl, List<VirtualUser> users, List<Long> allAccounts,
+                  LoadTestOptions options) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.allAccounts = allAccounts;
+        this.options = options;
+        this.endpoints = options.mix().keySet().toArray(new Endpoint[0]);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += options.mix().get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Runs the warm-up, whose latencies are discarded, then the measured phase. The money
+     * tallies cover both, since warm-up deposits and withdrawals change the balances too.
+     */
+    Map<Endpoint, EndpointStats> run() throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(options.seed());
+        drive(options.warmup(), newStats(), random);
+        Map<Endpoint, EndpointStats> stats = newStats();
+        drive(options.duration(), stats, random);
+        return stats;
+    }
+
+    private void drive(Duration length, Map<Endpoint, EndpointStats> stats, SplittableRandom random)
+            throws InterruptedException {
+        long period = 1_000_000_000L / options.rate();
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * period;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Endpoint endpoint = pick(random);
+            VirtualUser user = users.get(random.nextInt(users.size()));
+            Endpoint.Call call = endpoint.call(baseUrl, user, allAccounts, random);
+            EndpointStats endpointStats = stats.get(endpoint);
+            if (inFlight.get() >= options.maxInFlight()) {
+                endpointStats.skipped.increment();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            client.sendAsync(call.request(), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    EndpointStats.Outcome outcome = endpointStats.record(intended, System.nanoTime(), response, error);
+                    tally(endpoint, call, outcome);
+                    inFlight.decrementAndGet();
+                });
+        }
+        while (inFlight.get() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void tally(Endpoint endpoint, Endpoint.Call call, EndpointStats.Outcome outcome) {
+        if (call.amount() == null) {
+            return;
+        }
+        if (outcome == EndpointStats.Outcome.ERROR) {
+            uncertainMoneyCalls.increment();
+        } else if (outcome == EndpointStats.Outcome.OK) {
+            (endpoint == Endpoint.DEPOSIT ? depositedMinor : withdrawnMinor).add(call.amount().getMinorUnits());
+        }
+    }
+
+    private Endpoint pick(SplittableRandom random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    private Map<Endpoint, EndpointStats> newStats() {
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : endpoints) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+        return stats;
+    }
+}
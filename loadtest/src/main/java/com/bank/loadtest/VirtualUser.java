@@ -0,0 +1,14 @@
+package com.bank.loadtest;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A seeded customer with a logged-in session.
+ */
+record VirtualUser(String email, String sessionCookie, List<Long> accountIds) {
+
+    long randomAccount(RandomGenerator random) {
+        return accountIds.get(random.nextInt(accountIds.size()));
+    }
+}